@@ -1,10 +1,14 @@
-<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<%@ page language="java" session="false" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
 <%@ page import="com.waitlist.model.User" %>
+<%@ page import="com.waitlist.model.UserPrincipal" %>
 <%@ page import="com.waitlist.model.Train" %>
 <%@ page import="java.util.List" %>
+<%@ page import="com.waitlist.util.LatencyHistogram" %>
+<%@ page import="com.waitlist.util.SecurityUtil" %>
+<%@ page import="com.waitlist.util.SqlStatistics" %>
 
 <%
-    User user = (User) session.getAttribute("user");
+    UserPrincipal user = (UserPrincipal) request.getAttribute("principal");
     if (user == null || !user.isAdmin()) {
         response.sendRedirect("login.jsp");
         return;
@@ -486,6 +490,7 @@
             <a href="AdminServlet?action=users" class="<%= "users".equals(request.getParameter("action")) ? "active" : "" %>">👥 Users</a>
             <a href="AdminServlet?action=trains" class="<%= "trains".equals(request.getParameter("action")) ? "active" : "" %>">🚂 Trains</a>
             <a href="AdminServlet?action=stats" class="<%= "stats".equals(request.getParameter("action")) ? "active" : "" %>">📈 Statistics</a>
+            <a href="AdminServlet?action=sql" class="<%= "sql".equals(request.getParameter("action")) ? "active" : "" %>">🗄️ SQL</a>
         </div>
 
         <!-- Dashboard View -->
@@ -495,17 +500,20 @@
                 <div class="stats-grid">
                     <div class="stat-card">
                         <h4>Total Users</h4>
-                        <div class="value"><%= request.getAttribute("totalUsers") != null ? request.getAttribute("totalUsers") : 0 %></div>
+                        <div class="value"><%= request.getAttribute("totalUsers") != null ? request.getAttribute("totalUsers") : "--" %></div>
                     </div>
                     <div class="stat-card">
                         <h4>Total Trains</h4>
-                        <div class="value"><%= request.getAttribute("totalTrains") != null ? request.getAttribute("totalTrains") : 0 %></div>
+                        <div class="value"><%= request.getAttribute("totalTrains") != null ? request.getAttribute("totalTrains") : "--" %></div>
                     </div>
                     <div class="stat-card">
                         <h4>Average Probability</h4>
-                        <div class="value"><%= request.getAttribute("avgProbability") != null ? request.getAttribute("avgProbability") + "%" : "0%" %></div>
+                        <div class="value"><%= request.getAttribute("avgProbability") != null ? request.getAttribute("avgProbability") + "%" : "--" %></div>
                     </div>
                 </div>
+                <% if (request.getAttribute("statsComputedAt") != null) { %>
+                    <p style="color: #999; font-size: 12px; margin-bottom: 20px;">Last computed: <%= request.getAttribute("statsComputedAt") %></p>
+                <% } %>
             </div>
         <% } %>
 
@@ -571,6 +579,15 @@
                             </tbody>
                         </table>
                     </div>
+                    <% String nextUsers = (String) request.getAttribute("nextAfter"); %>
+                    <div style="display: flex; justify-content: space-between; margin-top: 15px;">
+                        <% if (request.getParameter("after") != null) { %>
+                            <a href="AdminServlet?action=users&size=<%= request.getAttribute("pageSize") %>">« First page</a>
+                        <% } else { %><span></span><% } %>
+                        <% if (nextUsers != null) { %>
+                            <a href="AdminServlet?action=users&after=<%= nextUsers %>&size=<%= request.getAttribute("pageSize") %>">Next page »</a>
+                        <% } %>
+                    </div>
                 <% } else { %>
                     <div class="empty-message">
                         <p>No users found or error loading data.</p>
@@ -689,6 +706,18 @@
                             </tbody>
                         </table>
                     </div>
+                    <% String nextTrains = (String) request.getAttribute("nextAfter"); %>
+                    <% Integer matchCount = (Integer) request.getAttribute("matchCount"); %>
+                    <div style="display: flex; justify-content: space-between; margin-top: 15px;">
+                        <% if (matchCount != null) { %>
+                            <span><%= matchCount > trains.size() ? "Showing the best " + trains.size() + " of " + matchCount + " matches - refine the search to narrow them down." : matchCount + " matches" %></span>
+                        <% } else if (request.getParameter("after") != null) { %>
+                            <a href="AdminServlet?action=trains&size=<%= request.getAttribute("pageSize") %>">« First page</a>
+                        <% } else { %><span></span><% } %>
+                        <% if (nextTrains != null) { %>
+                            <a href="AdminServlet?action=trains&after=<%= java.net.URLEncoder.encode(nextTrains, "UTF-8") %>&size=<%= request.getAttribute("pageSize") %>">Next page »</a>
+                        <% } %>
+                    </div>
                 <% } else { %>
                     <div class="empty-message">
                         <p><% String searchQ = (String) request.getAttribute("searchQuery"); %>
@@ -774,17 +803,221 @@
                 <div class="stats-grid" style="margin-bottom: 30px;">
                     <div class="stat-card">
                         <h4>Total Users</h4>
-                        <div class="value"><%= request.getAttribute("totalUsers") != null ? request.getAttribute("totalUsers") : 0 %></div>
+                        <div class="value"><%= request.getAttribute("totalUsers") != null ? request.getAttribute("totalUsers") : "--" %></div>
                     </div>
                     <div class="stat-card">
                         <h4>Total Trains</h4>
-                        <div class="value"><%= request.getAttribute("totalTrains") != null ? request.getAttribute("totalTrains") : 0 %></div>
+                        <div class="value"><%= request.getAttribute("totalTrains") != null ? request.getAttribute("totalTrains") : "--" %></div>
                     </div>
                     <div class="stat-card">
                         <h4>Average Probability</h4>
-                        <div class="value"><%= request.getAttribute("avgProbability") != null ? request.getAttribute("avgProbability") + "%" : "0%" %></div>
+                        <div class="value"><%= request.getAttribute("avgProbability") != null ? request.getAttribute("avgProbability") + "%" : "--" %></div>
+                    </div>
+                </div>
+                <% if (request.getAttribute("statsComputedAt") != null) { %>
+                    <p style="color: #999; font-size: 12px; margin-bottom: 20px;">Last computed: <%= request.getAttribute("statsComputedAt") %></p>
+                <% } %>
+
+                <!-- Probability Cache -->
+                <% com.waitlist.util.ProbabilityCache probabilityCache = (com.waitlist.util.ProbabilityCache) request.getAttribute("probabilityCache"); %>
+                <% if (probabilityCache != null) { %>
+                    <h3 style="color: #d32f2f; margin-bottom: 15px; font-size: 16px;">⚡ Probability Cache</h3>
+                    <div class="stats-grid" style="margin-bottom: 30px;">
+                        <div class="stat-card">
+                            <h4>Hit Ratio</h4>
+                            <div class="value"><%= String.format("%.1f%%", probabilityCache.getHitRatio() * 100) %></div>
+                        </div>
+                        <div class="stat-card">
+                            <h4>Hits / Misses</h4>
+                            <div class="value"><%= probabilityCache.getHitCount() %> / <%= probabilityCache.getMissCount() %></div>
+                        </div>
+                        <div class="stat-card">
+                            <h4>Coalesced</h4>
+                            <div class="value"><%= probabilityCache.getCoalescedCount() %></div>
+                        </div>
+                        <div class="stat-card">
+                            <h4>Entries</h4>
+                            <div class="value"><%= probabilityCache.size() %></div>
+                        </div>
+                    </div>
+                <% } %>
+
+                <!-- Confirmation Rates -->
+                <% com.waitlist.util.ConfirmationRateCube rateCube = (com.waitlist.util.ConfirmationRateCube) request.getAttribute("rateCube"); %>
+                <% if (rateCube != null) { %>
+                    <h3 style="color: #d32f2f; margin-bottom: 15px; font-size: 16px;">🗂 Confirmation Rates</h3>
+                    <div class="stats-grid" style="margin-bottom: 15px;">
+                        <div class="stat-card">
+                            <h4>Loaded At</h4>
+                            <div class="value" style="font-size: 16px;"><%= rateCube.getLoadedAt() != null ? rateCube.getLoadedAt() : "Not loaded" %></div>
+                        </div>
+                    </div>
+                    <form action="AdminServlet" method="POST" style="margin-bottom: 30px;">
+                        <input type="hidden" name="action" value="reload_rates">
+                        <button type="submit" style="background: #6c757d; color: white; padding: 8px 16px; border: none; border-radius: 5px; cursor: pointer;">Reload from Booking History</button>
+                    </form>
+                <% } %>
+
+                <!-- Factor Model -->
+                <% com.waitlist.util.FactorModel factorModel = (com.waitlist.util.FactorModel) request.getAttribute("factorModel"); %>
+                <% if (factorModel != null) { %>
+                    <h3 style="color: #d32f2f; margin-bottom: 15px; font-size: 16px;">📐 Factor Model</h3>
+                    <div class="stats-grid" style="margin-bottom: 15px;">
+                        <div class="stat-card">
+                            <h4>Fitted Train/Class Curves</h4>
+                            <div class="value"><%= factorModel.getFittedCount() %></div>
+                        </div>
+                        <div class="stat-card">
+                            <h4>Fitted At</h4>
+                            <div class="value" style="font-size: 16px;"><%= factorModel.getFittedAt() != null ? factorModel.getFittedAt() : "Defaults only" %></div>
+                        </div>
+                    </div>
+                    <form action="AdminServlet" method="POST" style="margin-bottom: 30px;">
+                        <input type="hidden" name="action" value="refit_factors">
+                        <button type="submit" style="background: #6c757d; color: white; padding: 8px 16px; border: none; border-radius: 5px; cursor: pointer;">Refit from Booking History</button>
+                    </form>
+                <% } %>
+
+                <!-- Booking History Import -->
+                <div style="background: #f9f9f9; padding: 20px; border-radius: 8px; margin-bottom: 30px; border: 1px solid #ddd;">
+                    <h3 style="color: #d32f2f; margin-bottom: 15px; font-size: 16px;">📥 Import Booking History</h3>
+                    <p style="color: #666; font-size: 13px; margin-bottom: 15px;">CSV columns: train_no, journey_date (yyyy-MM-dd), class_type, total_wl, confirmed_tickets. A header line is optional.</p>
+                    <form method="POST" action="AdminServlet" enctype="multipart/form-data" style="display: flex; gap: 10px; align-items: center;">
+                        <input type="hidden" name="action" value="import_history">
+                        <input type="file" name="historyFile" accept=".csv,text/csv" required style="flex: 1; padding: 10px; border: 1px solid #ddd; border-radius: 5px; font-size: 14px; background: white;">
+                        <button type="submit" style="background: #4CAF50; color: white; padding: 10px 20px; border: none; border-radius: 5px; cursor: pointer; font-weight: 600;">📥 Import</button>
+                    </form>
+                </div>
+
+                <!-- Search History Export -->
+                <div style="background: #f9f9f9; padding: 20px; border-radius: 8px; margin-bottom: 30px; border: 1px solid #ddd;">
+                    <h3 style="color: #d32f2f; margin-bottom: 15px; font-size: 16px;">📤 Export Search History</h3>
+                    <form method="GET" action="AdminServlet" style="display: flex; gap: 10px; align-items: center; flex-wrap: wrap;">
+                        <input type="hidden" name="action" value="export_history">
+                        <label>From <input type="date" name="from" style="padding: 8px; border: 1px solid #ddd; border-radius: 5px;"></label>
+                        <label>To <input type="date" name="to" style="padding: 8px; border: 1px solid #ddd; border-radius: 5px;"></label>
+                        <input type="text" name="trainNo" placeholder="Train number (optional)" style="padding: 8px; border: 1px solid #ddd; border-radius: 5px;">
+                        <select name="format" style="padding: 8px; border: 1px solid #ddd; border-radius: 5px;">
+                            <option value="csv">CSV</option>
+                            <option value="ndjson">NDJSON</option>
+                        </select>
+                        <button type="submit" style="background: #2196F3; color: white; padding: 10px 20px; border: none; border-radius: 5px; cursor: pointer; font-weight: 600;">📤 Export</button>
+                    </form>
+                </div>
+            </div>
+        <% } %>
+
+        <!-- SQL Statistics View -->
+        <% if ("sql".equals(request.getParameter("action"))) { %>
+            <div class="section">
+                <h2>🗄️ SQL Statements</h2>
+
+                <% LatencyHistogram acquireTimer = (LatencyHistogram) request.getAttribute("acquireTimer"); %>
+                <div class="stats-grid" style="margin-bottom: 30px;">
+                    <div class="stat-card">
+                        <h4>Statements Tracked</h4>
+                        <div class="value"><%= request.getAttribute("sqlStatementCount") != null ? request.getAttribute("sqlStatementCount") : 0 %></div>
                     </div>
+                    <% if (acquireTimer != null) { %>
+                        <div class="stat-card">
+                            <h4>Connection Wait p50 / p99</h4>
+                            <div class="value"><%= String.format("%.1f / %.1f ms", acquireTimer.getPercentileMillis(50), acquireTimer.getPercentileMillis(99)) %></div>
+                        </div>
+                    <% } %>
                 </div>
+                <div style="display: flex; justify-content: space-between; align-items: center; margin-bottom: 20px;">
+                    <p style="color: #999; font-size: 12px;">Collected since: <%= request.getAttribute("sqlResetAt") %>. Times are cumulative milliseconds.</p>
+                    <form action="AdminServlet" method="POST" style="display:inline;">
+                        <input type="hidden" name="action" value="reset_sql_stats">
+                        <button type="submit" style="background: #6c757d; color: white; padding: 8px 16px; border: none; border-radius: 5px; cursor: pointer;">Reset</button>
+                    </form>
+                </div>
+
+                <%
+                    List<SqlStatistics.StatementStats> sqlStatements = (List<SqlStatistics.StatementStats>) request.getAttribute("sqlStatements");
+                    if (sqlStatements != null && !sqlStatements.isEmpty()) {
+                %>
+                    <h3 style="color: #d32f2f; margin-bottom: 15px; font-size: 16px;">Top Statements by Total Time</h3>
+                    <div class="table-responsive" style="margin-bottom: 30px;">
+                        <table>
+                            <thead>
+                                <tr>
+                                    <th>Statement</th>
+                                    <th>Source</th>
+                                    <th>Calls</th>
+                                    <th>Errors</th>
+                                    <th>Total</th>
+                                    <th>Execute</th>
+                                    <th>Fetch</th>
+                                    <th>Avg</th>
+                                    <th>p99</th>
+                                    <th>Max</th>
+                                    <th>Rows</th>
+                                    <th>Binds</th>
+                                </tr>
+                            </thead>
+                            <tbody>
+                                <% for (SqlStatistics.StatementStats stmt : sqlStatements) { %>
+                                    <tr>
+                                        <td style="font-family: monospace; font-size: 12px; max-width: 420px; word-break: break-word;"><%= SecurityUtil.escapeHtml(stmt.getSql()) %></td>
+                                        <td><%= SecurityUtil.escapeHtml(stmt.getSource()) %></td>
+                                        <td><%= stmt.getCalls() %></td>
+                                        <td><%= stmt.getErrors() %></td>
+                                        <td><%= String.format("%.1f", stmt.getTotalMillis()) %></td>
+                                        <td><%= String.format("%.1f", stmt.getExecuteMillis()) %></td>
+                                        <td><%= String.format("%.1f", stmt.getFetchMillis()) %></td>
+                                        <td><%= String.format("%.2f", stmt.getAverageMillis()) %></td>
+                                        <td><%= String.format("%.1f", stmt.getPercentileMillis(99)) %></td>
+                                        <td><%= String.format("%.1f", stmt.getMaxMillis()) %></td>
+                                        <td><%= stmt.getRows() %></td>
+                                        <td style="font-family: monospace; font-size: 12px;"><%= SecurityUtil.escapeHtml(stmt.getBindShape()) %></td>
+                                    </tr>
+                                <% } %>
+                            </tbody>
+                        </table>
+                    </div>
+                <% } else { %>
+                    <div class="empty-message">
+                        <p>No statements recorded yet.</p>
+                    </div>
+                <% } %>
+
+                <%
+                    List<SqlStatistics.SlowQuery> slowQueries = (List<SqlStatistics.SlowQuery>) request.getAttribute("slowQueries");
+                    if (slowQueries != null && !slowQueries.isEmpty()) {
+                %>
+                    <h3 style="color: #d32f2f; margin-bottom: 15px; font-size: 16px;">🐢 Recent Slow Queries</h3>
+                    <div class="table-responsive">
+                        <table>
+                            <thead>
+                                <tr>
+                                    <th>At</th>
+                                    <th>Statement</th>
+                                    <th>Source</th>
+                                    <th>Total</th>
+                                    <th>Execute</th>
+                                    <th>Fetch</th>
+                                    <th>Rows</th>
+                                    <th>Binds</th>
+                                </tr>
+                            </thead>
+                            <tbody>
+                                <% for (SqlStatistics.SlowQuery slow : slowQueries) { %>
+                                    <tr>
+                                        <td><%= slow.getAt() %></td>
+                                        <td style="font-family: monospace; font-size: 12px; max-width: 420px; word-break: break-word;"><%= SecurityUtil.escapeHtml(slow.getSql()) %></td>
+                                        <td><%= SecurityUtil.escapeHtml(slow.getSource()) %></td>
+                                        <td><%= String.format("%.1f", slow.getTotalMillis()) %></td>
+                                        <td><%= String.format("%.1f", slow.getExecuteMillis()) %></td>
+                                        <td><%= String.format("%.1f", slow.getFetchMillis()) %></td>
+                                        <td><%= slow.getRows() %></td>
+                                        <td style="font-family: monospace; font-size: 12px;"><%= SecurityUtil.escapeHtml(slow.getBindShape()) %></td>
+                                    </tr>
+                                <% } %>
+                            </tbody>
+                        </table>
+                    </div>
+                <% } %>
             </div>
         <% } %>
     </div>
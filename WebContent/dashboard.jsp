@@ -1,20 +1,21 @@
-<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
-<%@ page import="com.waitlist.model.User" %>
+<%@ page language="java" session="false" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<%@ page import="com.waitlist.controller.AuthFilter" %>
+<%@ page import="com.waitlist.model.UserPrincipal" %>
+<%@ page import="com.waitlist.model.UserProfile" %>
 <%@ page import="com.waitlist.dao.SearchHistoryDAO" %>
 <%@ page import="java.util.List" %>
-<%@ page import="java.util.Map" %>
+<%@ page import="com.waitlist.model.SearchHistoryEntry" %>
+<%@ page import="com.waitlist.util.Log" %>
 
 <%
-    long startTime = System.currentTimeMillis();
-    System.out.println("✓ DASHBOARD - Loading dashboard.jsp");
-    
-    User user = (User) session.getAttribute("user");
-    if (user == null) {
-        System.out.println("✗ DASHBOARD - No user in session, redirecting to login");
+    // Render and query timings are recorded by MetricsFilter and the connection pool (see /metrics)
+    UserPrincipal user = (UserPrincipal) request.getAttribute("principal");
+    // Session mode keeps the profile in the session; token mode reads it by primary key
+    UserProfile profile = user != null ? AuthFilter.getProfile(request) : null;
+    if (profile == null) {
         response.sendRedirect("login.jsp");
         return;
     }
-    System.out.println("✓ DASHBOARD - User found: " + user.getUsername());
 %>
 
 <!DOCTYPE html>
@@ -319,7 +320,7 @@
                 <div class="user-info">
                     <p>Welcome!</p>
                     <strong><%= user.getUsername() %></strong>
-                    <p><%= user.getEmail() %></p>
+                    <p><%= profile.getEmail() %></p>
                 </div>
                 <a href="LogoutServlet" class="btn btn-logout">Logout</a>
             </div>
@@ -412,17 +413,12 @@
         <div class="section">
             <h3>Your Recent Searches</h3>
             <% 
-                List<Map<String, Object>> searches = null;
+                List<SearchHistoryEntry> searches = null;
                 try {
-                    long queryStart = System.currentTimeMillis();
-                    System.out.println("✓ DASHBOARD - Fetching search history for user: " + user.getUserId());
                     SearchHistoryDAO historyDAO = new SearchHistoryDAO();
                     searches = historyDAO.getUserSearchHistory(user.getUserId(), 5);
-                    long queryEnd = System.currentTimeMillis();
-                    System.out.println("✓ DASHBOARD - Search history fetched in " + (queryEnd - queryStart) + "ms, records: " + (searches != null ? searches.size() : 0));
                 } catch (Exception e) {
-                    System.err.println("✗ DASHBOARD - Error loading search history: " + e.getMessage());
-                    e.printStackTrace();
+                    Log.getLogger("dashboard.jsp").error("Error loading search history: {}", e.getMessage(), e);
                 }
             %>
             
@@ -440,14 +436,14 @@
                             </tr>
                         </thead>
                         <tbody>
-                            <% for (Map<String, Object> search : searches) { %>
+                            <% for (SearchHistoryEntry search : searches) { %>
                                 <tr>
-                                    <td><%= search.get("train_no") %></td>
-                                    <td><%= search.get("journey_date") %></td>
-                                    <td><%= search.get("class_type") %></td>
-                                    <td><%= search.get("waitlist_number") %></td>
-                                    <td><%= String.format("%.2f", search.get("probability")) %></td>
-                                    <td><%= search.get("searched_at") %></td>
+                                    <td><%= search.getTrainNo() %></td>
+                                    <td><%= search.getJourneyDate() %></td>
+                                    <td><%= search.getClassType() %></td>
+                                    <td><%= search.getWaitlistNumber() %></td>
+                                    <td><%= String.format("%.2f", search.getProbability()) %></td>
+                                    <td><%= search.getSearchedAt() %></td>
                                 </tr>
                             <% } %>
                         </tbody>
@@ -463,15 +459,15 @@
         <div class="stats-grid">
             <div class="stat-card">
                 <h4>Account Status</h4>
-                <div class="value"><%= user.isActive() ? "✓ Active" : "✗ Inactive" %></div>
+                <div class="value"><%= profile.isActive() ? "✓ Active" : "✗ Inactive" %></div>
             </div>
             <div class="stat-card">
                 <h4>Member Since</h4>
-                <div class="value" style="font-size: 16px;"><%= user.getCreatedAt() != null ? user.getCreatedAt().toString().substring(0, 10) : "N/A" %></div>
+                <div class="value" style="font-size: 16px;"><%= profile.getCreatedAt() != null ? profile.getCreatedAt().toString().substring(0, 10) : "N/A" %></div>
             </div>
             <div class="stat-card">
                 <h4>Last Login</h4>
-                <div class="value" style="font-size: 16px;"><%= user.getLastLogin() != null ? user.getLastLogin().toString().substring(0, 10) : "First Login" %></div>
+                <div class="value" style="font-size: 16px;"><%= profile.getLastLogin() != null ? profile.getLastLogin().toString().substring(0, 10) : "First Login" %></div>
             </div>
         </div>
     </div>
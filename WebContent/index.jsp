@@ -1,7 +1,7 @@
-<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
-<%@ page import="com.waitlist.model.User" %>
+<%@ page language="java" session="false" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
+<%@ page import="com.waitlist.model.UserPrincipal" %>
 <%
-    User user = (User) session.getAttribute("user");
+    UserPrincipal user = (UserPrincipal) request.getAttribute("principal");
 %>
 <!DOCTYPE html>
 <html>
@@ -1,11 +1,16 @@
-<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
-<%@ page import="com.waitlist.model.User" %>
+<%@ page language="java" session="false" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<%@ page import="com.waitlist.model.UserPrincipal" %>
 <%@ page import="com.waitlist.dao.SearchHistoryDAO" %>
 <%@ page import="java.util.List" %>
-<%@ page import="java.util.Map" %>
+<%@ page import="com.waitlist.model.GlobalSearchStats" %>
+<%@ page import="com.waitlist.model.StatsSnapshot" %>
+<%@ page import="com.waitlist.model.TrainSearchStats" %>
+<%@ page import="com.waitlist.util.JsonUtil" %>
+<%@ page import="com.waitlist.util.Log" %>
+<%@ page import="com.waitlist.util.StatsService" %>
 
 <%
-    User user = (User) session.getAttribute("user");
+    UserPrincipal user = (UserPrincipal) request.getAttribute("principal");
     if (user == null || !user.isAdmin()) {
         response.sendRedirect("login.jsp");
         return;
@@ -212,6 +217,33 @@
             <a href="stats.jsp" class="active">Statistics</a>
         </div>
 
+        <%
+            // Rendered from the periodically refreshed snapshot - no queries per view
+            StatsSnapshot snapshot = null;
+            try {
+                snapshot = StatsService.getInstance().getSnapshot();
+            } catch (Exception e) {
+                Log.getLogger("stats.jsp").error("Error loading search statistics: {}", e.getMessage(), e);
+            }
+            GlobalSearchStats globalStats = snapshot != null ? snapshot.getSearchStats() : null;
+            List<TrainSearchStats> topTrains = snapshot != null ? snapshot.getTopTrains() : null;
+
+            StringBuilder trainLabels = new StringBuilder("[");
+            StringBuilder trainCounts = new StringBuilder("[");
+            if (topTrains != null) {
+                for (TrainSearchStats train : topTrains) {
+                    if (trainLabels.length() > 1) {
+                        trainLabels.append(", ");
+                        trainCounts.append(", ");
+                    }
+                    JsonUtil.appendString(trainLabels, "Train " + train.getTrainNo());
+                    trainCounts.append(train.getSearchCount());
+                }
+            }
+            trainLabels.append(']');
+            trainCounts.append(']');
+        %>
+
         <div class="section">
             <h2>📊 System Statistics & Analytics</h2>
 
@@ -219,47 +251,27 @@
                 <div class="stat-card">
                     <h4>Total Users</h4>
                     <div class="value">
-                        <%
-                            try {
-                                com.waitlist.dao.UserDAO userDAO = new com.waitlist.dao.UserDAO();
-                                long totalUsers = userDAO.getTotalUsers();
-                                out.print(totalUsers);
-                            } catch (Exception e) {
-                                out.print("--");
-                            }
-                        %>
+                        <%= snapshot != null ? String.valueOf(snapshot.getTotalUsers()) : "--" %>
                     </div>
                 </div>
                 <div class="stat-card">
                     <h4>Total Searches</h4>
                     <div class="value">
-                        <%
-                            try {
-                                com.waitlist.dao.SearchHistoryDAO historyDAO = new com.waitlist.dao.SearchHistoryDAO();
-                                long totalSearches = historyDAO.getTotalSearches();
-                                out.print(totalSearches);
-                            } catch (Exception e) {
-                                out.print("--");
-                            }
-                        %>
+                        <%= globalStats != null ? String.valueOf(globalStats.getTotalSearches()) : "--" %>
                     </div>
                 </div>
                 <div class="stat-card">
                     <h4>Average Probability</h4>
                     <div class="value">
-                        <%
-                            try {
-                                com.waitlist.dao.SearchHistoryDAO historyDAO = new com.waitlist.dao.SearchHistoryDAO();
-                                double avgProb = historyDAO.getAverageProbability();
-                                out.print(String.format("%.2f%%", avgProb));
-                            } catch (Exception e) {
-                                out.print("--");
-                            }
-                        %>
+                        <%= globalStats != null ? String.format("%.2f%%", globalStats.getAvgProbability()) : "--" %>
                     </div>
                 </div>
             </div>
 
+            <% if (snapshot != null) { %>
+                <p style="color: #999; font-size: 12px; margin-bottom: 20px;">Last computed: <%= snapshot.getComputedAt() %></p>
+            <% } %>
+
             <div class="charts-grid">
                 <div class="chart-container">
                     <div class="chart-title">Top 5 Trains by Searches</div>
@@ -285,10 +297,10 @@
             new Chart(trainCtx, {
                 type: 'bar',
                 data: {
-                    labels: ['Train 12345', 'Train 16789', 'Train 20135', 'Train 24681', 'Train 30246'],
+                    labels: <%= trainLabels %>,
                     datasets: [{
                         label: 'Number of Searches',
-                        data: [45, 38, 32, 28, 22],
+                        data: <%= trainCounts %>,
                         backgroundColor: [
                             'rgba(102, 126, 234, 0.7)',
                             'rgba(118, 75, 162, 0.7)',
@@ -0,0 +1,66 @@
+package com.waitlist.bench;
+
+import com.waitlist.util.JsonUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark Compare
+ * Prints the change in throughput and allocation between two result files written by
+ * HotPathBenchmarks, e.g. from the previous and the current commit. Exits with status 1
+ * if any benchmark lost more throughput than the threshold (default 10%).
+ *
+ * Usage: BenchmarkCompare baseline.json candidate.json [thresholdPercent]
+ */
+public class BenchmarkCompare {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkCompare <baseline.json> <candidate.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Map<?, ?>> baseline = load(args[0]);
+        Map<String, Map<?, ?>> candidate = load(args[1]);
+
+        boolean regressed = false;
+        System.out.printf("%-32s %8s %14s %14s %9s %10s %10s%n",
+                "benchmark", "threads", "base ops/s", "new ops/s", "change", "base B/op", "new B/op");
+        for (Map.Entry<String, Map<?, ?>> entry : candidate.entrySet()) {
+            Map<?, ?> before = baseline.get(entry.getKey());
+            Map<?, ?> after = entry.getValue();
+            if (before == null) {
+                continue;
+            }
+            double baseOps = number(before, "opsPerSecond");
+            double newOps = number(after, "opsPerSecond");
+            double change = baseOps == 0 ? 0 : (newOps - baseOps) * 100 / baseOps;
+            boolean slower = change < -threshold;
+            regressed |= slower;
+            System.out.printf("%-32s %8.0f %14.1f %14.1f %+8.1f%% %10.0f %10.0f%s%n",
+                    after.get("benchmark"), number(after, "threads"), baseOps, newOps, change,
+                    number(before, "bytesPerOp"), number(after, "bytesPerOp"), slower ? "  ✗ REGRESSION" : "");
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    private static Map<String, Map<?, ?>> load(String path) throws Exception {
+        String json = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        Map<String, Map<?, ?>> byKey = new LinkedHashMap<>();
+        for (Object item : (List<?>) ((Map<?, ?>) JsonUtil.parse(json)).get("results")) {
+            Map<?, ?> result = (Map<?, ?>) item;
+            byKey.put(result.get("benchmark") + "@" + number(result, "threads"), result);
+        }
+        return byKey;
+    }
+
+    private static double number(Map<?, ?> result, String field) {
+        Object value = result.get(field);
+        return value instanceof Double ? (Double) value : 0.0;
+    }
+}
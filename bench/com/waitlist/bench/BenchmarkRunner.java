@@ -0,0 +1,231 @@
+package com.waitlist.bench;
+
+import com.waitlist.util.JsonUtil;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark Runner
+ * Small dependency-free microbenchmark harness in the style of JMH's throughput mode.
+ *
+ * Each benchmark runs for a warmup period and then a number of timed measurement iterations
+ * on one or more threads started together. Reported per benchmark and thread count:
+ * throughput (ops/s, mean and spread over the iterations), average time per operation and
+ * bytes allocated per operation (from per-thread allocation counters, the same figure as
+ * JMH's gc.alloc.rate.norm). Results are written as JSON for comparison between commits.
+ */
+public class BenchmarkRunner {
+
+    /**
+     * One benchmarked operation. Implementations must be safe to call from several threads.
+     */
+    public interface Operation {
+        /**
+         * Runs the operation once.
+         *
+         * @return any value derived from the work, so the JIT cannot discard it
+         * @throws Exception if the operation fails; the benchmark is aborted
+         */
+        Object run() throws Exception;
+    }
+
+    private final long warmupMillis;
+    private final long iterationMillis;
+    private final int iterations;
+    private final List<Result> results = new ArrayList<>();
+    private volatile Object sink;
+
+    /**
+     * Creates a runner.
+     *
+     * @param warmupMillis Warmup time before measuring
+     * @param iterationMillis Length of one measurement iteration
+     * @param iterations Number of measurement iterations
+     */
+    public BenchmarkRunner(long warmupMillis, long iterationMillis, int iterations) {
+        this.warmupMillis = warmupMillis;
+        this.iterationMillis = iterationMillis;
+        this.iterations = Math.max(1, iterations);
+    }
+
+    /**
+     * Runs a benchmark on the given number of threads and records the result.
+     *
+     * @param name Benchmark name
+     * @param threads Number of threads calling the operation concurrently
+     * @param operation The operation
+     * @return the recorded result
+     * @throws Exception if the operation failed
+     */
+    public Result run(String name, int threads, Operation operation) throws Exception {
+        System.out.println("# " + name + " (threads=" + threads + ")");
+        runPhase(threads, operation, warmupMillis);
+
+        double[] scores = new double[iterations];
+        long totalOps = 0;
+        long totalBytes = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            Phase phase = runPhase(threads, operation, iterationMillis);
+            scores[i] = phase.ops * 1e9 / phase.nanos;
+            totalOps += phase.ops;
+            totalBytes += phase.allocatedBytes;
+            totalNanos += phase.nanos;
+            System.out.printf("  iteration %d: %.1f ops/s%n", i + 1, scores[i]);
+        }
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double stdev = scores.length > 1 ? Math.sqrt(variance / (scores.length - 1)) : 0;
+
+        Result result = new Result(name, threads, mean, stdev,
+                totalOps == 0 ? 0 : (double) totalNanos * threads / totalOps,
+                totalOps == 0 ? 0 : (double) totalBytes / totalOps,
+                totalOps);
+        results.add(result);
+        System.out.printf("  result: %.1f ± %.1f ops/s, %.0f ns/op, %.0f B/op%n",
+                result.opsPerSecond, result.opsPerSecondStdev, result.nanosPerOp, result.bytesPerOp);
+        return result;
+    }
+
+    private Phase runPhase(int threads, Operation operation, long millis) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long[] ops = new long[threads];
+        long[] bytes = new long[threads];
+        Exception[] failure = new Exception[1];
+        long[] deadline = new long[1];
+
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    long allocatedBefore = allocatedBytes();
+                    long count = 0;
+                    Object last = null;
+                    while (System.nanoTime() - deadline[0] < 0) {
+                        last = operation.run();
+                        count++;
+                    }
+                    bytes[index] = allocatedBytes() - allocatedBefore;
+                    ops[index] = count;
+                    sink = last;
+                } catch (Exception e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        deadline[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long began = System.nanoTime();
+        start.await();
+        done.await();
+        long elapsed = System.nanoTime() - began;
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        Phase phase = new Phase();
+        for (int t = 0; t < threads; t++) {
+            phase.ops += ops[t];
+            phase.allocatedBytes += bytes[t];
+        }
+        phase.nanos = elapsed;
+        return phase;
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or 0 if the JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * Writes every recorded result as a JSON document.
+     *
+     * @param label Free-form label for the run, e.g. the commit id
+     * @return JSON text
+     */
+    public String toJson(String label) {
+        StringBuilder json = new StringBuilder("{\"label\":");
+        JsonUtil.appendString(json, label);
+        json.append(",\"javaVersion\":");
+        JsonUtil.appendString(json, System.getProperty("java.version"));
+        json.append(",\"warmupMillis\":").append(warmupMillis)
+            .append(",\"iterationMillis\":").append(iterationMillis)
+            .append(",\"iterations\":").append(iterations)
+            .append(",\"results\":[");
+        for (int i = 0; i < results.size(); i++) {
+            Result r = results.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\n  {\"benchmark\":");
+            JsonUtil.appendString(json, r.name);
+            json.append(",\"threads\":").append(r.threads).append(",\"opsPerSecond\":");
+            JsonUtil.appendNumber(json, Math.round(r.opsPerSecond * 10) / 10.0);
+            json.append(",\"opsPerSecondStdev\":");
+            JsonUtil.appendNumber(json, Math.round(r.opsPerSecondStdev * 10) / 10.0);
+            json.append(",\"nanosPerOp\":");
+            JsonUtil.appendNumber(json, Math.round(r.nanosPerOp * 10) / 10.0);
+            json.append(",\"bytesPerOp\":");
+            JsonUtil.appendNumber(json, Math.round(r.bytesPerOp * 10) / 10.0);
+            json.append(",\"operations\":").append(r.operations).append('}');
+        }
+        return json.append("\n]}\n").toString();
+    }
+
+    private static final class Phase {
+        private long ops;
+        private long allocatedBytes;
+        private long nanos;
+    }
+
+    /**
+     * Measured figures for one benchmark at one thread count.
+     */
+    public static final class Result {
+        private final String name;
+        private final int threads;
+        private final double opsPerSecond;
+        private final double opsPerSecondStdev;
+        private final double nanosPerOp;
+        private final double bytesPerOp;
+        private final long operations;
+
+        private Result(String name, int threads, double opsPerSecond, double opsPerSecondStdev,
+                       double nanosPerOp, double bytesPerOp, long operations) {
+            this.name = name;
+            this.threads = threads;
+            this.opsPerSecond = opsPerSecond;
+            this.opsPerSecondStdev = opsPerSecondStdev;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.operations = operations;
+        }
+    }
+}
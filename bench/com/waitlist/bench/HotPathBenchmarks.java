@@ -0,0 +1,150 @@
+package com.waitlist.bench;
+
+import com.waitlist.dao.SearchHistoryDAO;
+import com.waitlist.dao.TrainCache;
+import com.waitlist.dao.WaitlistDAO;
+import com.waitlist.util.ConfirmationRateCube;
+import com.waitlist.util.DBConnection;
+import com.waitlist.util.Pbkdf2PasswordHasher;
+import com.waitlist.util.ProbabilityCache;
+import com.waitlist.util.ProbabilityCalculator;
+import com.waitlist.util.ProbabilityTable;
+import com.waitlist.util.SecurityUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hot Path Benchmarks
+ * Measures the request hot paths against a local MySQL database loaded from
+ * database/railway.sql: probability calculation, train lookup, search history writes and
+ * password hashing, each cold (caches cleared before every call) and warm, on one thread
+ * and on several.
+ *
+ * Settings (system properties):
+ *   db.url, db.username, db.password  database to run against (same keys as web.xml)
+ *   bench.threads       comma-separated thread counts (default 1,4)
+ *   bench.warmupMillis  warmup per benchmark (default 2000)
+ *   bench.iterationMillis / bench.iterations  measurement (default 1000 x 5)
+ *   bench.include       only run benchmarks whose name contains this text
+ *   bench.writes        true to include saveSearch, which inserts rows (default false)
+ *   bench.userId        user the saveSearch rows belong to (default 1)
+ *   bench.label         label stored in the results, e.g. the commit id
+ *   bench.output        results file (default bench-results.json)
+ */
+public class HotPathBenchmarks {
+
+    private static final String TRAIN_NO = "12345";
+    private static final String CLASS_TYPE = "SL";
+    private static final LocalDate JOURNEY_DATE = LocalDate.of(2024, 1, 15);
+
+    public static void main(String[] args) throws Exception {
+        Properties settings = new Properties();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("db.")) {
+                settings.setProperty(name, System.getProperty(name));
+            }
+        }
+        DBConnection.configure(settings);
+        if (!DBConnection.testConnection()) {
+            System.err.println("✗ Cannot connect to the benchmark database - set db.url, db.username and db.password");
+            System.exit(1);
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(
+                Long.getLong("bench.warmupMillis", 2000),
+                Long.getLong("bench.iterationMillis", 1000),
+                Integer.getInteger("bench.iterations", 5));
+        String include = System.getProperty("bench.include", "");
+        List<Integer> threadCounts = parseThreads(System.getProperty("bench.threads", "1,4"));
+
+        WaitlistDAO waitlistDAO = new WaitlistDAO();
+        SearchHistoryDAO searchHistoryDAO = new SearchHistoryDAO();
+        ProbabilityCalculator calculator = new ProbabilityCalculator();
+        ConfirmationRateCube.getInstance().reload();
+        ProbabilityTable.getInstance().rebuild();
+        LocalDate upcomingDate = LocalDate.now().plusDays(7);
+        Pbkdf2PasswordHasher pbkdf2 = new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.DEFAULT_ITERATIONS);
+        String storedPbkdf2 = pbkdf2.hash("Password@123");
+        AtomicInteger waitlist = new AtomicInteger();
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        // Same query every call: answered from the probability cache
+        benchmarks.add(new Benchmark("probability.warm", () ->
+                calculator.calculateConfirmationProbability(TRAIN_NO, JOURNEY_DATE, CLASS_TYPE, 12)));
+        // Cache cleared every call: rates come from the in-memory cube
+        benchmarks.add(new Benchmark("probability.cold", () -> {
+            ProbabilityCache.getInstance().clear();
+            return calculator.calculateConfirmationProbability(TRAIN_NO, JOURNEY_DATE, CLASS_TYPE, 12);
+        }));
+        // Journey inside the precomputed horizon: one table read
+        benchmarks.add(new Benchmark("probability.table", () ->
+                calculator.calculateConfirmationProbability(TRAIN_NO, upcomingDate, CLASS_TYPE, 12)));
+        // Rate query straight against booking_history, as when the cube is not loaded
+        benchmarks.add(new Benchmark("probability.rates.database", () ->
+                waitlistDAO.getConfirmationRates(TRAIN_NO, JOURNEY_DATE, CLASS_TYPE,
+                        JOURNEY_DATE.getDayOfWeek().getValue() % 7 + 1, JOURNEY_DATE.getMonthValue())));
+        benchmarks.add(new Benchmark("getTrainByNumber.warm", () -> waitlistDAO.getTrainByNumber(TRAIN_NO)));
+        benchmarks.add(new Benchmark("getTrainByNumber.cold", () -> {
+            TrainCache.getInstance().invalidate();
+            return waitlistDAO.getTrainByNumber(TRAIN_NO);
+        }));
+        if (Boolean.getBoolean("bench.writes")) {
+            int userId = Integer.getInteger("bench.userId", 1);
+            benchmarks.add(new Benchmark("saveSearch", () ->
+                    searchHistoryDAO.saveSearch(userId, TRAIN_NO, JOURNEY_DATE, CLASS_TYPE,
+                            waitlist.incrementAndGet() % 100, 42.5)));
+        }
+        benchmarks.add(new Benchmark("hashPassword.sha256", () -> SecurityUtil.hashPassword("Password@123")));
+        benchmarks.add(new Benchmark("hashPassword.pbkdf2", () -> pbkdf2.hash("Password@123")));
+        benchmarks.add(new Benchmark("verifyPassword.pbkdf2", () -> pbkdf2.verify("Password@123", storedPbkdf2)));
+
+        try {
+            for (Benchmark benchmark : benchmarks) {
+                if (!benchmark.name.contains(include)) {
+                    continue;
+                }
+                for (int threads : threadCounts) {
+                    runner.run(benchmark.name, threads, benchmark.operation);
+                }
+            }
+        } finally {
+            // Leave caches as the application expects to find them
+            TrainCache.getInstance().invalidate();
+            ProbabilityCache.getInstance().clear();
+            ProbabilityTable.getInstance().shutdown();
+            DBConnection.shutdown();
+        }
+
+        String output = System.getProperty("bench.output", "bench-results.json");
+        Files.write(Paths.get(output), runner.toJson(System.getProperty("bench.label", "")).getBytes(StandardCharsets.UTF_8));
+        System.out.println("✓ Results written to " + output);
+    }
+
+    private static List<Integer> parseThreads(String value) {
+        List<Integer> counts = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.trim().isEmpty()) {
+                counts.add(Math.max(1, Integer.parseInt(part.trim())));
+            }
+        }
+        return counts;
+    }
+
+    private static final class Benchmark {
+        private final String name;
+        private final BenchmarkRunner.Operation operation;
+
+        private Benchmark(String name, BenchmarkRunner.Operation operation) {
+            this.name = name;
+            this.operation = operation;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.waitlist.bench;
+
+import com.waitlist.util.JsonUtil;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load Test
+ * End-to-end load harness: many virtual users, each with its own session cookie, replay a
+ * weighted mix of login, probability search, dashboard and admin traffic against a running
+ * deployment of the application, and the run ends with throughput and p50/p95/p99 latency
+ * per endpoint (printed and written as JSON).
+ *
+ * Point it at a local Tomcat serving WebContent against a database loaded from
+ * database/railway.sql. Settings (system properties):
+ *   load.baseUrl         application root (default http://localhost:8080/railway)
+ *   load.users           concurrent virtual users (default 50)
+ *   load.durationSeconds measured run time (default 60)
+ *   load.rampSeconds     time over which users start (default 10, not measured)
+ *   load.thinkMillis     pause between a user's requests (default 0)
+ *   load.mix             weights per endpoint (default probability=60,dashboard=25,admin=10,login=5)
+ *   load.username / load.password           regular account (default testuser / test123)
+ *   load.adminUsername / load.adminPassword admin account for admin traffic (default admin / admin123)
+ *   load.adminShare      share of users logged in as the admin (default 0.1)
+ *   load.output          results file (default load-results.json)
+ *   load.label           label stored in the results, e.g. the commit id
+ */
+public class LoadTest {
+
+    private static final String[][] SEARCHES = {
+        {"12345", "AC1"}, {"12345", "SL"}, {"12627", "AC2"}, {"12627", "SL"},
+        {"12951", "AC1"}, {"12951", "AC2"}, {"12615", "AC2"}, {"12615", "SL"}, {"12649", "CC"}
+    };
+
+    private final String baseUrl;
+    private final int users;
+    private final long durationMillis;
+    private final long rampMillis;
+    private final long thinkMillis;
+    private final Map<String, Integer> mix;
+    private volatile long measureFrom;
+    private volatile long measureUntil;
+
+    private LoadTest(String baseUrl, int users, long durationMillis, long rampMillis, long thinkMillis,
+                     Map<String, Integer> mix) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.users = Math.max(1, users);
+        this.durationMillis = durationMillis;
+        this.rampMillis = rampMillis;
+        this.thinkMillis = thinkMillis;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTest test = new LoadTest(
+                System.getProperty("load.baseUrl", "http://localhost:8080/railway"),
+                Integer.getInteger("load.users", 50),
+                Long.getLong("load.durationSeconds", 60) * 1000,
+                Long.getLong("load.rampSeconds", 10) * 1000,
+                Long.getLong("load.thinkMillis", 0),
+                parseMix(System.getProperty("load.mix", "probability=60,dashboard=25,admin=10,login=5")));
+
+        double adminShare = Double.parseDouble(System.getProperty("load.adminShare", "0.1"));
+        String[] regular = {System.getProperty("load.username", "testuser"), System.getProperty("load.password", "test123")};
+        String[] admin = {System.getProperty("load.adminUsername", "admin"), System.getProperty("load.adminPassword", "admin123")};
+
+        Map<String, Stats> stats = test.run(regular, admin, adminShare);
+        String json = test.report(stats, System.getProperty("load.label", ""));
+        String output = System.getProperty("load.output", "load-results.json");
+        Files.write(Paths.get(output), json.getBytes(StandardCharsets.UTF_8));
+        System.out.println("✓ Results written to " + output);
+    }
+
+    private Map<String, Stats> run(String[] regular, String[] admin, double adminShare) throws InterruptedException {
+        System.out.println("# " + users + " users, " + rampMillis / 1000 + "s ramp, " + durationMillis / 1000
+                + "s measured, mix " + mix + " against " + baseUrl);
+        long start = System.currentTimeMillis();
+        measureFrom = start + rampMillis;
+        measureUntil = measureFrom + durationMillis;
+
+        int adminUsers = (int) Math.round(users * adminShare);
+        List<VirtualUser> virtualUsers = new ArrayList<>(users);
+        List<Thread> threads = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            VirtualUser user = new VirtualUser(i < adminUsers ? admin : regular, i < adminUsers);
+            long startDelay = users == 1 ? 0 : rampMillis * i / users;
+            Thread thread = new Thread(() -> user.run(start + startDelay), "vu-" + i);
+            thread.setDaemon(true);
+            virtualUsers.add(user);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<String, Stats> merged = new LinkedHashMap<>();
+        for (VirtualUser user : virtualUsers) {
+            for (Map.Entry<String, Stats> entry : user.stats.entrySet()) {
+                merged.computeIfAbsent(entry.getKey(), k -> new Stats()).addAll(entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    private String report(Map<String, Stats> stats, String label) {
+        double seconds = durationMillis / 1000.0;
+        StringBuilder json = new StringBuilder("{\"label\":");
+        JsonUtil.appendString(json, label);
+        json.append(",\"users\":").append(users)
+            .append(",\"durationSeconds\":").append(durationMillis / 1000)
+            .append(",\"endpoints\":[");
+
+        System.out.printf("%-12s %9s %9s %7s %7s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "503s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        boolean first = true;
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            long[] sorted = s.sortedLatencies();
+            double p50 = percentile(sorted, 50), p95 = percentile(sorted, 95), p99 = percentile(sorted, 99);
+            double max = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6;
+            System.out.printf("%-12s %9d %9.1f %7d %7d %10.1f %10.1f %10.1f %10.1f%n",
+                    entry.getKey(), sorted.length, sorted.length / seconds, s.errors, s.rejected, p50, p95, p99, max);
+
+            json.append(first ? "\n  " : ",\n  ");
+            first = false;
+            json.append("{\"endpoint\":");
+            JsonUtil.appendString(json, entry.getKey());
+            json.append(",\"requests\":").append(sorted.length).append(",\"requestsPerSecond\":");
+            JsonUtil.appendNumber(json, Math.round(sorted.length / seconds * 10) / 10.0);
+            json.append(",\"errors\":").append(s.errors).append(",\"rejected\":").append(s.rejected);
+            json.append(",\"p50Millis\":");
+            JsonUtil.appendNumber(json, Math.round(p50 * 10) / 10.0);
+            json.append(",\"p95Millis\":");
+            JsonUtil.appendNumber(json, Math.round(p95 * 10) / 10.0);
+            json.append(",\"p99Millis\":");
+            JsonUtil.appendNumber(json, Math.round(p99 * 10) / 10.0);
+            json.append(",\"maxMillis\":");
+            JsonUtil.appendNumber(json, Math.round(max * 10) / 10.0);
+            json.append('}');
+        }
+        return json.append("\n]}\n").toString();
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanosecond latencies, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length == 2 && Integer.parseInt(pair[1].trim()) > 0) {
+                mix.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+            }
+        }
+        return mix;
+    }
+
+    /**
+     * One simulated user: its own HTTP client and cookie jar, so it holds its own session.
+     */
+    private final class VirtualUser {
+        private final String[] credentials;
+        private final boolean admin;
+        private final HttpClient client;
+        private final Map<String, Stats> stats = new LinkedHashMap<>();
+
+        private VirtualUser(String[] credentials, boolean admin) {
+            this.credentials = credentials;
+            this.admin = admin;
+            this.client = HttpClient.newBuilder()
+                    .cookieHandler(new CookieManager())
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+        }
+
+        private void run(long startAt) {
+            try {
+                Thread.sleep(Math.max(0, startAt - System.currentTimeMillis()));
+                send("login", loginRequest());
+                int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+                while (System.currentTimeMillis() < measureUntil) {
+                    int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+                    String endpoint = null;
+                    for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+                        pick -= entry.getValue();
+                        if (pick < 0) {
+                            endpoint = entry.getKey();
+                            break;
+                        }
+                    }
+                    HttpRequest request = requestFor(endpoint);
+                    if (request != null) {
+                        send(endpoint, request);
+                    }
+                    if (thinkMillis > 0) {
+                        Thread.sleep(thinkMillis);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private HttpRequest requestFor(String endpoint) {
+            switch (endpoint) {
+                case "login":
+                    return loginRequest();
+                case "probability":
+                    String[] search = SEARCHES[ThreadLocalRandom.current().nextInt(SEARCHES.length)];
+                    String date = String.format("%02d-%02d-2024", 1 + ThreadLocalRandom.current().nextInt(28),
+                            1 + ThreadLocalRandom.current().nextInt(6));
+                    return form("/WaitlistServlet", "trainNo", search[0], "journeyDate", date, "classType", search[1],
+                            "waitlistNumber", String.valueOf(1 + ThreadLocalRandom.current().nextInt(60)));
+                case "dashboard":
+                    return get("/dashboard.jsp");
+                case "admin":
+                    // Regular users have no admin pages; they spend the turn on the dashboard instead
+                    return admin ? get("/AdminServlet?action=" + (ThreadLocalRandom.current().nextBoolean() ? "dashboard" : "stats"))
+                                 : get("/dashboard.jsp");
+                default:
+                    return get("/" + endpoint);
+            }
+        }
+
+        private HttpRequest loginRequest() {
+            return form("/LoginServlet", "username", credentials[0], "password", credentials[1]);
+        }
+
+        private void send(String endpoint, HttpRequest request) {
+            long began = System.nanoTime();
+            int status;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                status = response.statusCode();
+            } catch (java.io.IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long elapsed = System.nanoTime() - began;
+            long now = System.currentTimeMillis();
+            if (now < measureFrom || now > measureUntil) {
+                return; // Ramp-up and overrun are not measured
+            }
+            Stats s = stats.computeIfAbsent(endpoint, k -> new Stats());
+            s.add(elapsed);
+            if (status == 503) {
+                s.rejected++;
+            } else if (status < 200 || status >= 400) {
+                s.errors++;
+            }
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+        }
+
+        private HttpRequest form(String path, String... pairs) {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (i > 0) {
+                    body.append('&');
+                }
+                body.append(URLEncoder.encode(pairs[i], StandardCharsets.UTF_8)).append('=')
+                    .append(URLEncoder.encode(pairs[i + 1], StandardCharsets.UTF_8));
+            }
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+        }
+    }
+
+    /**
+     * Latencies and failure counts for one endpoint.
+     */
+    private static final class Stats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long rejected;
+
+        private void add(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        private void addAll(Stats other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.latencies[i]);
+            }
+            errors += other.errors;
+            rejected += other.rejected;
+        }
+
+        private long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
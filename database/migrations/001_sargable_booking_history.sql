@@ -0,0 +1,55 @@
+-- Migration 001: index-friendly (sargable) booking_history rate lookups
+-- Database: railwaydb
+--
+-- The confirmation rate queries used to filter on DATE(journey_date), DAYOFWEEK(journey_date)
+-- and MONTH(journey_date). Wrapping the column in a function prevents MySQL from using an index,
+-- so every lookup scanned all history rows for the train. This migration adds stored generated
+-- columns for day of week and month plus covering indexes for both rate queries.
+--
+-- Safe to run once on a database created from an older database/railway.sql.
+-- New installations get the same schema directly from database/railway.sql.
+
+USE railwaydb;
+
+-- Stored generated columns (computed once on write, indexable)
+ALTER TABLE booking_history
+    ADD COLUMN journey_dow TINYINT AS (DAYOFWEEK(journey_date)) STORED AFTER confirmed_tickets,
+    ADD COLUMN journey_month TINYINT AS (MONTH(journey_date)) STORED AFTER journey_dow;
+
+-- Covering indexes: equality prefix on the lookup keys, rate inputs included. idx_rate_pattern
+-- also carries journey_date, which the combined rate query compares for its date-specific figures
+ALTER TABLE booking_history
+    ADD INDEX idx_rate_date (train_no, class_type, journey_date, total_wl, confirmed_tickets),
+    ADD INDEX idx_rate_pattern (train_no, class_type, journey_dow, journey_month, journey_date, total_wl, confirmed_tickets);
+
+-- Keep the stored procedure in line with the DAO query
+DROP PROCEDURE IF EXISTS GetHistoricalConfirmationRate;
+DELIMITER //
+CREATE PROCEDURE GetHistoricalConfirmationRate(
+    IN p_train_no VARCHAR(10),
+    IN p_class_type VARCHAR(10),
+    IN p_day_of_week INT,
+    IN p_month INT
+)
+BEGIN
+    SELECT 
+        AVG(confirmed_tickets * 1.0 / total_wl) as avg_rate,
+        COUNT(*) as record_count
+    FROM booking_history 
+    WHERE train_no = p_train_no 
+    AND class_type = p_class_type 
+    AND journey_dow = p_day_of_week 
+    AND journey_month = p_month 
+    AND total_wl > 0;
+END //
+DELIMITER ;
+
+-- Verify the combined rate query (WaitlistDAO.getConfirmationRates) is answered from the index alone
+-- (expect key = idx_rate_pattern, Extra = Using where; Using index)
+EXPLAIN SELECT
+    AVG(CASE WHEN journey_date = '2024-01-15' THEN confirmed_tickets * 1.0 / total_wl END),
+    SUM(CASE WHEN journey_date = '2024-01-15' THEN 1 ELSE 0 END),
+    AVG(confirmed_tickets * 1.0 / total_wl),
+    COUNT(*)
+FROM booking_history
+WHERE train_no = '12345' AND class_type = 'SL' AND journey_dow = 2 AND journey_month = 1 AND total_wl > 0;
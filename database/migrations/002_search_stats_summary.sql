@@ -0,0 +1,66 @@
+-- Migration 002: incrementally maintained search statistics
+-- Database: railwaydb
+--
+-- The admin statistics used to aggregate the whole of search_history on every view:
+-- COUNT(DISTINCT user_id)/AVG/MIN/MAX for the global figures and a LEFT JOIN of every train to
+-- every search for the per-train figures. This migration adds summary tables holding counts,
+-- sums, minimum and maximum, which SearchHistoryDAO updates in the same transaction as each
+-- search_history insert, and backfills them from the existing history.
+--
+-- Safe to run once on a database created from an older database/railway.sql. Stop the
+-- application first so no searches are saved between the backfill and the restart.
+-- New installations get the same schema directly from database/railway.sql.
+
+USE railwaydb;
+
+CREATE TABLE search_stats_train (
+    train_no VARCHAR(10) PRIMARY KEY,
+    search_count BIGINT NOT NULL DEFAULT 0,
+    probability_sum DECIMAL(20,2) NOT NULL DEFAULT 0,
+    min_probability DECIMAL(5,2),
+    max_probability DECIMAL(5,2),
+    FOREIGN KEY (train_no) REFERENCES train_info(train_no) ON DELETE CASCADE
+);
+
+CREATE TABLE search_stats_user (
+    user_id INT PRIMARY KEY,
+    first_searched_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+CREATE TABLE search_stats_global (
+    stats_id TINYINT PRIMARY KEY,
+    total_users BIGINT NOT NULL DEFAULT 0,
+    total_searches BIGINT NOT NULL DEFAULT 0,
+    probability_sum DECIMAL(20,2) NOT NULL DEFAULT 0,
+    min_probability DECIMAL(5,2),
+    max_probability DECIMAL(5,2)
+);
+
+-- Backfill from existing history in one transaction
+START TRANSACTION;
+
+INSERT INTO search_stats_train (train_no, search_count, probability_sum, min_probability, max_probability)
+SELECT train_no, COUNT(*), COALESCE(SUM(probability), 0), MIN(probability), MAX(probability)
+FROM search_history
+GROUP BY train_no;
+
+INSERT INTO search_stats_user (user_id, first_searched_at)
+SELECT user_id, MIN(searched_at)
+FROM search_history
+GROUP BY user_id;
+
+INSERT INTO search_stats_global (stats_id, total_users, total_searches, probability_sum, min_probability, max_probability)
+SELECT 1,
+       (SELECT COUNT(*) FROM search_stats_user),
+       COUNT(*), COALESCE(SUM(probability), 0), MIN(probability), MAX(probability)
+FROM search_history;
+
+COMMIT;
+
+-- Verify the summaries match the history (both rows should be identical)
+SELECT total_users, total_searches, ROUND(probability_sum / NULLIF(total_searches, 0), 2) AS avg_probability,
+       min_probability, max_probability
+FROM search_stats_global WHERE stats_id = 1;
+SELECT COUNT(DISTINCT user_id), COUNT(*), ROUND(AVG(probability), 2), MIN(probability), MAX(probability)
+FROM search_history;
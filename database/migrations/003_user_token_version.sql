@@ -0,0 +1,15 @@
+-- Migration 003: session token revocation version
+-- Database: railwaydb
+--
+-- In stateless session mode (auth.sessionMode = token) the login state lives in a signed cookie
+-- instead of the HttpSession, so a server cannot forget it. Each token carries the user's
+-- token_version from when it was issued; UserDAO bumps the version when an account is deactivated
+-- or its role changes, and the token is refused the next time it is re-validated.
+--
+-- Safe to run once on a database created from an older database/railway.sql.
+-- New installations get the same schema directly from database/railway.sql.
+
+USE railwaydb;
+
+ALTER TABLE users
+    ADD COLUMN token_version INT NOT NULL DEFAULT 0 AFTER is_active;
@@ -6,6 +6,9 @@ CREATE DATABASE IF NOT EXISTS railwaydb;
 USE railwaydb;
 
 -- Drop tables if they exist (for clean setup)
+DROP TABLE IF EXISTS search_stats_global;
+DROP TABLE IF EXISTS search_stats_user;
+DROP TABLE IF EXISTS search_stats_train;
 DROP TABLE IF EXISTS search_history;
 DROP TABLE IF EXISTS booking_history;
 DROP TABLE IF EXISTS users;
@@ -19,6 +22,7 @@ CREATE TABLE users (
     password_hash VARCHAR(255) NOT NULL,
     role VARCHAR(10) DEFAULT 'user',
     is_active BOOLEAN DEFAULT TRUE,
+    token_version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     last_login TIMESTAMP NULL,
     INDEX idx_username (username),
@@ -43,10 +47,16 @@ CREATE TABLE booking_history (
     class_type VARCHAR(10) NOT NULL,
     total_wl INT NOT NULL DEFAULT 0,
     confirmed_tickets INT NOT NULL DEFAULT 0,
+    -- Stored copies of DAYOFWEEK()/MONTH() so the historical rate lookup can use an index
+    journey_dow TINYINT AS (DAYOFWEEK(journey_date)) STORED,
+    journey_month TINYINT AS (MONTH(journey_date)) STORED,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (train_no) REFERENCES train_info(train_no) ON DELETE CASCADE,
     INDEX idx_train_date_class (train_no, journey_date, class_type),
-    INDEX idx_journey_date (journey_date)
+    INDEX idx_journey_date (journey_date),
+    -- Covering indexes for the confirmation rate queries (no table row lookups needed)
+    INDEX idx_rate_date (train_no, class_type, journey_date, total_wl, confirmed_tickets),
+    INDEX idx_rate_pattern (train_no, class_type, journey_dow, journey_month, journey_date, total_wl, confirmed_tickets)
 );
 
 -- Create search_history table
@@ -65,6 +75,34 @@ CREATE TABLE search_history (
     INDEX idx_searched_at (searched_at)
 );
 
+-- Search statistics summary tables, maintained by SearchHistoryDAO in the same transaction
+-- as each search_history insert so the admin statistics never scan search_history
+CREATE TABLE search_stats_train (
+    train_no VARCHAR(10) PRIMARY KEY,
+    search_count BIGINT NOT NULL DEFAULT 0,
+    probability_sum DECIMAL(20,2) NOT NULL DEFAULT 0,
+    min_probability DECIMAL(5,2),
+    max_probability DECIMAL(5,2),
+    FOREIGN KEY (train_no) REFERENCES train_info(train_no) ON DELETE CASCADE
+);
+
+CREATE TABLE search_stats_user (
+    user_id INT PRIMARY KEY,
+    first_searched_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+CREATE TABLE search_stats_global (
+    stats_id TINYINT PRIMARY KEY,
+    total_users BIGINT NOT NULL DEFAULT 0,
+    total_searches BIGINT NOT NULL DEFAULT 0,
+    probability_sum DECIMAL(20,2) NOT NULL DEFAULT 0,
+    min_probability DECIMAL(5,2),
+    max_probability DECIMAL(5,2)
+);
+
+INSERT INTO search_stats_global (stats_id) VALUES (1);
+
 -- Insert sample train data
 INSERT INTO train_info (train_no, train_name, source, destination) VALUES
 ('12345', 'Rajdhani Express', 'New Delhi', 'Mumbai Central'),
@@ -253,8 +291,8 @@ BEGIN
     FROM booking_history 
     WHERE train_no = p_train_no 
     AND class_type = p_class_type 
-    AND DAYOFWEEK(journey_date) = p_day_of_week 
-    AND MONTH(journey_date) = p_month 
+    AND journey_dow = p_day_of_week 
+    AND journey_month = p_month 
     AND total_wl > 0;
 END //
 DELIMITER ;
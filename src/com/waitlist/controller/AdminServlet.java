@@ -1,31 +1,90 @@
 package com.waitlist.controller;
 
 import com.waitlist.model.User;
+import com.waitlist.model.UserPrincipal;
+import com.waitlist.dao.BookingHistoryImporter;
+import com.waitlist.dao.SearchHistoryDAO;
 import com.waitlist.dao.UserDAO;
 import com.waitlist.dao.WaitlistDAO;
+import com.waitlist.model.ImportReport;
+import com.waitlist.model.Page;
+import com.waitlist.model.SearchHistoryEntry;
+import com.waitlist.model.StatsSnapshot;
 import com.waitlist.model.Train;
+import com.waitlist.util.ConfirmationRateCube;
+import com.waitlist.util.FactorModel;
+import com.waitlist.util.FactorModelFitter;
+import com.waitlist.util.JsonUtil;
+import com.waitlist.util.Log;
+import com.waitlist.util.ProbabilityCache;
+import com.waitlist.util.SqlStatistics;
+import com.waitlist.util.StatsService;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
+import javax.servlet.http.Part;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
  * Servlet for admin dashboard operations
  */
 public class AdminServlet extends HttpServlet {
+
+    private static final Log LOG = Log.getLogger(AdminServlet.class);
+    
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MIN_PAGE_SIZE = 10;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_FLUSH_ROWS = 1000;
+    private static final int SQL_TOP_STATEMENTS = 25;
+    private static final DateTimeFormatter EXPORT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     private UserDAO userDAO;
     private WaitlistDAO waitlistDAO;
+    private SearchHistoryDAO searchHistoryDAO;
+    private BookingHistoryImporter bookingHistoryImporter;
     
     @Override
     public void init() throws ServletException {
         super.init();
         this.userDAO = new UserDAO();
         this.waitlistDAO = new WaitlistDAO();
+        this.searchHistoryDAO = new SearchHistoryDAO();
+        this.bookingHistoryImporter = new BookingHistoryImporter(waitlistDAO,
+                getIntParameter("import.batchSize", BookingHistoryImporter.DEFAULT_BATCH_SIZE),
+                getIntParameter("import.parserThreads", BookingHistoryImporter.DEFAULT_PARSER_THREADS));
+    }
+    
+    /**
+     * Reads an integer context parameter from web.xml.
+     * 
+     * @param name context-param name
+     * @param defaultValue value used when the parameter is missing or invalid
+     * @return parameter value
+     */
+    private int getIntParameter(String name, int defaultValue) {
+        String value = getServletContext().getInitParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value for {}: {}, using {}", name, value, defaultValue);
+            return defaultValue;
+        }
     }
     
     @Override
@@ -34,11 +93,7 @@ public class AdminServlet extends HttpServlet {
         
         try {
             // Check if user is admin
-            HttpSession session = request.getSession(false);
-            User user = null;
-            if (session != null) {
-                user = (User) session.getAttribute("user");
-            }
+            UserPrincipal user = AuthFilter.getPrincipal(request);
             
             if (user == null || !user.isAdmin()) {
                 response.sendRedirect("login.jsp");
@@ -60,19 +115,24 @@ public class AdminServlet extends HttpServlet {
                 case "stats":
                     handleStatistics(request, response);
                     break;
+                case "export_history":
+                    handleExportHistory(request, response);
+                    break;
+                case "sql":
+                    handleSqlStatistics(request, response);
+                    break;
                 default:
                     handleDashboard(request, response);
                     break;
             }
             
         } catch (Exception e) {
-            System.err.println("Error in AdminServlet: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in AdminServlet: {}", e.getMessage(), e);
             request.setAttribute("error", "An error occurred. Please try again.");
             try {
                 request.getRequestDispatcher("admin.jsp").forward(request, response);
             } catch (ServletException | IOException ex) {
-                ex.printStackTrace();
+                LOG.error("Error forwarding to admin.jsp", ex);
             }
         }
     }
@@ -83,11 +143,7 @@ public class AdminServlet extends HttpServlet {
         
         try {
             // Check if user is admin
-            HttpSession session = request.getSession(false);
-            User user = null;
-            if (session != null) {
-                user = (User) session.getAttribute("user");
-            }
+            UserPrincipal user = AuthFilter.getPrincipal(request);
             
             if (user == null || !user.isAdmin()) {
                 response.sendRedirect("login.jsp");
@@ -118,19 +174,39 @@ public class AdminServlet extends HttpServlet {
                 case "delete_train":
                     handleDeleteTrain(request, response);
                     break;
+                case "import_history":
+                    handleImportHistory(request, response);
+                    break;
+                case "reset_sql_stats":
+                    SqlStatistics.getInstance().reset();
+                    response.sendRedirect("AdminServlet?action=sql&message=SQL%20statistics%20reset.");
+                    break;
+                case "reload_rates":
+                    if (ConfirmationRateCube.getInstance().reload()) {
+                        response.sendRedirect("AdminServlet?action=stats&message=Confirmation%20rates%20reloaded.");
+                    } else {
+                        response.sendRedirect("AdminServlet?action=stats&error=Confirmation%20rate%20reload%20failed.");
+                    }
+                    break;
+                case "refit_factors":
+                    if (FactorModelFitter.refit()) {
+                        response.sendRedirect("AdminServlet?action=stats&message=Factor%20model%20refitted.");
+                    } else {
+                        response.sendRedirect("AdminServlet?action=stats&error=Factor%20model%20refit%20failed.");
+                    }
+                    break;
                 default:
                     response.sendRedirect("admin.jsp?action=dashboard");
                     break;
             }
             
         } catch (Exception e) {
-            System.err.println("Error in AdminServlet POST: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in AdminServlet POST: {}", e.getMessage(), e);
             request.setAttribute("error", "An error occurred. Please try again.");
             try {
                 request.getRequestDispatcher("admin.jsp").forward(request, response);
             } catch (ServletException | IOException ex) {
-                ex.printStackTrace();
+                LOG.error("Error forwarding to admin.jsp", ex);
             }
         }
     }
@@ -138,17 +214,11 @@ public class AdminServlet extends HttpServlet {
     private void handleDashboard(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         try {
-            long totalUsers = userDAO.getTotalUsers();
-            long totalTrains = waitlistDAO.getTotalTrains();
-            double avgProbability = waitlistDAO.getAverageProbability();
-            
-            request.setAttribute("totalUsers", totalUsers);
-            request.setAttribute("totalTrains", totalTrains);
-            request.setAttribute("avgProbability", String.format("%.2f", avgProbability));
+            setSnapshotAttributes(request);
             request.setAttribute("action", "dashboard");
             request.getRequestDispatcher("admin.jsp").forward(request, response);
         } catch (Exception e) {
-            System.err.println("Error fetching dashboard data: " + e.getMessage());
+            LOG.error("Error fetching dashboard data: {}", e.getMessage());
             request.setAttribute("error", "Failed to load dashboard");
             request.getRequestDispatcher("admin.jsp").forward(request, response);
         }
@@ -158,12 +228,25 @@ public class AdminServlet extends HttpServlet {
             throws ServletException, IOException {
         
         try {
-            List<User> users = userDAO.getAllUsers();
-            request.setAttribute("users", users);
+            int pageSize = getPageSize(request);
+            Integer afterUserId = null;
+            String after = request.getParameter("after");
+            if (after != null && !after.trim().isEmpty()) {
+                try {
+                    afterUserId = Integer.valueOf(after.trim());
+                } catch (NumberFormatException e) {
+                    // Invalid key - start from the first page
+                }
+            }
+            
+            Page<User> page = userDAO.getUsersPage(afterUserId, pageSize);
+            request.setAttribute("users", page.getItems());
+            request.setAttribute("nextAfter", page.getNextKey());
+            request.setAttribute("pageSize", pageSize);
             request.setAttribute("action", "users");
             request.getRequestDispatcher("admin.jsp").forward(request, response);
         } catch (Exception e) {
-            System.err.println("Error fetching users: " + e.getMessage());
+            LOG.error("Error fetching users: {}", e.getMessage());
             request.setAttribute("error", "Failed to load users");
             request.getRequestDispatcher("admin.jsp").forward(request, response);
         }
@@ -174,50 +257,217 @@ public class AdminServlet extends HttpServlet {
         
         try {
             String searchQuery = request.getParameter("search");
+            int pageSize = getPageSize(request);
             List<Train> trains;
             
-            System.out.println("✓ DEBUG: handleTrainManagement - Search parameter: " + searchQuery);
+            LOG.debug("handleTrainManagement - Search parameter: {}", searchQuery);
             
             if (searchQuery != null && !searchQuery.trim().isEmpty()) {
+                // Ranked results: show the best matches only
                 trains = waitlistDAO.searchTrains(searchQuery.trim());
                 request.setAttribute("searchQuery", searchQuery.trim());
-                System.out.println("✓ DEBUG: Search query found - Results: " + trains.size() + " trains");
+                request.setAttribute("matchCount", trains.size());
+                LOG.debug("Search query found - Results: {} trains", trains.size());
+                if (trains.size() > pageSize) {
+                    trains = trains.subList(0, pageSize);
+                }
             } else {
-                trains = waitlistDAO.getAllTrains();
-                System.out.println("✓ DEBUG: No search query - Fetching all trains: " + trains.size() + " trains");
+                String after = request.getParameter("after");
+                Page<Train> page = waitlistDAO.getTrainsPage(after != null && !after.trim().isEmpty() ? after.trim() : null, pageSize);
+                trains = page.getItems();
+                request.setAttribute("nextAfter", page.getNextKey());
+                LOG.debug("No search query - Fetching trains page: {} trains", trains.size());
             }
             
             request.setAttribute("trains", trains);
+            request.setAttribute("pageSize", pageSize);
             request.setAttribute("action", "trains");
             request.getRequestDispatcher("admin.jsp").forward(request, response);
         } catch (Exception e) {
-            System.err.println("Error fetching trains: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error fetching trains: {}", e.getMessage(), e);
             request.setAttribute("error", "Failed to load trains");
             request.getRequestDispatcher("admin.jsp").forward(request, response);
         }
     }
     
+    /**
+     * Exposes the latest admin statistics snapshot to the page. No queries run per view.
+     * Sets nothing if no snapshot could be computed yet; the page then shows placeholders.
+     */
+    private void setSnapshotAttributes(HttpServletRequest request) {
+        StatsSnapshot snapshot = StatsService.getInstance().getSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        request.setAttribute("totalUsers", snapshot.getTotalUsers());
+        request.setAttribute("totalTrains", snapshot.getTotalTrains());
+        request.setAttribute("avgProbability", String.format("%.2f", snapshot.getSearchStats().getAvgProbability()));
+        request.setAttribute("statsComputedAt", snapshot.getComputedAt());
+    }
+    
+    /**
+     * Page size from the "size" request parameter, clamped to the allowed range.
+     */
+    private int getPageSize(HttpServletRequest request) {
+        String size = request.getParameter("size");
+        if (size == null || size.trim().isEmpty()) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        try {
+            return Math.max(MIN_PAGE_SIZE, Math.min(MAX_PAGE_SIZE, Integer.parseInt(size.trim())));
+        } catch (NumberFormatException e) {
+            return DEFAULT_PAGE_SIZE;
+        }
+    }
+    
     private void handleStatistics(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         
         try {
-            long totalUsers = userDAO.getTotalUsers();
-            long totalTrains = waitlistDAO.getTotalTrains();
-            double avgProbability = waitlistDAO.getAverageProbability();
-            
-            request.setAttribute("totalUsers", totalUsers);
-            request.setAttribute("totalTrains", totalTrains);
-            request.setAttribute("avgProbability", String.format("%.2f", avgProbability));
+            setSnapshotAttributes(request);
+            request.setAttribute("probabilityCache", ProbabilityCache.getInstance());
+            request.setAttribute("rateCube", ConfirmationRateCube.getInstance());
+            request.setAttribute("factorModel", FactorModel.getCurrent());
             request.setAttribute("action", "stats");
             request.getRequestDispatcher("admin.jsp").forward(request, response);
         } catch (Exception e) {
-            System.err.println("Error fetching statistics: " + e.getMessage());
+            LOG.error("Error fetching statistics: {}", e.getMessage());
             request.setAttribute("error", "Failed to load statistics");
             request.getRequestDispatcher("admin.jsp").forward(request, response);
         }
     }
     
+    /**
+     * Shows the statements with the highest total time and the recent slow-query log.
+     */
+    private void handleSqlStatistics(HttpServletRequest request, HttpServletResponse response) 
+            throws ServletException, IOException {
+        
+        SqlStatistics statistics = SqlStatistics.getInstance();
+        request.setAttribute("sqlStatements", statistics.getTopStatements(SQL_TOP_STATEMENTS));
+        request.setAttribute("sqlStatementCount", statistics.getStatementCount());
+        request.setAttribute("slowQueries", statistics.getSlowQueries());
+        request.setAttribute("acquireTimer", statistics.getAcquireTimer());
+        request.setAttribute("sqlResetAt", statistics.getResetAt());
+        request.setAttribute("action", "sql");
+        request.getRequestDispatcher("admin.jsp").forward(request, response);
+    }
+    
+    /**
+     * Streams search_history as CSV or NDJSON (format=csv|ndjson) straight into the response.
+     * Optional filters: from/to (yyyy-MM-dd, by search date) and trainNo. No Content-Length is
+     * set, so the container sends the body chunked as rows arrive.
+     */
+    private void handleExportHistory(HttpServletRequest request, HttpServletResponse response) 
+            throws ServletException, IOException {
+        
+        String format = request.getParameter("format") != null ? request.getParameter("format").trim() : "csv";
+        if (!"csv".equals(format) && !"ndjson".equals(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "format must be csv or ndjson");
+            return;
+        }
+        
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = parseExportDate(request.getParameter("from"));
+            to = parseExportDate(request.getParameter("to"));
+        } catch (DateTimeParseException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "from/to must be dates in yyyy-MM-dd format");
+            return;
+        }
+        String trainNo = request.getParameter("trainNo");
+        trainNo = trainNo != null && !trainNo.trim().isEmpty() ? trainNo.trim() : null;
+        
+        boolean csv = "csv".equals(format);
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"search_history." + format + "\"");
+        
+        PrintWriter out = response.getWriter();
+        StringBuilder line = new StringBuilder(160);
+        if (csv) {
+            out.write("search_id,user_id,train_no,journey_date,class_type,waitlist_number,probability,searched_at\n");
+        }
+        
+        long start = System.currentTimeMillis();
+        long[] written = {0};
+        try {
+            searchHistoryDAO.streamSearchHistory(from, to, trainNo, entry -> {
+                line.setLength(0);
+                if (csv) {
+                    appendCsvRow(line, entry);
+                } else {
+                    appendJsonRow(line, entry);
+                }
+                out.write(line.toString());
+                if (++written[0] % EXPORT_FLUSH_ROWS == 0) {
+                    out.flush();
+                    if (out.checkError()) {
+                        throw new IOException("Client disconnected");
+                    }
+                }
+            });
+            out.flush();
+            LOG.info("Exported {} search history rows as {} in {} ms", written[0], format, System.currentTimeMillis() - start);
+        } catch (SQLException | IOException e) {
+            // Rows may already be on the wire, so the status can't change; just stop the stream
+            LOG.warn("Search history export aborted after {} rows: {}", written[0], e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Export failed");
+            }
+        }
+    }
+    
+    private static LocalDate parseExportDate(String value) {
+        return value == null || value.trim().isEmpty() ? null : LocalDate.parse(value.trim());
+    }
+    
+    private static void appendCsvRow(StringBuilder line, SearchHistoryEntry entry) {
+        line.append(entry.getSearchId()).append(',')
+            .append(entry.getUserId()).append(',');
+        appendCsvField(line, entry.getTrainNo()).append(',')
+            .append(formatExportDate(entry.getJourneyDate())).append(',');
+        appendCsvField(line, entry.getClassType()).append(',')
+            .append(entry.getWaitlistNumber()).append(',')
+            .append(entry.getProbability()).append(',');
+        if (entry.getSearchedAt() != null) {
+            line.append(formatExportTimestamp(entry.getSearchedAt()));
+        }
+        line.append('\n');
+    }
+    
+    private static String formatExportDate(LocalDate date) {
+        return date == null ? "" : date.toString();
+    }
+    
+    private static String formatExportTimestamp(java.util.Date timestamp) {
+        return EXPORT_TIMESTAMP.format(new java.sql.Timestamp(timestamp.getTime()).toLocalDateTime());
+    }
+    
+    private static StringBuilder appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+    
+    private static void appendJsonRow(StringBuilder line, SearchHistoryEntry entry) {
+        line.append("{\"search_id\":").append(entry.getSearchId())
+            .append(",\"user_id\":").append(entry.getUserId());
+        JsonUtil.appendString(line.append(",\"train_no\":"), entry.getTrainNo());
+        JsonUtil.appendString(line.append(",\"journey_date\":"), entry.getJourneyDate() == null ? null : formatExportDate(entry.getJourneyDate()));
+        JsonUtil.appendString(line.append(",\"class_type\":"), entry.getClassType());
+        line.append(",\"waitlist_number\":").append(entry.getWaitlistNumber());
+        JsonUtil.appendNumber(line.append(",\"probability\":"), entry.getProbability());
+        JsonUtil.appendString(line.append(",\"searched_at\":"), entry.getSearchedAt() == null ? null : formatExportTimestamp(entry.getSearchedAt()));
+        line.append("}\n");
+    }
+    
     private void handleDeactivateUser(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         
@@ -231,7 +481,7 @@ public class AdminServlet extends HttpServlet {
                 response.sendRedirect("AdminServlet?action=users");
             }
         } catch (Exception e) {
-            System.err.println("Error deactivating user: " + e.getMessage());
+            LOG.error("Error deactivating user: {}", e.getMessage());
             response.sendRedirect("AdminServlet?action=users");
         }
     }
@@ -249,7 +499,7 @@ public class AdminServlet extends HttpServlet {
                 response.sendRedirect("AdminServlet?action=users");
             }
         } catch (Exception e) {
-            System.err.println("Error promoting user: " + e.getMessage());
+            LOG.error("Error promoting user: {}", e.getMessage());
             response.sendRedirect("AdminServlet?action=users");
         }
     }
@@ -267,7 +517,7 @@ public class AdminServlet extends HttpServlet {
                 response.sendRedirect("AdminServlet?action=users");
             }
         } catch (Exception e) {
-            System.err.println("Error demoting user: " + e.getMessage());
+            LOG.error("Error demoting user: {}", e.getMessage());
             response.sendRedirect("AdminServlet?action=users");
         }
     }
@@ -289,19 +539,18 @@ public class AdminServlet extends HttpServlet {
                 boolean success = waitlistDAO.addTrain(trainNo.trim(), trainName.trim(), source.trim(), destination.trim());
                 
                 if (success) {
-                    System.out.println("✓ DEBUG: Train added successfully - Train No: " + trainNo);
+                    LOG.debug("Train added successfully - Train No: {}", trainNo);
                     response.sendRedirect("AdminServlet?action=trains&message=Train%20added%20successfully!");
                 } else {
-                    System.out.println("✗ DEBUG: Failed to add train - Train No: " + trainNo);
+                    LOG.debug("Failed to add train - Train No: {}", trainNo);
                     response.sendRedirect("AdminServlet?action=trains&error=Failed%20to%20add%20train.%20Train%20number%20may%20already%20exist.");
                 }
             } else {
-                System.out.println("✗ DEBUG: Missing required fields for train addition");
+                LOG.debug("Missing required fields for train addition");
                 response.sendRedirect("AdminServlet?action=trains&error=All%20fields%20are%20required.");
             }
         } catch (Exception e) {
-            System.err.println("Error adding train: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error adding train: {}", e.getMessage(), e);
             response.sendRedirect("AdminServlet?action=trains&error=An%20error%20occurred%20while%20adding%20the%20train.");
         }
     }
@@ -316,23 +565,57 @@ public class AdminServlet extends HttpServlet {
                 boolean success = waitlistDAO.deleteTrain(trainNo.trim());
                 
                 if (success) {
-                    System.out.println("✓ DEBUG: Train deleted successfully - Train No: " + trainNo);
+                    LOG.debug("Train deleted successfully - Train No: {}", trainNo);
                     response.sendRedirect("AdminServlet?action=trains&message=Train%20deleted%20successfully!");
                 } else {
-                    System.out.println("✗ DEBUG: Failed to delete train - Train No: " + trainNo);
+                    LOG.debug("Failed to delete train - Train No: {}", trainNo);
                     response.sendRedirect("AdminServlet?action=trains&error=Failed%20to%20delete%20train.");
                 }
             } else {
-                System.out.println("✗ DEBUG: Missing train number for deletion");
+                LOG.debug("Missing train number for deletion");
                 response.sendRedirect("AdminServlet?action=trains&error=Train%20number%20is%20required.");
             }
         } catch (Exception e) {
-            System.err.println("Error deleting train: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error deleting train: {}", e.getMessage(), e);
             response.sendRedirect("AdminServlet?action=trains&error=An%20error%20occurred%20while%20deleting%20the%20train.");
         }
     }
     
+    private void handleImportHistory(HttpServletRequest request, HttpServletResponse response) 
+            throws ServletException, IOException {
+        
+        try {
+            Part file = request.getPart("historyFile");
+            if (file == null || file.getSize() == 0) {
+                response.sendRedirect("AdminServlet?action=stats&error=Please%20choose%20a%20CSV%20file%20to%20import.");
+                return;
+            }
+            
+            ImportReport report;
+            try (Reader input = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+                report = bookingHistoryImporter.importCsv(input);
+            } finally {
+                file.delete();
+            }
+            
+            String message = String.format("Imported %d of %d rows (%d rejected, %d failed) at %.0f rows/sec",
+                    report.getRowsImported(), report.getRowsRead(), report.getRowsRejected(),
+                    report.getRowsFailed(), report.getRowsPerSecond());
+            if (!report.getRejectSamples().isEmpty()) {
+                message += ". First reject: " + report.getRejectSamples().get(0);
+            }
+            String param = report.getRowsRejected() + report.getRowsFailed() == 0 ? "message" : "error";
+            response.sendRedirect("AdminServlet?action=stats&" + param + "=" + encode(message));
+        } catch (Exception e) {
+            LOG.error("Error importing booking history: {}", e.getMessage(), e);
+            response.sendRedirect("AdminServlet?action=stats&error=" + encode("Import failed: " + e.getMessage()));
+        }
+    }
+    
+    private static String encode(String text) throws IOException {
+        return URLEncoder.encode(text, "UTF-8").replace("+", "%20");
+    }
+    
     private void handleUpdateTrain(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         
@@ -350,19 +633,18 @@ public class AdminServlet extends HttpServlet {
                 boolean success = waitlistDAO.updateTrain(trainNo.trim(), trainName.trim(), source.trim(), destination.trim());
                 
                 if (success) {
-                    System.out.println("✓ DEBUG: Train updated successfully - Train No: " + trainNo);
+                    LOG.debug("Train updated successfully - Train No: {}", trainNo);
                     response.sendRedirect("AdminServlet?action=trains&message=Train%20updated%20successfully!");
                 } else {
-                    System.out.println("✗ DEBUG: Failed to update train - Train No: " + trainNo);
+                    LOG.debug("Failed to update train - Train No: {}", trainNo);
                     response.sendRedirect("AdminServlet?action=trains&error=Failed%20to%20update%20train.");
                 }
             } else {
-                System.out.println("✗ DEBUG: Missing required fields for train update");
+                LOG.debug("Missing required fields for train update");
                 response.sendRedirect("AdminServlet?action=trains&error=All%20fields%20are%20required.");
             }
         } catch (Exception e) {
-            System.err.println("Error updating train: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error updating train: {}", e.getMessage(), e);
             response.sendRedirect("AdminServlet?action=trains&error=An%20error%20occurred%20while%20updating%20the%20train.");
         }
     }
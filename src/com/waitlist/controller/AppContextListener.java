@@ -0,0 +1,134 @@
+package com.waitlist.controller;
+
+import com.waitlist.dao.WaitlistDAO;
+import com.waitlist.util.AsyncLogAppender;
+import com.waitlist.util.ConfirmationRateCube;
+import com.waitlist.util.DBConnection;
+import com.waitlist.util.FactorModelFitter;
+import com.waitlist.util.Log;
+import com.waitlist.util.PasswordHashingService;
+import com.waitlist.util.Pbkdf2PasswordHasher;
+import com.waitlist.util.ProbabilityCache;
+import com.waitlist.util.ProbabilityTable;
+import com.waitlist.util.SessionTokenService;
+import com.waitlist.util.StatsService;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import java.util.Enumeration;
+import java.util.Properties;
+
+/**
+ * Application lifecycle listener
+ * Sets up shared resources (connection pool, in-memory caches) when the web application
+ * starts and releases them on shutdown.
+ */
+public class AppContextListener implements ServletContextListener {
+
+    private static final Log LOG = Log.getLogger(AppContextListener.class);
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        ServletContext context = event.getServletContext();
+
+        // Logging first, so everything below goes through the asynchronous appender at the configured level
+        Log.configure(Log.Level.parse(context.getInitParameter("log.level"), Log.Level.INFO),
+            getIntParameter(context, "log.bufferSize", AsyncLogAppender.DEFAULT_CAPACITY));
+
+        // Configure the connection pool from the db.* context parameters
+        Properties dbConfig = new Properties();
+        Enumeration<String> names = context.getInitParameterNames();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            if (name.startsWith("db.")) {
+                dbConfig.setProperty(name, context.getInitParameter(name));
+            }
+        }
+        DBConnection.configure(dbConfig);
+
+        String cacheSize = context.getInitParameter("probability.cache.maxEntries");
+        if (cacheSize != null && !cacheSize.trim().isEmpty()) {
+            try {
+                ProbabilityCache.getInstance().setMaxEntries(Integer.parseInt(cacheSize.trim()));
+            } catch (NumberFormatException e) {
+                LOG.warn("Invalid value for probability.cache.maxEntries: {}", cacheSize);
+            }
+        }
+
+        // Password hashing runs on its own bounded pool so login bursts cannot take every request thread
+        PasswordHashingService.getInstance().configure(
+            new Pbkdf2PasswordHasher(getIntParameter(context, "auth.pbkdf2.iterations", Pbkdf2PasswordHasher.DEFAULT_ITERATIONS)),
+            getIntParameter(context, "auth.hashThreads", PasswordHashingService.defaultThreads()),
+            getIntParameter(context, "auth.hashQueue", PasswordHashingService.DEFAULT_QUEUE),
+            getIntParameter(context, "auth.hashTimeoutMillis", (int) PasswordHashingService.DEFAULT_TIMEOUT_MILLIS));
+
+        // Login state in the HttpSession (default) or in signed tokens shared by every node
+        SessionTokenService.getInstance().configure(
+            "token".equalsIgnoreCase(String.valueOf(context.getInitParameter("auth.sessionMode")).trim()),
+            context.getInitParameter("auth.tokenSecret"),
+            getIntParameter(context, "auth.tokenTtlSeconds", SessionTokenService.DEFAULT_TTL_SECONDS),
+            getIntParameter(context, "auth.tokenRefreshSeconds", SessionTokenService.DEFAULT_REFRESH_SECONDS));
+
+        // Warm the train cache so the first probability request does not pay for the load
+        Long trainCount = new WaitlistDAO().getTotalTrains();
+        if (trainCount != null) {
+            LOG.info("Train cache warmed: {} trains", trainCount);
+        } else {
+            LOG.warn("Train cache not warmed - train_info could not be read");
+        }
+
+        // Precompute confirmation rates so probability lookups need no database work
+        if (!ConfirmationRateCube.getInstance().reload()) {
+            LOG.warn("Confirmation rate cube not loaded - probability lookups will query the database");
+        }
+        // Reload periodically to pick up rows written by other nodes or the command line importer
+        ConfirmationRateCube.getInstance().start(
+            getIntParameter(context, "cube.reloadMillis", (int) ConfirmationRateCube.DEFAULT_RELOAD_MILLIS));
+
+        // Fit per-train factor curves from booking history in the background; defaults apply until then
+        FactorModelFitter.start(getIntParameter(context, "factors.refitMillis", (int) FactorModelFitter.DEFAULT_REFIT_MILLIS));
+
+        // Precompute probabilities for upcoming journeys; rebuilt in the background after booking changes
+        ProbabilityTable.getInstance().start(
+            getIntParameter(context, "probability.table.horizonDays", ProbabilityTable.DEFAULT_HORIZON_DAYS),
+            getIntParameter(context, "probability.table.refreshMillis", (int) ProbabilityTable.DEFAULT_REFRESH_MILLIS),
+            getIntParameter(context, "probability.table.threads", Runtime.getRuntime().availableProcessors()));
+
+        // Admin pages render from a periodically refreshed statistics snapshot
+        long statsRefresh = StatsService.DEFAULT_REFRESH_MILLIS;
+        String refreshParam = context.getInitParameter("stats.refreshMillis");
+        if (refreshParam != null && !refreshParam.trim().isEmpty()) {
+            try {
+                statsRefresh = Long.parseLong(refreshParam.trim());
+            } catch (NumberFormatException e) {
+                LOG.warn("Invalid value for stats.refreshMillis: {}", refreshParam);
+            }
+        }
+        StatsService.getInstance().start(statsRefresh);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        ProbabilityTable.getInstance().shutdown();
+        ConfirmationRateCube.getInstance().shutdown();
+        FactorModelFitter.shutdown();
+        StatsService.getInstance().shutdown();
+        PasswordHashingService.getInstance().shutdown();
+        DBConnection.shutdown();
+        Log.shutdown();
+    }
+
+    private int getIntParameter(ServletContext context, String name, int defaultValue) {
+        String value = context.getInitParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value for {}: {}", name, value);
+            return defaultValue;
+        }
+    }
+}
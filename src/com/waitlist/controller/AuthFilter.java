@@ -0,0 +1,209 @@
+package com.waitlist.controller;
+
+import com.waitlist.dao.UserDAO;
+import com.waitlist.model.User;
+import com.waitlist.model.UserPrincipal;
+import com.waitlist.model.UserProfile;
+import com.waitlist.util.Log;
+import com.waitlist.util.SessionTokenService;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+
+/**
+ * Filter that resolves the signed-in user for every request
+ *
+ * The principal is published as the "principal" request attribute, which servlets and JSPs
+ * read instead of the HttpSession. Where it comes from depends on auth.sessionMode:
+ * - session: the principal stored in the HttpSession at login (sticky sessions or replication)
+ * - token: a signed cookie verified by SessionTokenService, with no server-side state. Once a
+ *   token is older than the refresh interval the user is re-read by primary key; a deactivated
+ *   account or a changed token version ends the login, otherwise a fresh token is issued.
+ * Pages that show account details use {@link #getProfile}: from the HttpSession in session mode,
+ * by primary key in token mode unless the request already re-read the user.
+ */
+public class AuthFilter implements Filter {
+
+    private static final Log LOG = Log.getLogger(AuthFilter.class);
+
+    public static final String PRINCIPAL = "principal";
+    public static final String PROFILE = "profile";
+    public static final String TOKEN_COOKIE = "WAITLIST_AUTH";
+
+    private static final int SESSION_TIMEOUT_SECONDS = 30 * 60;
+
+    private UserDAO userDAO;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        this.userDAO = new UserDAO();
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+        UserPrincipal principal = SessionTokenService.getInstance().isStateless()
+            ? fromToken(request, response)
+            : fromSession(request);
+        if (principal != null) {
+            request.setAttribute(PRINCIPAL, principal);
+        }
+        chain.doFilter(req, res);
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Returns the principal resolved for this request.
+     *
+     * @param request The current request
+     * @return signed-in user, or null if nobody is signed in
+     */
+    public static UserPrincipal getPrincipal(HttpServletRequest request) {
+        return (UserPrincipal) request.getAttribute(PRINCIPAL);
+    }
+
+    /**
+     * Returns the signed-in user's account details.
+     *
+     * @param request The current request, after this filter ran
+     * @return profile, or null if nobody is signed in or the account no longer exists
+     */
+    public static UserProfile getProfile(HttpServletRequest request) {
+        UserPrincipal principal = getPrincipal(request);
+        if (principal == null) {
+            return null;
+        }
+        UserProfile profile = (UserProfile) request.getAttribute(PROFILE);
+        if (profile == null && !SessionTokenService.getInstance().isStateless()) {
+            HttpSession session = request.getSession(false);
+            profile = session != null ? (UserProfile) session.getAttribute(PROFILE) : null;
+        }
+        if (profile == null) {
+            // Token mode keeps no server-side state; one primary key read
+            User user = new UserDAO().getUserById(principal.getUserId());
+            profile = user != null ? UserProfile.of(user) : null;
+        }
+        if (profile != null) {
+            request.setAttribute(PROFILE, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Starts a login for an authenticated user, as a token cookie or a session attribute.
+     *
+     * @param request The login request
+     * @param response The login response
+     * @param user The authenticated user
+     */
+    public static void signIn(HttpServletRequest request, HttpServletResponse response, User user) {
+        UserPrincipal principal = UserPrincipal.of(user, nowSeconds());
+        SessionTokenService tokens = SessionTokenService.getInstance();
+        if (tokens.isStateless()) {
+            writeTokenCookie(request, response, tokens.issue(principal), tokens.getTtlSeconds());
+        } else {
+            HttpSession session = request.getSession(true);
+            session.setAttribute(PRINCIPAL, principal);
+            session.setAttribute(PROFILE, UserProfile.of(user));
+            session.setMaxInactiveInterval(SESSION_TIMEOUT_SECONDS);
+        }
+        request.setAttribute(PRINCIPAL, principal);
+        request.setAttribute(PROFILE, UserProfile.of(user));
+    }
+
+    /**
+     * Ends the current login in both modes.
+     *
+     * @param request The logout request
+     * @param response The logout response
+     */
+    public static void signOut(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+        if (findTokenCookie(request) != null) {
+            writeTokenCookie(request, response, "", 0);
+        }
+        request.removeAttribute(PRINCIPAL);
+        request.removeAttribute(PROFILE);
+    }
+
+    private UserPrincipal fromSession(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null ? (UserPrincipal) session.getAttribute(PRINCIPAL) : null;
+    }
+
+    private UserPrincipal fromToken(HttpServletRequest request, HttpServletResponse response) {
+        String token = findTokenCookie(request);
+        if (token == null) {
+            return null;
+        }
+        SessionTokenService tokens = SessionTokenService.getInstance();
+        long now = nowSeconds();
+        UserPrincipal principal = tokens.verify(token, now);
+        if (principal == null) {
+            writeTokenCookie(request, response, "", 0);
+            return null;
+        }
+        if (!tokens.needsRefresh(principal, now)) {
+            return principal;
+        }
+
+        // Re-validate against the account, which is where revocation takes effect
+        User user = userDAO.getUserById(principal.getUserId());
+        if (user == null || !user.isActive() || user.getTokenVersion() != principal.getTokenVersion()) {
+            LOG.info("Session token revoked for user: {}", principal.getUsername());
+            writeTokenCookie(request, response, "", 0);
+            return null;
+        }
+        UserPrincipal refreshed = UserPrincipal.of(user, now);
+        writeTokenCookie(request, response, tokens.issue(refreshed), tokens.getTtlSeconds());
+        request.setAttribute(PROFILE, UserProfile.of(user)); // saves getProfile() a second read
+        return refreshed;
+    }
+
+    private static String findTokenCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (TOKEN_COOKIE.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void writeTokenCookie(HttpServletRequest request, HttpServletResponse response,
+                                         String value, int maxAgeSeconds) {
+        // Written by hand because javax.servlet.http.Cookie has no SameSite attribute
+        String path = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+        StringBuilder header = new StringBuilder(TOKEN_COOKIE).append('=').append(value)
+            .append("; Max-Age=").append(maxAgeSeconds)
+            .append("; Path=").append(path)
+            .append("; HttpOnly; SameSite=Lax");
+        if (request.isSecure()) {
+            header.append("; Secure");
+        }
+        response.addHeader("Set-Cookie", header.toString());
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,418 @@
+package com.waitlist.controller;
+
+import com.waitlist.dao.WaitlistDAO;
+import com.waitlist.model.ConfirmationRates;
+import com.waitlist.model.UserPrincipal;
+import com.waitlist.util.DateUtil;
+import com.waitlist.util.FactorModel;
+import com.waitlist.util.JsonUtil;
+import com.waitlist.util.Log;
+import com.waitlist.util.ProbabilityCalculator;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servlet for batch probability evaluation (JSON in, JSON out)
+ *
+ * Request body:
+ *   {"queries": [{"trainNo": "12345", "journeyDate": "15-01-2024", "classType": "AC1", "waitlistNumber": 12}, ...]}
+ * Response body:
+ *   {"count": n, "errors": e, "results": [{"index": 0, "trainNo": ..., "probability": 42.5, "category": "Moderate"}, ...]}
+ * Results keep the order of the queries; an invalid query gets an "error" member instead of a probability.
+ *
+ * Queries are grouped by train, class and journey date so the confirmation rates for each group
+ * are fetched once, and groups are evaluated in parallel on a bounded worker pool. The numbers
+ * themselves come from ProbabilityCalculator, exactly as for WaitlistServlet.
+ */
+public class BatchProbabilityServlet extends HttpServlet {
+
+    private static final Log LOG = Log.getLogger(BatchProbabilityServlet.class);
+
+    private WaitlistDAO waitlistDAO;
+    private ProbabilityCalculator probabilityCalculator;
+    private ExecutorService executor;
+    private int maxQueries;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        this.waitlistDAO = new WaitlistDAO();
+        this.probabilityCalculator = new ProbabilityCalculator();
+        this.maxQueries = getIntParameter("batch.maxQueries", 500);
+
+        // Bounded pool; when its queue is full the request thread evaluates the group itself
+        int threads = Math.max(1, getIntParameter("batch.threads", Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads * 16),
+            task -> {
+                Thread thread = new Thread(task, "batch-probability-" + threadIds.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Read an integer context parameter from web.xml
+     * @param name context-param name
+     * @param defaultValue value used when the parameter is missing or invalid
+     * @return parameter value
+     */
+    private int getIntParameter(String name, int defaultValue) {
+        String value = getServletContext().getInitParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value for {}: {}, using {}", name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        try {
+            // Check if user is logged in
+            UserPrincipal user = AuthFilter.getPrincipal(request);
+            if (user == null) {
+                sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Login required");
+                return;
+            }
+
+            // Roughly 150 bytes per query; refuse oversized bodies before reading them
+            long maxBodyChars = 1024L + maxQueries * 512L;
+            if (request.getContentLengthLong() > maxBodyChars) {
+                sendError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Request body too large (at most " + maxQueries + " queries per batch)");
+                return;
+            }
+            String body = readBody(request, maxBodyChars);
+            if (body == null) {
+                sendError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Request body too large (at most " + maxQueries + " queries per batch)");
+                return;
+            }
+
+            List<?> queries;
+            try {
+                Object parsed = JsonUtil.parse(body);
+                Object list = parsed instanceof Map ? ((Map<?, ?>) parsed).get("queries") : null;
+                if (!(list instanceof List)) {
+                    sendError(response, HttpServletResponse.SC_BAD_REQUEST, "Expected an object with a \"queries\" array");
+                    return;
+                }
+                queries = (List<?>) list;
+            } catch (IllegalArgumentException e) {
+                sendError(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid JSON: " + e.getMessage());
+                return;
+            }
+
+            if (queries.isEmpty()) {
+                sendError(response, HttpServletResponse.SC_BAD_REQUEST, "No queries given");
+                return;
+            }
+            if (queries.size() > maxQueries) {
+                sendError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Too many queries: " + queries.size() + " (at most " + maxQueries + " per batch)");
+                return;
+            }
+
+            Result[] results = evaluate(queries);
+            writeResults(response, results);
+
+        } catch (Exception e) {
+            LOG.error("Error in BatchProbabilityServlet: {}", e.getMessage(), e);
+            sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An unexpected error occurred. Please try again.");
+        }
+    }
+
+    /**
+     * Validates the queries, groups them by train/class/date and evaluates the groups in parallel.
+     */
+    private Result[] evaluate(List<?> queries) throws InterruptedException {
+        Result[] results = new Result[queries.size()];
+        Map<String, Group> groups = new LinkedHashMap<>();
+
+        for (int i = 0; i < queries.size(); i++) {
+            Object item = queries.get(i);
+            if (!(item instanceof Map)) {
+                results[i] = Result.error(i, null, "Query must be an object");
+                continue;
+            }
+            Map<?, ?> query = (Map<?, ?>) item;
+            String trainNo = stringField(query, "trainNo");
+            String journeyDateStr = stringField(query, "journeyDate");
+            String classType = stringField(query, "classType");
+            Object waitlistValue = query.get("waitlistNumber");
+
+            if (trainNo == null || journeyDateStr == null || classType == null || waitlistValue == null) {
+                results[i] = Result.error(i, query, "trainNo, journeyDate, classType and waitlistNumber are required");
+                continue;
+            }
+
+            LocalDate journeyDate;
+            try {
+                journeyDate = DateUtil.parseJourneyDate(journeyDateStr);
+            } catch (DateTimeParseException e) {
+                results[i] = Result.error(i, query, "Invalid date format. Please use DD-MM-YYYY format (e.g., 15-01-2024).");
+                continue;
+            }
+
+            int waitlistNumber;
+            if (waitlistValue instanceof Double && (Double) waitlistValue >= 0
+                    && (Double) waitlistValue == Math.floor((Double) waitlistValue)
+                    && (Double) waitlistValue <= Integer.MAX_VALUE) {
+                waitlistNumber = ((Double) waitlistValue).intValue();
+            } else {
+                results[i] = Result.error(i, query, "Invalid waitlist number. Please enter a valid number.");
+                continue;
+            }
+
+            String key = trainNo + '\u0000' + classType + '\u0000' + journeyDate.toEpochDay();
+            groups.computeIfAbsent(key, k -> new Group(trainNo, classType, journeyDate))
+                  .members.add(new Member(i, trainNo, journeyDateStr, classType, waitlistNumber));
+        }
+
+        List<Future<?>> futures = new ArrayList<>(groups.size());
+        for (Group group : groups.values()) {
+            futures.add(executor.submit(() -> evaluateGroup(group, results)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                LOG.error("Error evaluating probability group: {}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        // Anything left unset belongs to a group that failed unexpectedly
+        for (Group group : groups.values()) {
+            for (Member member : group.members) {
+                if (results[member.index] == null) {
+                    results[member.index] = Result.error(member, "Calculation failed");
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Fetches the rates for one train/class/date once and scores every waitlist number in the group.
+     */
+    private void evaluateGroup(Group group, Result[] results) {
+        if (waitlistDAO.getTrainByNumber(group.trainNo) == null) {
+            for (Member member : group.members) {
+                results[member.index] = Result.error(member, "Train number " + group.trainNo + " not found in database.");
+            }
+            return;
+        }
+
+        ConfirmationRates rates = probabilityCalculator.getConfirmationRates(group.trainNo, group.journeyDate, group.classType);
+        if (rates == null) {
+            for (Member member : group.members) {
+                results[member.index] = Result.error(member, "Booking history is unavailable, please try again later.");
+            }
+            return;
+        }
+        FactorModel.Curves curves = probabilityCalculator.getCurves(group.trainNo, group.classType);
+        int month = probabilityCalculator.getMonth(group.journeyDate);
+        for (Member member : group.members) {
+            double probability = probabilityCalculator.calculateFromRates(rates, curves, month, member.waitlistNumber);
+            results[member.index] = Result.ok(member, probability, probabilityCalculator.getProbabilityCategory(probability));
+        }
+    }
+
+    /**
+     * Reads the request body, giving up once it exceeds the limit.
+     * @return the body, or null if it is longer than maxChars
+     */
+    private String readBody(HttpServletRequest request, long maxChars) throws IOException {
+        StringBuilder body = new StringBuilder();
+        char[] buffer = new char[8192];
+        BufferedReader reader = request.getReader();
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            body.append(buffer, 0, read);
+            if (body.length() > maxChars) {
+                return null;
+            }
+        }
+        return body.toString();
+    }
+
+    private static String stringField(Map<?, ?> query, String name) {
+        Object value = query.get(name);
+        if (value instanceof String && !((String) value).trim().isEmpty()) {
+            return ((String) value).trim();
+        }
+        return null;
+    }
+
+    private void writeResults(HttpServletResponse response, Result[] results) throws IOException {
+        int errors = 0;
+        for (Result result : results) {
+            if (result.error != null) {
+                errors++;
+            }
+        }
+
+        StringBuilder json = new StringBuilder(64 + results.length * 160);
+        json.append("{\"count\":").append(results.length)
+            .append(",\"errors\":").append(errors)
+            .append(",\"results\":[");
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            results[i].appendTo(json);
+        }
+        json.append("]}");
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(json.toString());
+    }
+
+    private void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        if (response.isCommitted()) {
+            return;
+        }
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        StringBuilder json = new StringBuilder("{\"error\":");
+        JsonUtil.appendString(json, message).append('}');
+        response.getWriter().write(json.toString());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        super.destroy();
+    }
+
+    /**
+     * Queries sharing a train, class and journey date, and therefore the same rates.
+     */
+    private static final class Group {
+        private final String trainNo;
+        private final String classType;
+        private final LocalDate journeyDate;
+        private final List<Member> members = new ArrayList<>();
+
+        private Group(String trainNo, String classType, LocalDate journeyDate) {
+            this.trainNo = trainNo;
+            this.classType = classType;
+            this.journeyDate = journeyDate;
+        }
+    }
+
+    /**
+     * One valid query and its position in the request.
+     */
+    private static final class Member {
+        private final int index;
+        private final String trainNo;
+        private final String journeyDate;
+        private final String classType;
+        private final int waitlistNumber;
+
+        private Member(int index, String trainNo, String journeyDate, String classType, int waitlistNumber) {
+            this.index = index;
+            this.trainNo = trainNo;
+            this.journeyDate = journeyDate;
+            this.classType = classType;
+            this.waitlistNumber = waitlistNumber;
+        }
+    }
+
+    /**
+     * Outcome of one query: a probability and category, or an error message.
+     */
+    private static final class Result {
+        private final int index;
+        private final String trainNo;
+        private final String journeyDate;
+        private final String classType;
+        private final Integer waitlistNumber;
+        private final double probability;
+        private final String category;
+        private final String error;
+
+        private Result(int index, String trainNo, String journeyDate, String classType, Integer waitlistNumber,
+                       double probability, String category, String error) {
+            this.index = index;
+            this.trainNo = trainNo;
+            this.journeyDate = journeyDate;
+            this.classType = classType;
+            this.waitlistNumber = waitlistNumber;
+            this.probability = probability;
+            this.category = category;
+            this.error = error;
+        }
+
+        private static Result ok(Member member, double probability, String category) {
+            return new Result(member.index, member.trainNo, member.journeyDate, member.classType,
+                member.waitlistNumber, Math.round(probability * 100) / 100.0, category, null);
+        }
+
+        private static Result error(Member member, String error) {
+            return new Result(member.index, member.trainNo, member.journeyDate, member.classType,
+                member.waitlistNumber, 0, null, error);
+        }
+
+        private static Result error(int index, Map<?, ?> query, String error) {
+            return new Result(index,
+                query == null ? null : stringField(query, "trainNo"),
+                query == null ? null : stringField(query, "journeyDate"),
+                query == null ? null : stringField(query, "classType"),
+                null, 0, null, error);
+        }
+
+        private void appendTo(StringBuilder json) {
+            json.append("{\"index\":").append(index);
+            if (trainNo != null) {
+                JsonUtil.appendString(json.append(",\"trainNo\":"), trainNo);
+            }
+            if (journeyDate != null) {
+                JsonUtil.appendString(json.append(",\"journeyDate\":"), journeyDate);
+            }
+            if (classType != null) {
+                JsonUtil.appendString(json.append(",\"classType\":"), classType);
+            }
+            if (waitlistNumber != null) {
+                json.append(",\"waitlistNumber\":").append(waitlistNumber.intValue());
+            }
+            if (error != null) {
+                JsonUtil.appendString(json.append(",\"error\":"), error);
+            } else {
+                JsonUtil.appendNumber(json.append(",\"probability\":"), probability);
+                JsonUtil.appendString(json.append(",\"category\":"), category);
+            }
+            json.append('}');
+        }
+    }
+}
@@ -2,18 +2,21 @@ package com.waitlist.controller;
 
 import com.waitlist.model.User;
 import com.waitlist.dao.UserDAO;
+import com.waitlist.util.Log;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Servlet for user login
  */
 public class LoginServlet extends HttpServlet {
+
+    private static final Log LOG = Log.getLogger(LoginServlet.class);
     
     private UserDAO userDAO;
     
@@ -51,30 +54,30 @@ public class LoginServlet extends HttpServlet {
             User user = userDAO.authenticateUser(username, password);
             
             if (user != null) {
-                // Create session
-                HttpSession session = request.getSession(true);
-                session.setAttribute("user", user);
-                session.setAttribute("userId", user.getUserId());
-                session.setAttribute("username", user.getUsername());
-                session.setAttribute("role", user.getRole());
-                session.setMaxInactiveInterval(30 * 60); // 30 minutes
+                // Session attribute or signed token cookie, per auth.sessionMode
+                AuthFilter.signIn(request, response, user);
                 
-                System.out.println("✓ DEBUG - Session created for: " + username + ", Session ID: " + session.getId());
-                System.out.println("✓ DEBUG - User role: " + user.getRole());
-                System.out.println("✓ DEBUG - Redirecting to dashboard...");
+                LOG.debug("Signed in: {}, role: {}", username, user.getRole());
+                LOG.debug("Redirecting to dashboard...");
                 
                 // Redirect to dashboard
                 response.sendRedirect("dashboard.jsp");
                 return;
             } else {
-                System.out.println("✗ DEBUG - Authentication failed for: " + username);
+                LOG.debug("Authentication failed for: {}", username);
                 request.setAttribute("error", "Invalid username or password.");
                 request.getRequestDispatcher("login.jsp").forward(request, response);
             }
             
+        } catch (RejectedExecutionException e) {
+            // Password hashing pool saturated - turn the request away quickly
+            LOG.warn("Login rejected, password hashing busy: {}", e.getMessage());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "2");
+            request.setAttribute("error", "Too many login attempts right now. Please try again in a moment.");
+            request.getRequestDispatcher("login.jsp").forward(request, response);
         } catch (Exception e) {
-            System.err.println("Error in LoginServlet: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in LoginServlet: {}", e.getMessage(), e);
             request.setAttribute("error", "An unexpected error occurred. Please try again.");
             request.getRequestDispatcher("login.jsp").forward(request, response);
         }
@@ -1,32 +1,34 @@
 package com.waitlist.controller;
 
+import com.waitlist.model.UserPrincipal;
+import com.waitlist.util.Log;
+
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 
 /**
  * Servlet for user logout
  */
 public class LogoutServlet extends HttpServlet {
+
+    private static final Log LOG = Log.getLogger(LogoutServlet.class);
     
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         
         try {
-            HttpSession session = request.getSession(false);
-            if (session != null) {
-                String username = (String) session.getAttribute("username");
-                System.out.println("DEBUG - Logging out: " + username);
-                session.invalidate();
+            UserPrincipal user = AuthFilter.getPrincipal(request);
+            if (user != null) {
+                LOG.debug("Logging out: {}", user.getUsername());
             }
+            AuthFilter.signOut(request, response);
             response.sendRedirect("index.jsp");
         } catch (Exception e) {
-            System.err.println("Error in LogoutServlet: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in LogoutServlet: {}", e.getMessage(), e);
             response.sendRedirect("index.jsp");
         }
     }
@@ -0,0 +1,61 @@
+package com.waitlist.controller;
+
+import com.waitlist.util.Metrics;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Filter that times every request into the metrics registry
+ *
+ * Mapped for REQUEST and FORWARD dispatches: the original request is recorded per endpoint,
+ * and every JSP it reaches (directly or through a servlet forward) is recorded per page.
+ * Requests that end in a 5xx status or an exception are counted as errors.
+ * Unknown paths (404) share one series so they cannot inflate the registry.
+ */
+public class MetricsFilter implements Filter {
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+        boolean forward = request.getDispatcherType() == DispatcherType.FORWARD;
+        String path = request.getServletPath();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(req, res);
+            failed = false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Metrics metrics = Metrics.getInstance();
+            if (path.endsWith(".jsp")) {
+                metrics.jspTimer(path).record(elapsed);
+            }
+            if (!forward) {
+                String endpoint = response.getStatus() == HttpServletResponse.SC_NOT_FOUND ? Metrics.OTHER : path;
+                metrics.httpTimer(endpoint).record(elapsed);
+                if (failed || response.getStatus() >= 500) {
+                    metrics.incrementHttpErrors(endpoint);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
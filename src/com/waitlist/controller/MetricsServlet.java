@@ -0,0 +1,52 @@
+package com.waitlist.controller;
+
+import com.waitlist.util.Metrics;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Servlet exposing application metrics in the Prometheus text format
+ *
+ * When the metrics.token context parameter is set, scrapers must send it as
+ * "Authorization: Bearer &lt;token&gt;"; otherwise the endpoint is open and should be
+ * restricted at the proxy.
+ */
+public class MetricsServlet extends HttpServlet {
+
+    private byte[] token;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        String configured = getServletContext().getInitParameter("metrics.token");
+        if (configured != null && !configured.trim().isEmpty()) {
+            this.token = configured.trim().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        if (token != null) {
+            String header = request.getHeader("Authorization");
+            byte[] presented = header != null && header.startsWith("Bearer ")
+                    ? header.substring(7).trim().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            if (!MessageDigest.isEqual(token, presented)) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+        }
+
+        StringBuilder body = new StringBuilder(16384);
+        Metrics.getInstance().writePrometheus(body);
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        response.setHeader("Cache-Control", "no-store");
+        response.getWriter().write(body.toString());
+    }
+}
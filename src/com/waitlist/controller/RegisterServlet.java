@@ -2,6 +2,8 @@ package com.waitlist.controller;
 
 import com.waitlist.model.User;
 import com.waitlist.dao.UserDAO;
+import com.waitlist.util.Log;
+import com.waitlist.util.PasswordHashingService;
 import com.waitlist.util.SecurityUtil;
 
 import javax.servlet.ServletException;
@@ -9,11 +11,14 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Servlet for user registration
  */
 public class RegisterServlet extends HttpServlet {
+
+    private static final Log LOG = Log.getLogger(RegisterServlet.class);
     
     private UserDAO userDAO;
     private SecurityUtil securityUtil;
@@ -106,7 +111,7 @@ public class RegisterServlet extends HttpServlet {
             User newUser = new User();
             newUser.setUsername(username);
             newUser.setEmail(email);
-            newUser.setPasswordHash(securityUtil.hashPassword(password));
+            newUser.setPasswordHash(PasswordHashingService.getInstance().hash(password));
             newUser.setRole("user");
             newUser.setActive(true);
             
@@ -119,9 +124,15 @@ public class RegisterServlet extends HttpServlet {
                 request.getRequestDispatcher("register.jsp").forward(request, response);
             }
             
+        } catch (RejectedExecutionException e) {
+            // Password hashing pool saturated - turn the request away quickly
+            LOG.warn("Registration rejected, password hashing busy: {}", e.getMessage());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "2");
+            request.setAttribute("error", "The server is busy. Please try again in a moment.");
+            request.getRequestDispatcher("register.jsp").forward(request, response);
         } catch (Exception e) {
-            System.err.println("Error in RegisterServlet: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in RegisterServlet: {}", e.getMessage(), e);
             request.setAttribute("error", "An unexpected error occurred. Please try again.");
             request.getRequestDispatcher("register.jsp").forward(request, response);
         }
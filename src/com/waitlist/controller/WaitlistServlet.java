@@ -1,29 +1,34 @@
 package com.waitlist.controller;
 
 import com.waitlist.model.Train;
-import com.waitlist.model.User;
+import com.waitlist.model.UserPrincipal;
 import com.waitlist.dao.WaitlistDAO;
 import com.waitlist.dao.SearchHistoryDAO;
+import com.waitlist.dao.SearchHistoryWriter;
+import com.waitlist.model.SearchRecord;
 import com.waitlist.util.ProbabilityCalculator;
 import com.waitlist.util.DBConnection;
+import com.waitlist.util.DateUtil;
+import com.waitlist.util.Log;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 /**
  * Servlet controller for waitlist probability calculation
  */
 public class WaitlistServlet extends HttpServlet {
+
+    private static final Log LOG = Log.getLogger(WaitlistServlet.class);
     
     private WaitlistDAO waitlistDAO;
     private SearchHistoryDAO searchHistoryDAO;
+    private SearchHistoryWriter searchHistoryWriter;
     private ProbabilityCalculator probabilityCalculator;
     
     @Override
@@ -32,6 +37,34 @@ public class WaitlistServlet extends HttpServlet {
         this.waitlistDAO = new WaitlistDAO();
         this.searchHistoryDAO = new SearchHistoryDAO();
         this.probabilityCalculator = new ProbabilityCalculator();
+        
+        // Search history is written behind the request in batches
+        this.searchHistoryWriter = new SearchHistoryWriter(
+            searchHistoryDAO,
+            getIntParameter("history.queueCapacity", 10000),
+            getIntParameter("history.batchSize", 100),
+            getIntParameter("history.flushIntervalMillis", 1000),
+            getIntParameter("history.offerTimeoutMillis", 5)
+        );
+    }
+    
+    /**
+     * Read an integer context parameter from web.xml
+     * @param name parameter name
+     * @param defaultValue value used when the parameter is missing or invalid
+     * @return parameter value
+     */
+    private int getIntParameter(String name, int defaultValue) {
+        String value = getServletContext().getInitParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value for {}: {}, using {}", name, value, defaultValue);
+            return defaultValue;
+        }
     }
     
     @Override
@@ -47,11 +80,7 @@ public class WaitlistServlet extends HttpServlet {
         
         try {
             // Check if user is logged in
-            HttpSession session = request.getSession(false);
-            User user = null;
-            if (session != null) {
-                user = (User) session.getAttribute("user");
-            }
+            UserPrincipal user = AuthFilter.getPrincipal(request);
             
             if (user == null) {
                 // Redirect to login if not authenticated
@@ -77,11 +106,10 @@ public class WaitlistServlet extends HttpServlet {
             }
             
             // Parse journey date (DD-MM-YYYY format)
-            Date journeyDate;
+            LocalDate journeyDate;
             try {
-                SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy");
-                journeyDate = sdf.parse(journeyDateStr);
-            } catch (ParseException e) {
+                journeyDate = DateUtil.parseJourneyDate(journeyDateStr);
+            } catch (DateTimeParseException e) {
                 request.setAttribute("error", "Invalid date format. Please use DD-MM-YYYY format (e.g., 15-01-2024).");
                 request.getRequestDispatcher("error.jsp").forward(request, response);
                 return;
@@ -112,22 +140,17 @@ public class WaitlistServlet extends HttpServlet {
             double probability = probabilityCalculator.calculateConfirmationProbability(
                 trainNo, journeyDate, classType, waitlistNumber);
             
-            // Save search to history (if logged in)
+            // Queue search for the background history writer (if logged in); a search dropped
+            // because the queue is backed up doesn't fail the request and the writer reports it
             if (user != null) {
-                try {
-                    searchHistoryDAO.saveSearch(
-                        user.getUserId(),
-                        trainNo,
-                        journeyDateStr,
-                        classType,
-                        waitlistNumber,
-                        probability
-                    );
-                    System.out.println("DEBUG - Search saved to history for user: " + user.getUsername());
-                } catch (Exception e) {
-                    System.err.println("Warning: Failed to save search history: " + e.getMessage());
-                    // Don't fail the request if history saving fails
-                }
+                searchHistoryWriter.submit(new SearchRecord(
+                    user.getUserId(),
+                    trainNo,
+                    journeyDate,
+                    classType,
+                    waitlistNumber,
+                    probability
+                ));
             }
             
             // Get additional information
@@ -148,8 +171,7 @@ public class WaitlistServlet extends HttpServlet {
             
         } catch (Exception e) {
             // Log the error
-            System.err.println("Error in WaitlistServlet: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in WaitlistServlet: {}", e.getMessage(), e);
             
             // Set error message and forward to error page
             request.setAttribute("error", "An unexpected error occurred. Please try again.");
@@ -159,7 +181,9 @@ public class WaitlistServlet extends HttpServlet {
     
     @Override
     public void destroy() {
+        // Write out any searches still queued before the container shuts down
+        searchHistoryWriter.shutdown(10000);
         super.destroy();
-        // No need to close connections - they are closed per request
+        // No need to close connections - they are returned to the pool per request
     }
 }
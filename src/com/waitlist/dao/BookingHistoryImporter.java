@@ -0,0 +1,400 @@
+package com.waitlist.dao;
+
+import com.waitlist.model.BookingHistory;
+import com.waitlist.model.ImportReport;
+import com.waitlist.util.DBConnection;
+import com.waitlist.util.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * BookingHistoryImporter - Streaming bulk loader for booking_history
+ * Imports CSV feeds of (train_no, journey_date, class_type, total_wl, confirmed_tickets) rows,
+ * journey_date in yyyy-MM-dd format, with an optional header line.
+ *
+ * The import runs as a three-stage pipeline connected by bounded queues, so memory stays flat
+ * however large the file is:
+ *   1. a reader thread cuts the input into chunks of lines,
+ *   2. parser threads validate each chunk into BookingHistory rows and reject messages,
+ *   3. the calling thread collects rows into batches and writes each one with
+ *      WaitlistDAO.addBookingHistoryBatch (one transaction, multi-row INSERTs), which also
+ *      merges the batch into the confirmation rate cube.
+ * Rows referencing unknown trains are rejected up front so one bad row cannot fail a batch
+ * on the foreign key.
+ *
+ * Usage from the command line (db.* settings as system properties, see DBConnection):
+ *   java -Ddb.url=... com.waitlist.dao.BookingHistoryImporter feed.csv [batchSize] [parserThreads]
+ * A command line import runs in its own JVM, so the running application sees its rows on its
+ * next confirmation rate cube reload (cube.reloadMillis, or Admin -> Statistics -> Reload).
+ */
+public class BookingHistoryImporter {
+
+    private static final Log LOG = Log.getLogger(BookingHistoryImporter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_PARSER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final int CHUNK_LINES = 500;
+    private static final int MAX_REJECT_SAMPLES = 20;
+    private static final int PROGRESS_EVERY_BATCHES = 100;
+    private static final int MAX_FIELD_LENGTH = 10;
+
+    private final WaitlistDAO waitlistDAO;
+    private final int batchSize;
+    private final int parserThreads;
+
+    /**
+     * Creates an importer.
+     *
+     * @param waitlistDAO DAO used for train validation and batch inserts
+     * @param batchSize Rows per JDBC batch / transaction
+     * @param parserThreads Number of parallel parse/validate threads
+     */
+    public BookingHistoryImporter(WaitlistDAO waitlistDAO, int batchSize, int parserThreads) {
+        this.waitlistDAO = waitlistDAO;
+        this.batchSize = Math.max(1, batchSize);
+        this.parserThreads = Math.max(1, parserThreads);
+    }
+
+    /**
+     * Imports a CSV stream. The reader is consumed but not closed.
+     *
+     * @param input CSV input
+     * @return Counts, throughput and sample rejects
+     * @throws IOException if reading or parsing the input fails; rows written before the failure stay committed
+     */
+    public ImportReport importCsv(Reader input) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<LineChunk> lineQueue = new ArrayBlockingQueue<>(parserThreads * 2);
+        BlockingQueue<ParsedChunk> parsedQueue = new ArrayBlockingQueue<>(parserThreads * 2);
+        // First failure of the reader or a parser; both stages still post their end markers
+        AtomicReference<Throwable> stageError = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> readChunks(input, lineQueue, stageError), "booking-import-reader");
+        reader.setDaemon(true);
+        AtomicInteger parserIds = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, task -> {
+            Thread thread = new Thread(task, "booking-import-parser-" + parserIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long rowsRead = 0;
+        long rowsImported = 0;
+        long rowsRejected = 0;
+        long rowsFailed = 0;
+        long batches = 0;
+        List<String> rejectSamples = new ArrayList<>();
+        List<BookingHistory> batch = new ArrayList<>(batchSize);
+
+        try {
+            reader.start();
+            for (int i = 0; i < parserThreads; i++) {
+                parsers.execute(() -> parseChunks(lineQueue, parsedQueue, stageError));
+            }
+
+            int finishedParsers = 0;
+            while (finishedParsers < parserThreads) {
+                ParsedChunk chunk = parsedQueue.take();
+                if (chunk == ParsedChunk.END) {
+                    finishedParsers++;
+                    if (stageError.get() != null) {
+                        break; // a stage failed; stop instead of waiting for the rest of the input
+                    }
+                    continue;
+                }
+                rowsRead += chunk.lineCount;
+                rowsRejected += chunk.rejects.size();
+                for (String reject : chunk.rejects) {
+                    if (rejectSamples.size() >= MAX_REJECT_SAMPLES) {
+                        break;
+                    }
+                    rejectSamples.add(reject);
+                }
+                for (BookingHistory row : chunk.rows) {
+                    batch.add(row);
+                    if (batch.size() >= batchSize) {
+                        int written = waitlistDAO.addBookingHistoryBatch(batch);
+                        rowsImported += written;
+                        rowsFailed += batch.size() - written;
+                        batch.clear();
+                        if (++batches % PROGRESS_EVERY_BATCHES == 0) {
+                            LOG.info("Booking import: {} rows written, {} rows/sec", rowsImported, String.format("%.0f", rowsRead * 1e9 / (System.nanoTime() - start)));
+                        }
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                int written = waitlistDAO.addBookingHistoryBatch(batch);
+                rowsImported += written;
+                rowsFailed += batch.size() - written;
+                batches++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Booking history import interrupted after " + rowsImported + " rows", e);
+        } finally {
+            // Unblocks the reader and parsers if the import ended early
+            reader.interrupt();
+            parsers.shutdownNow();
+        }
+
+        Throwable failure = stageError.get();
+        if (failure != null) {
+            throw new IOException("Booking history import stopped after " + rowsImported
+                    + " rows: " + failure.getMessage(), failure);
+        }
+
+        ImportReport report = new ImportReport(rowsRead, rowsImported, rowsRejected, rowsFailed, batches,
+                (System.nanoTime() - start) / 1_000_000, rejectSamples);
+        LOG.info("Booking import finished: {}", report);
+        return report;
+    }
+
+    /**
+     * Reader stage: cuts the input into line chunks, then signals every parser to stop,
+     * also when reading failed.
+     */
+    private void readChunks(Reader input, BlockingQueue<LineChunk> lineQueue, AtomicReference<Throwable> stageError) {
+        boolean abandoned = false;
+        try {
+            BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+            long lineNumber = 0;
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            long firstLine = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1) {
+                    if (line.startsWith("\uFEFF")) { // UTF-8 byte order mark
+                        line = line.substring(1);
+                    }
+                    if (line.trim().toLowerCase().startsWith("train_no")) {
+                        firstLine = 2;
+                        continue; // header
+                    }
+                }
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    lineQueue.put(new LineChunk(firstLine, lines));
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    firstLine = lineNumber + 1;
+                }
+            }
+            if (!lines.isEmpty()) {
+                lineQueue.put(new LineChunk(firstLine, lines));
+            }
+        } catch (IOException | RuntimeException e) {
+            stageError.compareAndSet(null, e);
+        } catch (Error e) {
+            stageError.compareAndSet(null, e);
+            throw e;
+        } catch (InterruptedException e) {
+            abandoned = true; // import abandoned, nobody is waiting for the end marker
+        } finally {
+            if (!abandoned) {
+                try {
+                    for (int i = 0; i < parserThreads; i++) {
+                        lineQueue.put(LineChunk.END);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Parser stage: validates chunks until the end marker arrives, then passes the marker on,
+     * also when parsing failed.
+     */
+    private void parseChunks(BlockingQueue<LineChunk> lineQueue, BlockingQueue<ParsedChunk> parsedQueue,
+                             AtomicReference<Throwable> stageError) {
+        boolean abandoned = false;
+        try {
+            LineChunk chunk;
+            while ((chunk = lineQueue.take()) != LineChunk.END) {
+                parsedQueue.put(parse(chunk));
+            }
+        } catch (RuntimeException e) {
+            stageError.compareAndSet(null, e);
+        } catch (Error e) {
+            stageError.compareAndSet(null, e);
+            throw e;
+        } catch (InterruptedException e) {
+            abandoned = true;
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!abandoned) {
+                try {
+                    parsedQueue.put(ParsedChunk.END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private ParsedChunk parse(LineChunk chunk) {
+        List<BookingHistory> rows = new ArrayList<>(chunk.lines.size());
+        List<String> rejects = new ArrayList<>();
+        int lineCount = 0;
+        long lineNumber = chunk.firstLine;
+        for (String line : chunk.lines) {
+            if (!line.trim().isEmpty()) {
+                lineCount++;
+                try {
+                    rows.add(parseRow(line));
+                } catch (IllegalArgumentException e) {
+                    rejects.add("line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+            lineNumber++;
+        }
+        return new ParsedChunk(lineCount, rows, rejects);
+    }
+
+    /**
+     * Parses and validates one CSV row.
+     *
+     * @throws IllegalArgumentException describing why the row is rejected
+     */
+    private BookingHistory parseRow(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("expected 5 fields but found " + fields.length);
+        }
+        String trainNo = field(fields[0], "train_no");
+        String dateText = field(fields[1], "journey_date");
+        String classType = field(fields[2], "class_type");
+        int totalWl = number(fields[3], "total_wl");
+        int confirmedTickets = number(fields[4], "confirmed_tickets");
+
+        LocalDate journeyDate;
+        try {
+            journeyDate = LocalDate.parse(dateText);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid journey_date '" + dateText + "' (expected yyyy-MM-dd)");
+        }
+        if (confirmedTickets > totalWl) {
+            throw new IllegalArgumentException("confirmed_tickets " + confirmedTickets + " exceeds total_wl " + totalWl);
+        }
+        if (waitlistDAO.getTrainByNumber(trainNo) == null) {
+            throw new IllegalArgumentException("unknown train '" + trainNo + "'");
+        }
+        return new BookingHistory(0, trainNo, journeyDate, classType, totalWl, confirmedTickets);
+    }
+
+    private static String field(String raw, String name) {
+        String value = unquote(raw);
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException(name + " is empty");
+        }
+        if (value.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException(name + " longer than " + MAX_FIELD_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private static int number(String raw, String name) {
+        String value = unquote(raw);
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new IllegalArgumentException(name + " is negative");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + name + " '" + value + "'");
+        }
+    }
+
+    private static String unquote(String raw) {
+        String value = raw.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+
+    /**
+     * Command line entry point for loading feed files outside the web application.
+     * The application picks up the rows on its next confirmation rate cube reload.
+     *
+     * @param args CSV file path, optional batch size, optional parser thread count
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: BookingHistoryImporter <file.csv> [batchSize] [parserThreads]");
+            System.exit(2);
+        }
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BATCH_SIZE;
+        int parserThreads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PARSER_THREADS;
+
+        Properties settings = new Properties();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("db.")) {
+                settings.setProperty(name, System.getProperty(name));
+            }
+        }
+        DBConnection.configure(settings);
+
+        try (Reader input = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            ImportReport report = new BookingHistoryImporter(new WaitlistDAO(), batchSize, parserThreads).importCsv(input);
+            for (String reject : report.getRejectSamples()) {
+                System.err.println("✗ Rejected " + reject);
+            }
+        } finally {
+            DBConnection.shutdown();
+            Log.shutdown();
+        }
+    }
+
+    /**
+     * Consecutive input lines and the line number of the first one.
+     */
+    private static final class LineChunk {
+        private static final LineChunk END = new LineChunk(0, new ArrayList<>());
+
+        private final long firstLine;
+        private final List<String> lines;
+
+        private LineChunk(long firstLine, List<String> lines) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Valid rows and reject messages parsed from one line chunk.
+     */
+    private static final class ParsedChunk {
+        private static final ParsedChunk END = new ParsedChunk(0, new ArrayList<>(), new ArrayList<>());
+
+        private final int lineCount;
+        private final List<BookingHistory> rows;
+        private final List<String> rejects;
+
+        private ParsedChunk(int lineCount, List<BookingHistory> rows, List<String> rejects) {
+            this.lineCount = lineCount;
+            this.rows = rows;
+            this.rejects = rejects;
+        }
+    }
+}
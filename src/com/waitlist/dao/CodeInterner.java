@@ -0,0 +1,38 @@
+package com.waitlist.dao;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CodeInterner - Shares one String instance per train number / class code
+ * Rows read from the database carry the same few hundred codes over and over; interning
+ * them means a list of rows retains one copy of each code instead of one per row.
+ * The table is capped so unexpected free-form values cannot grow it without bound.
+ */
+final class CodeInterner {
+
+    private static final int MAX_CODES = 20000;
+    private static final ConcurrentHashMap<String, String> CODES = new ConcurrentHashMap<>();
+
+    private CodeInterner() {}
+
+    /**
+     * Returns the shared instance equal to the given code.
+     *
+     * @param code Train number or class code (may be null)
+     * @return The canonical instance, or the code itself once the table is full
+     */
+    static String intern(String code) {
+        if (code == null) {
+            return null;
+        }
+        String shared = CODES.get(code);
+        if (shared != null) {
+            return shared;
+        }
+        if (CODES.size() >= MAX_CODES) {
+            return code;
+        }
+        shared = CODES.putIfAbsent(code, code);
+        return shared != null ? shared : code;
+    }
+}
@@ -1,19 +1,50 @@
 package com.waitlist.dao;
 
+import com.waitlist.model.GlobalSearchStats;
+import com.waitlist.model.SearchHistoryEntry;
+import com.waitlist.model.SearchRecord;
+import com.waitlist.model.TrainSearchStats;
 import com.waitlist.util.DBConnection;
+import com.waitlist.util.Log;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * SearchHistoryDAO - Data Access Object for Search History Operations
  * Manages search history records, user search tracking, and statistical analysis.
  * Provides methods for saving searches, retrieving user history, and generating analytics reports.
+ * 
+ * System-wide and per-train statistics are read from the search_stats_global, search_stats_train
+ * and search_stats_user summary tables, which every save updates in the same transaction as the
+ * search_history insert, so the statistics cost the same however much history has accumulated.
  */
 public class SearchHistoryDAO {
+
+    private static final Log LOG = Log.getLogger(SearchHistoryDAO.class);
+    
+    /**
+     * Receives rows one at a time from {@link #streamSearchHistory}.
+     */
+    public interface EntryHandler {
+        /**
+         * Handles one search_history row. The entry is not retained by the DAO.
+         * 
+         * @param entry The row
+         * @throws IOException if writing the row out failed; the stream is aborted
+         */
+        void handle(SearchHistoryEntry entry) throws IOException;
+    }
     
     /**
      * Saves a probability calculation search to the user's search history.
@@ -21,81 +52,215 @@ public class SearchHistoryDAO {
      * 
      * @param userId The user ID performing the search
      * @param trainNo The train number being searched
-     * @param journeyDate The journey date (format: dd-MM-yyyy)
+     * @param journeyDate The journey date
      * @param classType The class type (e.g., "1AC", "2AC", "3AC", "Sleeper")
      * @param waitlistNumber The waitlist position used in calculation
      * @param probability The calculated confirmation probability
      * @return True if the search was successfully saved, false otherwise
      * @throws SQLException if database operation fails (caught internally)
      */
-    public boolean saveSearch(int userId, String trainNo, String journeyDate, 
+    public boolean saveSearch(int userId, String trainNo, LocalDate journeyDate, 
                              String classType, int waitlistNumber, double probability) {
+        SearchRecord record = new SearchRecord(userId, trainNo, journeyDate, classType, waitlistNumber, probability);
+        return saveSearches(Collections.singletonList(record)) == 1;
+    }
+    
+    /**
+     * Saves a batch of searches to the search history in one JDBC batch and one transaction.
+     * Used by the background SearchHistoryWriter; with rewriteBatchedStatements enabled on the
+     * connection URL the driver sends the batch as multi-row INSERT statements.
+     * The statistics summary tables are updated in the same transaction.
+     * 
+     * @param records The searches to save
+     * @return Number of rows saved (0 if the batch failed and was rolled back)
+     * @throws SQLException if database operation fails (caught internally)
+     */
+    public int saveSearches(List<SearchRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
         String query = "INSERT INTO search_history (user_id, train_no, journey_date, class_type, waitlist_number, probability) " +
-                      "VALUES (?, ?, STR_TO_DATE(?, '%d-%m-%Y'), ?, ?, ?)";
+                      "VALUES (?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
+        try (Connection conn = DBConnection.getConnection("SearchHistoryDAO.saveSearches")) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(query)) {
+                for (SearchRecord record : records) {
+                    ps.setInt(1, record.getUserId());
+                    ps.setString(2, record.getTrainNo());
+                    ps.setObject(3, record.getJourneyDate());
+                    ps.setString(4, record.getClassType());
+                    ps.setInt(5, record.getWaitlistNumber());
+                    ps.setDouble(6, record.getProbability());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                updateStatistics(conn, records);
+                conn.commit();
+                return records.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
             
-            ps.setInt(1, userId);
-            ps.setString(2, trainNo);
-            ps.setString(3, journeyDate);
-            ps.setString(4, classType);
-            ps.setInt(5, waitlistNumber);
-            ps.setDouble(6, probability);
+        } catch (SQLException e) {
+            LOG.error("Error saving search history batch of {}: {}", records.size(), e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Adds a batch of saved searches to the statistics summary tables.
+     * The batch is pre-aggregated so each train and each user costs one statement, and rows
+     * are locked in a fixed order (trains, users, then the global row) so concurrent writers
+     * cannot deadlock. Runs inside the caller's transaction.
+     * 
+     * @param conn Connection with the open transaction
+     * @param records The searches just inserted
+     * @throws SQLException if an update fails
+     */
+    private void updateStatistics(Connection conn, List<SearchRecord> records) throws SQLException {
+        Map<String, ProbabilityTotals> trains = new TreeMap<>();
+        TreeSet<Integer> users = new TreeSet<>();
+        ProbabilityTotals global = new ProbabilityTotals();
+        for (SearchRecord record : records) {
+            // Round as the DECIMAL(5,2) probability column does, so sums match search_history
+            BigDecimal probability = BigDecimal.valueOf(record.getProbability()).setScale(2, RoundingMode.HALF_UP);
+            trains.computeIfAbsent(record.getTrainNo(), k -> new ProbabilityTotals()).add(probability);
+            users.add(record.getUserId());
+            global.add(probability);
+        }
+        
+        String trainQuery = "INSERT INTO search_stats_train (train_no, search_count, probability_sum, min_probability, max_probability) " +
+                           "VALUES (?, ?, ?, ?, ?) " +
+                           "ON DUPLICATE KEY UPDATE " +
+                           "search_count = search_count + VALUES(search_count), " +
+                           "probability_sum = probability_sum + VALUES(probability_sum), " +
+                           "min_probability = LEAST(COALESCE(min_probability, VALUES(min_probability)), VALUES(min_probability)), " +
+                           "max_probability = GREATEST(COALESCE(max_probability, VALUES(max_probability)), VALUES(max_probability))";
+        try (PreparedStatement ps = conn.prepareStatement(trainQuery)) {
+            for (Map.Entry<String, ProbabilityTotals> entry : trains.entrySet()) {
+                ProbabilityTotals totals = entry.getValue();
+                ps.setString(1, entry.getKey());
+                ps.setLong(2, totals.count);
+                ps.setBigDecimal(3, totals.sum);
+                ps.setBigDecimal(4, totals.min);
+                ps.setBigDecimal(5, totals.max);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        
+        // One row per user who has ever searched; an insert that isn't ignored is a new user
+        int newUsers = 0;
+        try (PreparedStatement ps = conn.prepareStatement("INSERT IGNORE INTO search_stats_user (user_id) VALUES (?)")) {
+            for (int userId : users) {
+                ps.setInt(1, userId);
+                newUsers += ps.executeUpdate();
+            }
+        }
+        
+        String globalQuery = "INSERT INTO search_stats_global (stats_id, total_users, total_searches, probability_sum, min_probability, max_probability) " +
+                            "VALUES (1, ?, ?, ?, ?, ?) " +
+                            "ON DUPLICATE KEY UPDATE " +
+                            "total_users = total_users + VALUES(total_users), " +
+                            "total_searches = total_searches + VALUES(total_searches), " +
+                            "probability_sum = probability_sum + VALUES(probability_sum), " +
+                            "min_probability = LEAST(COALESCE(min_probability, VALUES(min_probability)), VALUES(min_probability)), " +
+                            "max_probability = GREATEST(COALESCE(max_probability, VALUES(max_probability)), VALUES(max_probability))";
+        try (PreparedStatement ps = conn.prepareStatement(globalQuery)) {
+            ps.setInt(1, newUsers);
+            ps.setLong(2, global.count);
+            ps.setBigDecimal(3, global.sum);
+            ps.setBigDecimal(4, global.min);
+            ps.setBigDecimal(5, global.max);
+            ps.executeUpdate();
+        }
+    }
+    
+    /**
+     * Recomputes the global statistics row from the per-train and per-user summaries.
+     * Needed after a train is deleted, since its search_history and search_stats_train rows
+     * go by ON DELETE CASCADE. Reads only the summary tables, not search_history.
+     * Users whose only searches were for the deleted train stay counted.
+     * 
+     * @return True if the row was refreshed, false otherwise
+     * @throws SQLException if database operation fails (caught internally)
+     */
+    public boolean refreshGlobalStatistics() {
+        String query = "UPDATE search_stats_global g, " +
+                      "(SELECT COALESCE(SUM(search_count), 0) as total_searches, " +
+                      "COALESCE(SUM(probability_sum), 0) as probability_sum, " +
+                      "MIN(min_probability) as min_probability, " +
+                      "MAX(max_probability) as max_probability " +
+                      "FROM search_stats_train) t " +
+                      "SET g.total_users = (SELECT COUNT(*) FROM search_stats_user), " +
+                      "g.total_searches = t.total_searches, " +
+                      "g.probability_sum = t.probability_sum, " +
+                      "g.min_probability = t.min_probability, " +
+                      "g.max_probability = t.max_probability " +
+                      "WHERE g.stats_id = 1";
+        
+        try (Connection conn = DBConnection.getConnection("SearchHistoryDAO.refreshGlobalStatistics");
+             Statement stmt = conn.createStatement()) {
             
-            int rowsAffected = ps.executeUpdate();
-            return rowsAffected > 0;
+            stmt.executeUpdate(query);
+            return true;
             
         } catch (SQLException e) {
-            System.err.println("Error saving search history: " + e.getMessage());
+            LOG.error("Error refreshing global search statistics: {}", e.getMessage());
             return false;
         }
     }
     
     /**
-     * Retrieves a user's search history with train details.
-     * Joins with train information to provide complete context for each search.
+     * Running count, sum, minimum and maximum of probabilities within one batch.
+     */
+    private static final class ProbabilityTotals {
+        private long count;
+        private BigDecimal sum = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+        
+        private void add(BigDecimal probability) {
+            count++;
+            sum = sum.add(probability);
+            min = min == null ? probability : min.min(probability);
+            max = max == null ? probability : max.max(probability);
+        }
+    }
+    
+    /**
+     * Retrieves a user's most recent searches.
+     * Returns compact typed rows (primitive fields, shared train/class code strings) rather
+     * than a map per row; train names are available from the train cache if needed.
      * 
      * @param userId The user ID to retrieve history for
      * @param limit The maximum number of recent searches to retrieve
-     * @return List of search records as maps containing all search and train details
+     * @return List of searches, most recent first
      * @throws SQLException if database operation fails (caught internally)
      */
-    public List<Map<String, Object>> getUserSearchHistory(int userId, int limit) {
-        List<Map<String, Object>> history = new ArrayList<>();
-        String query = "SELECT s.*, t.train_name, t.source, t.destination " +
-                      "FROM search_history s " +
-                      "JOIN train_info t ON s.train_no = t.train_no " +
-                      "WHERE s.user_id = ? " +
-                      "ORDER BY s.searched_at DESC LIMIT ?";
+    public List<SearchHistoryEntry> getUserSearchHistory(int userId, int limit) {
+        List<SearchHistoryEntry> history = new ArrayList<>(limit);
+        String query = "SELECT search_id, user_id, train_no, journey_date, class_type, waitlist_number, probability, searched_at " +
+                      "FROM search_history " +
+                      "WHERE user_id = ? " +
+                      "ORDER BY searched_at DESC LIMIT ?";
         
         Connection conn = null;
         try {
-            conn = DBConnection.getConnection();
+            conn = DBConnection.getConnection("SearchHistoryDAO.getUserSearchHistory");
             try (PreparedStatement ps = conn.prepareStatement(query)) {
                 ps.setInt(1, userId);
                 ps.setInt(2, limit);
-                ResultSet rs = ps.executeQuery();
-                
-                while (rs.next()) {
-                    Map<String, Object> search = new HashMap<>();
-                    search.put("search_id", rs.getInt("search_id"));
-                    search.put("train_no", rs.getString("train_no"));
-                    search.put("train_name", rs.getString("train_name"));
-                    search.put("source", rs.getString("source"));
-                    search.put("destination", rs.getString("destination"));
-                    search.put("journey_date", rs.getDate("journey_date"));
-                    search.put("class_type", rs.getString("class_type"));
-                    search.put("waitlist_number", rs.getInt("waitlist_number"));
-                    search.put("probability", rs.getDouble("probability"));
-                    search.put("searched_at", rs.getTimestamp("searched_at"));
-                    
-                    history.add(search);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        history.add(readEntry(rs));
+                    }
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error retrieving user search history: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error retrieving user search history: {}", e.getMessage(), e);
         } finally {
             DBConnection.closeConnection(conn);
         }
@@ -103,6 +268,22 @@ public class SearchHistoryDAO {
         return history;
     }
     
+    /**
+     * Maps the current row of a search_history result set to an entry.
+     */
+    private static SearchHistoryEntry readEntry(ResultSet rs) throws SQLException {
+        return new SearchHistoryEntry(
+            rs.getLong("search_id"),
+            rs.getInt("user_id"),
+            CodeInterner.intern(rs.getString("train_no")),
+            rs.getObject("journey_date", LocalDate.class),
+            CodeInterner.intern(rs.getString("class_type")),
+            rs.getInt("waitlist_number"),
+            rs.getDouble("probability"),
+            rs.getTimestamp("searched_at")
+        );
+    }
+    
     /**
      * Calculates average probability statistics for each train searched by a user.
      * Helps understand user's search patterns and most frequently searched trains.
@@ -118,7 +299,7 @@ public class SearchHistoryDAO {
                       "WHERE user_id = ? " +
                       "GROUP BY train_no";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("SearchHistoryDAO.getUserTrainStats");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setInt(1, userId);
@@ -131,7 +312,7 @@ public class SearchHistoryDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("Error calculating user train statistics: " + e.getMessage());
+            LOG.error("Error calculating user train statistics: {}", e.getMessage());
         }
         
         return stats;
@@ -139,86 +320,169 @@ public class SearchHistoryDAO {
     
     /**
      * Retrieves system-wide statistical information from search history.
-     * Provides overview metrics for the admin dashboard.
+     * Provides overview metrics for the admin dashboard. Reads the single search_stats_global row.
      * 
-     * @return Map containing: total_users, total_searches, avg_probability, max_probability, min_probability
+     * @return Distinct searching users, total searches and average/max/min probability (all 0 if
+     *         nothing was recorded yet), or null if the database could not be read
      * @throws SQLException if database operation fails (caught internally)
      */
-    public Map<String, Object> getGlobalStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-        String query = "SELECT " +
-                      "COUNT(DISTINCT user_id) as total_users, " +
-                      "COUNT(*) as total_searches, " +
-                      "AVG(probability) as avg_probability, " +
-                      "MAX(probability) as max_probability, " +
-                      "MIN(probability) as min_probability " +
-                      "FROM search_history";
+    public GlobalSearchStats getGlobalStatistics() {
+        String query = "SELECT total_users, total_searches, " +
+                      "probability_sum / NULLIF(total_searches, 0) as avg_probability, " +
+                      "max_probability, min_probability " +
+                      "FROM search_stats_global WHERE stats_id = 1";
         
-        try (Connection conn = DBConnection.getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            ResultSet rs = stmt.executeQuery(query);
+        try (Connection conn = DBConnection.getConnection("SearchHistoryDAO.getGlobalStatistics");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
             
             if (rs.next()) {
-                stats.put("total_users", rs.getInt("total_users"));
-                stats.put("total_searches", rs.getInt("total_searches"));
-                stats.put("avg_probability", rs.getDouble("avg_probability"));
-                stats.put("max_probability", rs.getDouble("max_probability"));
-                stats.put("min_probability", rs.getDouble("min_probability"));
+                return new GlobalSearchStats(
+                    rs.getLong("total_users"),
+                    rs.getLong("total_searches"),
+                    rs.getDouble("avg_probability"),
+                    rs.getDouble("max_probability"),
+                    rs.getDouble("min_probability")
+                );
             }
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving global statistics: " + e.getMessage());
+            LOG.error("Error retrieving global statistics: {}", e.getMessage());
+            return null;
         }
         
-        return stats;
+        return new GlobalSearchStats(0, 0, 0.0, 0.0, 0.0);
     }
     
     /**
-     * Analyzes performance statistics for each train based on search history.
-     * Includes search frequency and probability distribution metrics.
+     * Analyzes performance statistics for the most searched trains.
+     * Includes search frequency and probability distribution metrics. Reads search_stats_train,
+     * so the cost depends on the number of trains rather than the number of searches.
      * 
-     * @return List of train statistics ordered by search frequency (highest first)
+     * @param limit Maximum number of trains to return
+     * @return Train statistics ordered by search frequency (highest first), or null if the
+     *         database could not be read
      * @throws SQLException if database operation fails (caught internally)
      */
-    public List<Map<String, Object>> getTrainPerformanceStats() {
-        List<Map<String, Object>> stats = new ArrayList<>();
+    public List<TrainSearchStats> getTrainPerformanceStats(int limit) {
+        List<TrainSearchStats> stats = new ArrayList<>(limit);
         String query = "SELECT t.train_no, t.train_name, t.source, t.destination, " +
-                      "COUNT(s.search_id) as search_count, " +
-                      "AVG(s.probability) as avg_probability, " +
-                      "MAX(s.probability) as max_probability, " +
-                      "MIN(s.probability) as min_probability " +
+                      "COALESCE(s.search_count, 0) as search_count, " +
+                      "s.probability_sum / NULLIF(s.search_count, 0) as avg_probability, " +
+                      "s.max_probability, " +
+                      "s.min_probability " +
                       "FROM train_info t " +
-                      "LEFT JOIN search_history s ON t.train_no = s.train_no " +
-                      "GROUP BY t.train_no " +
-                      "ORDER BY search_count DESC";
+                      "LEFT JOIN search_stats_train s ON t.train_no = s.train_no " +
+                      "ORDER BY search_count DESC, t.train_no " +
+                      "LIMIT ?";
         
-        try (Connection conn = DBConnection.getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            ResultSet rs = stmt.executeQuery(query);
+        try (Connection conn = DBConnection.getConnection("SearchHistoryDAO.getTrainPerformanceStats");
+             PreparedStatement ps = conn.prepareStatement(query)) {
             
-            while (rs.next()) {
-                Map<String, Object> stat = new HashMap<>();
-                stat.put("train_no", rs.getString("train_no"));
-                stat.put("train_name", rs.getString("train_name"));
-                stat.put("source", rs.getString("source"));
-                stat.put("destination", rs.getString("destination"));
-                stat.put("search_count", rs.getInt("search_count"));
-                stat.put("avg_probability", rs.getDouble("avg_probability"));
-                stat.put("max_probability", rs.getDouble("max_probability"));
-                stat.put("min_probability", rs.getDouble("min_probability"));
-                
-                stats.add(stat);
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    stats.add(new TrainSearchStats(
+                        CodeInterner.intern(rs.getString("train_no")),
+                        rs.getString("train_name"),
+                        rs.getString("source"),
+                        rs.getString("destination"),
+                        rs.getLong("search_count"),
+                        rs.getDouble("avg_probability"),
+                        rs.getDouble("max_probability"),
+                        rs.getDouble("min_probability")
+                    ));
+                }
             }
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving train performance statistics: " + e.getMessage());
+            LOG.error("Error retrieving train performance statistics: {}", e.getMessage());
+            return null;
         }
         
         return stats;
     }
     
+    /**
+     * Streams search_history rows to a handler without holding them in memory.
+     * Uses a forward-only, read-only statement with fetch size Integer.MIN_VALUE, which makes
+     * MySQL Connector/J stream the result row by row instead of buffering it, so memory use
+     * is constant however many rows match. The connection stays busy until the stream ends.
+     * Unlike the other methods here, errors are thrown: a caller that has started writing
+     * rows out needs to know the export is incomplete.
+     * 
+     * @param from First search date to include (by searched_at), or null for no lower bound
+     * @param to Last search date to include (by searched_at), or null for no upper bound
+     * @param trainNo Only searches for this train, or null for all trains
+     * @param handler Receives each row in turn
+     * @return Number of rows streamed
+     * @throws SQLException if the query fails
+     * @throws IOException if the handler fails
+     */
+    public long streamSearchHistory(LocalDate from, LocalDate to, String trainNo, EntryHandler handler)
+            throws SQLException, IOException {
+        StringBuilder query = new StringBuilder(
+            "SELECT search_id, user_id, train_no, journey_date, class_type, waitlist_number, probability, searched_at " +
+            "FROM search_history WHERE 1 = 1");
+        if (from != null) {
+            query.append(" AND searched_at >= ?");
+        }
+        if (to != null) {
+            query.append(" AND searched_at < ?");
+        }
+        if (trainNo != null) {
+            query.append(" AND train_no = ?");
+        }
+        
+        try (Connection conn = DBConnection.getConnection("SearchHistoryDAO.streamSearchHistory", true)) {
+            // A slow client can stall the stream; don't let the server drop it after the default 60s
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET SESSION net_write_timeout = 600");
+            }
+            try (PreparedStatement ps = conn.prepareStatement(query.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(Integer.MIN_VALUE);
+                
+                int index = 1;
+                if (from != null) {
+                    ps.setTimestamp(index++, Timestamp.valueOf(from.atStartOfDay()));
+                }
+                if (to != null) {
+                    ps.setTimestamp(index++, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+                }
+                if (trainNo != null) {
+                    ps.setString(index, trainNo);
+                }
+                
+                long count = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        SearchHistoryEntry entry = readEntry(rs);
+                        try {
+                            handler.handle(entry);
+                        } catch (IOException e) {
+                            // Closing a streaming result set reads every remaining row; kill the query first
+                            try {
+                                ps.cancel();
+                            } catch (SQLException cancelError) {
+                                LOG.error("Error cancelling search history export: {}", cancelError.getMessage());
+                            }
+                            throw e;
+                        }
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET SESSION net_write_timeout = @@GLOBAL.net_write_timeout");
+                } catch (SQLException e) {
+                    LOG.error("Error resetting net_write_timeout after export: {}", e.getMessage());
+                }
+            }
+        }
+    }
+    
     /**
      * Gets the total count of searches performed in the system.
      * 
@@ -226,9 +490,9 @@ public class SearchHistoryDAO {
      * @throws SQLException if database operation fails (caught internally)
      */
     public long getTotalSearches() {
-        String query = "SELECT COUNT(*) as total FROM search_history";
+        String query = "SELECT total_searches as total FROM search_stats_global WHERE stats_id = 1";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("SearchHistoryDAO.getTotalSearches");
              PreparedStatement ps = conn.prepareStatement(query);
              ResultSet rs = ps.executeQuery()) {
             
@@ -238,7 +502,7 @@ public class SearchHistoryDAO {
             return 0;
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving total search count: " + e.getMessage());
+            LOG.error("Error retrieving total search count: {}", e.getMessage());
             return 0;
         }
     }
@@ -250,9 +514,9 @@ public class SearchHistoryDAO {
      * @throws SQLException if database operation fails (caught internally)
      */
     public double getAverageProbability() {
-        String query = "SELECT AVG(probability) as avg_prob FROM search_history";
+        String query = "SELECT probability_sum / NULLIF(total_searches, 0) as avg_prob FROM search_stats_global WHERE stats_id = 1";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("SearchHistoryDAO.getAverageProbability");
              PreparedStatement ps = conn.prepareStatement(query);
              ResultSet rs = ps.executeQuery()) {
             
@@ -262,7 +526,7 @@ public class SearchHistoryDAO {
             return 0.0;
             
         } catch (SQLException e) {
-            System.err.println("Error calculating average probability: " + e.getMessage());
+            LOG.error("Error calculating average probability: {}", e.getMessage());
             return 0.0;
         }
     }
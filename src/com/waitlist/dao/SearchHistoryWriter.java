@@ -0,0 +1,236 @@
+package com.waitlist.dao;
+
+import com.waitlist.model.SearchRecord;
+import com.waitlist.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SearchHistoryWriter - Write-behind queue for search history
+ * Accepts search events from request threads without touching the database and writes them
+ * from a single background thread as JDBC batches. A batch is flushed when it reaches the
+ * configured size or when the oldest queued event has waited for the flush interval.
+ * When the queue is full, submit() waits briefly for space and then drops the event,
+ * counting it, so a slow database can never stall probability requests. The worker logs the
+ * number of dropped events at most once per DROP_REPORT_MILLIS instead of once per event.
+ * shutdown() wakes the worker by queueing a marker rather than interrupting it: an interrupt
+ * could land inside DBConnection.getConnection() and fail the batch being flushed.
+ */
+public class SearchHistoryWriter {
+
+    private static final Log LOG = Log.getLogger(SearchHistoryWriter.class);
+
+    private static final long DROP_REPORT_MILLIS = 10_000;
+
+    // Queued by shutdown() to wake the worker; recognised by identity and never written
+    private static final SearchRecord STOP = new SearchRecord(0, null, null, null, 0, 0.0);
+
+    private final SearchHistoryDAO searchHistoryDAO;
+    private final BlockingQueue<SearchRecord> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * Creates and starts a writer.
+     *
+     * @param searchHistoryDAO DAO used for the batched inserts
+     * @param queueCapacity Maximum number of events waiting to be written
+     * @param batchSize Maximum number of rows per JDBC batch
+     * @param flushIntervalMillis Maximum time an event waits before its batch is flushed
+     * @param offerTimeoutMillis How long submit() waits for queue space before dropping the event
+     */
+    public SearchHistoryWriter(SearchHistoryDAO searchHistoryDAO, int queueCapacity, int batchSize,
+                               long flushIntervalMillis, long offerTimeoutMillis) {
+        this.searchHistoryDAO = searchHistoryDAO;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.offerTimeoutMillis = Math.max(0, offerTimeoutMillis);
+
+        this.worker = new Thread(this::run, "search-history-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues a search event for writing.
+     *
+     * @param record The search to record
+     * @return True if queued, false if it was dropped because the queue stayed full or the writer is stopped
+     */
+    public boolean submit(SearchRecord record) {
+        if (!running) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        try {
+            if (queue.offer(record, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                submittedCount.incrementAndGet();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Stops accepting events and waits for everything already queued to be written.
+     *
+     * @param timeoutMillis Maximum time to wait for the queue to drain
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        // If the queue is full the worker is not waiting and sees running == false on its next pass
+        queue.offer(STOP);
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive() || !queue.isEmpty()) {
+            LOG.warn("Search history writer stopped with {} unwritten events", queue.size());
+        } else {
+            LOG.info("Search history writer drained: {}", this);
+        }
+    }
+
+    /**
+     * Number of events currently waiting to be written.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Number of events accepted into the queue.
+     *
+     * @return submitted event count
+     */
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    /**
+     * Number of events dropped because the queue was full or the writer was stopped.
+     *
+     * @return dropped event count
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Number of events written to search_history.
+     *
+     * @return written row count
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Number of events lost because their batch insert failed.
+     *
+     * @return failed row count
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Number of batches flushed.
+     *
+     * @return batch count
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SearchHistoryWriter{" +
+                "queued=" + getQueueDepth() +
+                ", submitted=" + getSubmittedCount() +
+                ", written=" + getWrittenCount() +
+                ", batches=" + getBatchCount() +
+                ", dropped=" + getDroppedCount() +
+                ", failed=" + getFailedCount() +
+                '}';
+    }
+
+    private void run() {
+        List<SearchRecord> batch = new ArrayList<>(batchSize);
+        long reportedDrops = 0;
+        long nextDropReport = System.nanoTime();
+        while (running || !queue.isEmpty()) {
+            try {
+                SearchRecord first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null || first == STOP) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the first event has waited long enough
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    SearchRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null || next == STOP) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Only an outside interrupt gets here; its status is now clear, so the flush can
+                // still borrow a connection
+            }
+
+            // Drain everything left without waiting once shutdown has begun
+            if (!running) {
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+            batch.remove(STOP); // drainTo may have picked up the marker
+            flush(batch);
+
+            long drops = droppedCount.get();
+            if (drops > reportedDrops && System.nanoTime() - nextDropReport >= 0) {
+                LOG.warn("{} search history events dropped, queue full", drops - reportedDrops);
+                reportedDrops = drops;
+                nextDropReport = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DROP_REPORT_MILLIS);
+            }
+        }
+    }
+
+    private void flush(List<SearchRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int written = searchHistoryDAO.saveSearches(batch);
+        writtenCount.addAndGet(written);
+        failedCount.addAndGet(batch.size() - written);
+        batchCount.incrementAndGet();
+        batch.clear();
+    }
+}
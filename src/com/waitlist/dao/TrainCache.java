@@ -0,0 +1,243 @@
+package com.waitlist.dao;
+
+import com.waitlist.model.Page;
+import com.waitlist.model.Train;
+import com.waitlist.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TrainCache - Read-through cache of train_info
+ * Holds the whole (small, rarely changing) train table as an immutable snapshot: a hash map
+ * by train number plus the list sorted by train number. Readers never lock; they just read the
+ * current snapshot. The snapshot is loaded on first use, reloaded after a TTL so changes made
+ * outside this application (or on another node) are picked up, and replaced copy-on-write when
+ * WaitlistDAO adds, updates or deletes a train.
+ * Once the TTL has passed, one thread reloads while the others keep reading the expired snapshot;
+ * only when nothing is cached yet do readers wait for the load. After a failed load no reload is
+ * attempted for RETRY_NANOS, so a database outage is not hit with a full-table query per request.
+ * The cache also owns the trigram search index over the same trains; it is rebuilt with every
+ * loaded snapshot and updated incrementally alongside put() and remove().
+ * Trains handed out by the cache are shared and must be treated as read-only.
+ */
+public class TrainCache {
+
+    private static final Log LOG = Log.getLogger(TrainCache.class);
+    private static final long TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final TrainCache INSTANCE = new TrainCache();
+
+    private final TrainSearchIndex searchIndex = new TrainSearchIndex();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+    // System.nanoTime() before which no load is attempted; moved forward by a failed load
+    private volatile long retryAt = System.nanoTime();
+
+    private TrainCache() {}
+
+    /**
+     * Returns the application-wide train cache.
+     *
+     * @return shared cache instance
+     */
+    public static TrainCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Looks up a train by number.
+     *
+     * @param trainNo Train number
+     * @param waitlistDAO DAO used to load the table on a miss of the whole snapshot
+     * @return The cached train, or null if there is no such train
+     */
+    public Train get(String trainNo, WaitlistDAO waitlistDAO) {
+        return current(waitlistDAO).byNumber.get(trainNo);
+    }
+
+    /**
+     * All trains ordered by train number.
+     *
+     * @param waitlistDAO DAO used to load the table if needed
+     * @return Unmodifiable list of trains
+     */
+    public List<Train> getAll(WaitlistDAO waitlistDAO) {
+        return current(waitlistDAO).sorted;
+    }
+
+    /**
+     * One page of trains ordered by train number, continuing after the given train number.
+     * The start position is found by binary search in the sorted snapshot.
+     *
+     * @param afterTrainNo Train number of the last train on the previous page, or null for the first page
+     * @param pageSize Maximum number of trains to return
+     * @param waitlistDAO DAO used to load the table if needed
+     * @return Page of trains with the key of the next page
+     */
+    public Page<Train> getPage(String afterTrainNo, int pageSize, WaitlistDAO waitlistDAO) {
+        List<Train> sorted = current(waitlistDAO).sorted;
+        int from = 0;
+        if (afterTrainNo != null) {
+            int low = 0;
+            int high = sorted.size();
+            while (low < high) { // first train number greater than afterTrainNo
+                int mid = (low + high) >>> 1;
+                if (sorted.get(mid).getTrainNo().compareTo(afterTrainNo) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            from = low;
+        }
+        int to = Math.min(sorted.size(), from + pageSize);
+        String nextKey = to < sorted.size() && to > from ? sorted.get(to - 1).getTrainNo() : null;
+        return new Page<>(sorted.subList(from, to), nextKey, pageSize);
+    }
+
+    /**
+     * Number of trains.
+     *
+     * @param waitlistDAO DAO used to load the table if needed
+     * @return Train count, or -1 if the table could not be loaded and nothing is cached
+     */
+    public int size(WaitlistDAO waitlistDAO) {
+        Snapshot current = current(waitlistDAO);
+        return current != Snapshot.EMPTY ? current.sorted.size() : -1;
+    }
+
+    /**
+     * Case-insensitive partial match on train number, name, source or destination.
+     *
+     * @param searchQuery The search keyword/phrase
+     * @param waitlistDAO DAO used to load the table if needed
+     * @return Matching trains, best matches first
+     */
+    public List<Train> search(String searchQuery, WaitlistDAO waitlistDAO) {
+        current(waitlistDAO);
+        return searchIndex.search(searchQuery);
+    }
+
+    /**
+     * Adds or replaces a train after it was written to the database.
+     *
+     * @param train The train as stored
+     */
+    public synchronized void put(Train train) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return; // nothing cached yet, the next read loads the table
+        }
+        Train copy = copyOf(train);
+        Map<String, Train> byNumber = new HashMap<>(current.byNumber);
+        byNumber.put(copy.getTrainNo(), copy);
+        snapshot = new Snapshot(byNumber, current.loadedAt);
+        searchIndex.put(copy);
+    }
+
+    /**
+     * Removes a train after it was deleted from the database.
+     *
+     * @param trainNo Train number
+     */
+    public synchronized void remove(String trainNo) {
+        Snapshot current = snapshot;
+        if (current == null || !current.byNumber.containsKey(trainNo)) {
+            return;
+        }
+        Map<String, Train> byNumber = new HashMap<>(current.byNumber);
+        byNumber.remove(trainNo);
+        snapshot = new Snapshot(byNumber, current.loadedAt);
+        searchIndex.remove(trainNo);
+    }
+
+    /**
+     * Drops the snapshot so the next read reloads the table.
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot current(WaitlistDAO waitlistDAO) {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.loadedAt < TTL_NANOS) {
+            return current;
+        }
+        if (System.nanoTime() - retryAt < 0) {
+            // The last load failed only recently
+            return current != null ? current : Snapshot.EMPTY;
+        }
+        if (current == null) {
+            // Nothing to serve meanwhile, so wait for the load
+            return reload(waitlistDAO);
+        }
+        if (!reloading.compareAndSet(false, true)) {
+            // Another thread is already reloading; the expired snapshot is good enough until then
+            return current;
+        }
+        try {
+            return reload(waitlistDAO);
+        } finally {
+            reloading.set(false);
+        }
+    }
+
+    private synchronized Snapshot reload(WaitlistDAO waitlistDAO) {
+        // Another thread may have reloaded, or failed to, while this one waited for the lock
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.loadedAt < TTL_NANOS) {
+            return current;
+        }
+        if (System.nanoTime() - retryAt < 0) {
+            return current != null ? current : Snapshot.EMPTY;
+        }
+
+        List<Train> trains = waitlistDAO.queryAllTrains();
+        if (trains == null) {
+            // Database unavailable: keep serving the stale snapshot if there is one, retry later
+            retryAt = System.nanoTime() + RETRY_NANOS;
+            LOG.warn("Train table could not be loaded - {}, next attempt in {}s",
+                current != null ? "serving the expired snapshot" : "no trains cached",
+                TimeUnit.NANOSECONDS.toSeconds(RETRY_NANOS));
+            return current != null ? current : Snapshot.EMPTY;
+        }
+
+        Map<String, Train> byNumber = new HashMap<>(trains.size() * 2);
+        for (Train train : trains) {
+            byNumber.put(train.getTrainNo(), train);
+        }
+        searchIndex.rebuild(byNumber.values());
+        snapshot = new Snapshot(byNumber, System.nanoTime());
+        return snapshot;
+    }
+
+    private static Train copyOf(Train train) {
+        return new Train(train.getTrainNo(), train.getTrainName(), train.getSource(), train.getDestination());
+    }
+
+    /**
+     * Immutable view of the train table at one point in time.
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyMap(), 0);
+
+        private final Map<String, Train> byNumber;
+        private final List<Train> sorted;
+        private final long loadedAt;
+
+        private Snapshot(Map<String, Train> byNumber, long loadedAt) {
+            List<Train> sorted = new ArrayList<>(byNumber.values());
+            sorted.sort(Comparator.comparing(Train::getTrainNo));
+            this.byNumber = Collections.unmodifiableMap(byNumber);
+            this.sorted = Collections.unmodifiableList(sorted);
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.waitlist.dao;
+
+import com.waitlist.model.Train;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * TrainSearchIndex - In-memory trigram index for admin train search
+ * Replaces the LIKE '%q%' scan over train_no, train_name, source and destination.
+ * Every train gets an integer document id; each lower-cased trigram of its four fields maps to
+ * the ascending list of ids containing it. A query of three or more characters intersects the
+ * posting lists of its trigrams and verifies the few survivors; shorter queries scan the
+ * (in-memory) documents directly. Matches are ranked by quality: exact train number first,
+ * then prefixes, word starts and finally plain substrings.
+ *
+ * Updates are incremental: changing or deleting a train tombstones its old document and a
+ * changed train is appended under a new id, so posting lists stay sorted without rewriting.
+ * The index compacts itself once tombstones outnumber live documents.
+ */
+public class TrainSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final int MIN_TOMBSTONES_FOR_COMPACTION = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Integer> idByTrainNo = new HashMap<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+    private int tombstones = 0;
+
+    /**
+     * Replaces the index contents with the given trains.
+     *
+     * @param trains All trains
+     */
+    public void rebuild(Collection<Train> trains) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (Train train : trains) {
+                append(train);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a new train or re-indexes a changed one.
+     *
+     * @param train The train as stored
+     */
+    public void put(Train train) {
+        lock.writeLock().lock();
+        try {
+            tombstone(train.getTrainNo());
+            append(train);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a train from the index.
+     *
+     * @param trainNo Train number
+     */
+    public void remove(String trainNo) {
+        lock.writeLock().lock();
+        try {
+            tombstone(trainNo);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Case-insensitive partial match across train number, name, source and destination.
+     *
+     * @param searchQuery The search keyword/phrase
+     * @return Matching trains, best matches first (ties ordered by train number)
+     */
+    public List<Train> search(String searchQuery) {
+        String query = searchQuery == null ? "" : searchQuery.trim().toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (query.length() < GRAM) {
+                for (Document doc : documents) {
+                    addIfMatches(doc, query, matches);
+                }
+            } else {
+                int[] candidates = candidates(query);
+                for (int id : candidates) {
+                    addIfMatches(documents.get(id), query, matches);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort((a, b) -> a.score != b.score
+                ? Integer.compare(b.score, a.score)
+                : a.doc.train.getTrainNo().compareTo(b.doc.train.getTrainNo()));
+
+        List<Train> trains = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            trains.add(match.doc.train);
+        }
+        return trains;
+    }
+
+    /**
+     * Number of live (searchable) trains.
+     *
+     * @return indexed train count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idByTrainNo.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of documents containing every trigram of the query, ascending.
+     */
+    private int[] candidates(String query) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            grams.add(query.substring(i, i + GRAM));
+        }
+
+        List<IntList> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int length = result.length;
+        for (int l = 1; l < lists.size() && length > 0; l++) {
+            length = intersect(result, length, lists.get(l));
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Intersects the first {@code length} ids of {@code ids} with a posting list, in place.
+     */
+    private static int intersect(int[] ids, int length, IntList list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < length && j < list.size; i++) {
+            while (j < list.size && list.values[j] < ids[i]) {
+                j++;
+            }
+            if (j < list.size && list.values[j] == ids[i]) {
+                ids[kept++] = ids[i];
+            }
+        }
+        return kept;
+    }
+
+    private static void addIfMatches(Document doc, String query, List<Match> matches) {
+        if (doc == null) {
+            return; // tombstone
+        }
+        int score = score(doc, query);
+        if (score > 0) {
+            matches.add(new Match(doc, score));
+        }
+    }
+
+    /**
+     * Match quality of a document for a lower-cased query; 0 means no match.
+     */
+    private static int score(Document doc, String query) {
+        if (doc.trainNo.equals(query)) {
+            return 100;
+        }
+        if (doc.trainNo.startsWith(query)) {
+            return 90;
+        }
+        int best = 0;
+        for (String field : doc.textFields) {
+            if (field.equals(query)) {
+                best = Math.max(best, 80);
+            } else if (field.startsWith(query)) {
+                best = Math.max(best, 70);
+            } else if (field.contains(" " + query)) {
+                best = Math.max(best, 60);
+            } else if (field.contains(query)) {
+                best = Math.max(best, 40);
+            }
+        }
+        if (best == 0 && doc.trainNo.contains(query)) {
+            best = 50;
+        }
+        return best;
+    }
+
+    private void append(Train train) {
+        Document doc = new Document(train);
+        int id = documents.size();
+        documents.add(doc);
+        idByTrainNo.put(train.getTrainNo(), id);
+
+        Set<String> grams = new HashSet<>();
+        collectGrams(doc.trainNo, grams);
+        for (String field : doc.textFields) {
+            collectGrams(field, grams);
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, g -> new IntList()).add(id);
+        }
+    }
+
+    private void tombstone(String trainNo) {
+        Integer id = idByTrainNo.remove(trainNo);
+        if (id != null) {
+            documents.set(id, null);
+            tombstones++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (tombstones >= MIN_TOMBSTONES_FOR_COMPACTION && tombstones > idByTrainNo.size()) {
+            List<Train> live = new ArrayList<>(idByTrainNo.size());
+            for (Document doc : documents) {
+                if (doc != null) {
+                    live.add(doc.train);
+                }
+            }
+            clear();
+            for (Train train : live) {
+                append(train);
+            }
+        }
+    }
+
+    private void clear() {
+        documents.clear();
+        idByTrainNo.clear();
+        postings.clear();
+        tombstones = 0;
+    }
+
+    private static void collectGrams(String text, Set<String> grams) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A train plus its lower-cased searchable fields.
+     */
+    private static final class Document {
+        private final Train train;
+        private final String trainNo;
+        private final String[] textFields;
+
+        private Document(Train train) {
+            this.train = train;
+            this.trainNo = lower(train.getTrainNo());
+            this.textFields = new String[] {
+                lower(train.getTrainName()), lower(train.getSource()), lower(train.getDestination())
+            };
+        }
+    }
+
+    private static final class Match {
+        private final Document doc;
+        private final int score;
+
+        private Match(Document doc, int score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Growable array of ascending document ids.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.waitlist.dao;
 
+import com.waitlist.model.Page;
 import com.waitlist.model.User;
 import com.waitlist.util.DBConnection;
-import com.waitlist.util.SecurityUtil;
+import com.waitlist.util.Log;
+import com.waitlist.util.PasswordHashingService;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * UserDAO - Data Access Object for User Operations
@@ -14,6 +17,8 @@ import java.util.List;
  * user profile management, and administrative user operations.
  */
 public class UserDAO {
+
+    private static final Log LOG = Log.getLogger(UserDAO.class);
     
     /**
      * Registers a new user in the system.
@@ -26,7 +31,7 @@ public class UserDAO {
     public boolean registerUser(User user) {
         String query = "INSERT INTO users (username, email, password_hash, role) VALUES (?, ?, ?, ?)";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("UserDAO.registerUser");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, user.getUsername());
@@ -38,7 +43,7 @@ public class UserDAO {
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error registering user: " + e.getMessage());
+            LOG.error("Error registering user: {}", e.getMessage());
             return false;
         }
     }
@@ -47,49 +52,95 @@ public class UserDAO {
      * Authenticates a user by verifying their credentials.
      * Compares the provided password against the stored password hash.
      * Updates the user's last_login timestamp upon successful authentication.
+     * Verification runs on the password hashing pool after the connection is released, and a
+     * hash from an older algorithm or lower cost is replaced with a current one.
      * 
      * @param username The username to authenticate
      * @param password The plain text password to verify
      * @return User object if authentication succeeds, null if credentials are invalid or user is inactive
+     * @throws RejectedExecutionException if the hashing pool is saturated
      * @throws SQLException if database operation fails (caught internally)
      */
     public User authenticateUser(String username, String password) {
         String query = "SELECT * FROM users WHERE username = ? AND is_active = TRUE";
+        User user = null;
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("UserDAO.authenticateUser");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, username);
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                String storedHash = rs.getString("password_hash");
-                String passwordHash = SecurityUtil.hashPassword(password);
-                
-                if (storedHash.equals(passwordHash)) {
-                    User user = new User(
-                        rs.getInt("user_id"),
-                        rs.getString("username"),
-                        rs.getString("email"),
-                        rs.getString("password_hash"),
-                        rs.getString("role"),
-                        rs.getTimestamp("created_at"),
-                        rs.getTimestamp("last_login"),
-                        rs.getBoolean("is_active")
-                    );
-                    
-                    // Update last_login timestamp
-                    updateLastLogin(user.getUserId());
-                    
-                    return user;
-                }
+                user = new User(
+                    rs.getInt("user_id"),
+                    rs.getString("username"),
+                    rs.getString("email"),
+                    rs.getString("password_hash"),
+                    rs.getString("role"),
+                    rs.getTimestamp("created_at"),
+                    rs.getTimestamp("last_login"),
+                    rs.getBoolean("is_active")
+                );
+                user.setTokenVersion(rs.getInt("token_version"));
             }
             
+        } catch (SQLException e) {
+            LOG.error("Error authenticating user: {}", e.getMessage());
             return null;
+        }
+        
+        // Hash outside the connection so a slow hash never holds a pooled connection
+        PasswordHashingService hashing = PasswordHashingService.getInstance();
+        if (user == null) {
+            // Hash anyway so an unknown username takes as long as a wrong password
+            hashing.verifyDummy(password);
+            return null;
+        }
+        if (!hashing.verify(password, user.getPasswordHash())) {
+            return null;
+        }
+        
+        if (hashing.needsRehash(user.getPasswordHash())) {
+            try {
+                String upgraded = hashing.hash(password);
+                if (updatePasswordHash(user.getUserId(), user.getPasswordHash(), upgraded)) {
+                    user.setPasswordHash(upgraded);
+                }
+            } catch (RejectedExecutionException e) {
+                // Busy - upgrade on a later login
+            }
+        }
+        
+        // Update last_login timestamp
+        updateLastLogin(user.getUserId());
+        
+        return user;
+    }
+    
+    /**
+     * Replaces a user's password hash, provided it has not changed since it was read.
+     * 
+     * @param userId The user ID
+     * @param currentHash The hash that was verified
+     * @param newHash The replacement hash
+     * @return True if the hash was replaced, false otherwise
+     * @throws SQLException if database operation fails (caught internally)
+     */
+    private boolean updatePasswordHash(int userId, String currentHash, String newHash) {
+        String query = "UPDATE users SET password_hash = ? WHERE user_id = ? AND password_hash = ?";
+        
+        try (Connection conn = DBConnection.getConnection("UserDAO.updatePasswordHash");
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            
+            ps.setString(1, newHash);
+            ps.setInt(2, userId);
+            ps.setString(3, currentHash);
+            return ps.executeUpdate() > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error authenticating user: " + e.getMessage());
-            return null;
+            LOG.error("Error upgrading password hash: {}", e.getMessage());
+            return false;
         }
     }
     
@@ -104,7 +155,7 @@ public class UserDAO {
     public boolean usernameExists(String username) {
         String query = "SELECT COUNT(*) as count FROM users WHERE username = ?";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("UserDAO.usernameExists");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, username);
@@ -115,7 +166,7 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("Error checking username availability: " + e.getMessage());
+            LOG.error("Error checking username availability: {}", e.getMessage());
         }
         
         return false;
@@ -132,7 +183,7 @@ public class UserDAO {
     public boolean emailExists(String email) {
         String query = "SELECT COUNT(*) as count FROM users WHERE email = ?";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("UserDAO.emailExists");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, email);
@@ -143,7 +194,7 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("Error checking email availability: " + e.getMessage());
+            LOG.error("Error checking email availability: {}", e.getMessage());
         }
         
         return false;
@@ -159,14 +210,14 @@ public class UserDAO {
     public User getUserById(int userId) {
         String query = "SELECT * FROM users WHERE user_id = ?";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("UserDAO.getUserById");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setInt(1, userId);
             ResultSet rs = ps.executeQuery();
             
             if (rs.next()) {
-                return new User(
+                User user = new User(
                     rs.getInt("user_id"),
                     rs.getString("username"),
                     rs.getString("email"),
@@ -176,10 +227,12 @@ public class UserDAO {
                     rs.getTimestamp("last_login"),
                     rs.getBoolean("is_active")
                 );
+                user.setTokenVersion(rs.getInt("token_version"));
+                return user;
             }
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving user by ID: " + e.getMessage());
+            LOG.error("Error retrieving user by ID: {}", e.getMessage());
         }
         
         return null;
@@ -196,7 +249,7 @@ public class UserDAO {
         List<User> users = new ArrayList<>();
         String query = "SELECT * FROM users ORDER BY created_at DESC";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("UserDAO.getAllUsers");
              Statement stmt = conn.createStatement()) {
             
             ResultSet rs = stmt.executeQuery(query);
@@ -216,12 +269,65 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving all users: " + e.getMessage());
+            LOG.error("Error retrieving all users: {}", e.getMessage());
         }
         
         return users;
     }
     
+    /**
+     * Retrieves one page of users for the admin listing, newest accounts first.
+     * Uses keyset pagination on the primary key (WHERE user_id &lt; last seen id) so every page
+     * is an index range scan, and fetches only the displayed columns - never password_hash.
+     * 
+     * @param afterUserId user_id of the last user on the previous page, or null for the first page
+     * @param pageSize Maximum number of users to return
+     * @return Page of users (password hash not populated) with the key of the next page
+     * @throws SQLException if database operation fails (caught internally)
+     */
+    public Page<User> getUsersPage(Integer afterUserId, int pageSize) {
+        List<User> users = new ArrayList<>();
+        String query = "SELECT user_id, username, email, role, created_at, last_login, is_active FROM users " +
+                      (afterUserId != null ? "WHERE user_id < ? " : "") +
+                      "ORDER BY user_id DESC LIMIT ?";
+        
+        try (Connection conn = DBConnection.getConnection("UserDAO.getUsersPage");
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            
+            int index = 1;
+            if (afterUserId != null) {
+                ps.setInt(index++, afterUserId);
+            }
+            // One extra row tells whether another page follows
+            ps.setInt(index, pageSize + 1);
+            
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    users.add(new User(
+                        rs.getInt("user_id"),
+                        rs.getString("username"),
+                        rs.getString("email"),
+                        null,
+                        rs.getString("role"),
+                        rs.getTimestamp("created_at"),
+                        rs.getTimestamp("last_login"),
+                        rs.getBoolean("is_active")
+                    ));
+                }
+            }
+            
+        } catch (SQLException e) {
+            LOG.error("Error retrieving users page: {}", e.getMessage());
+        }
+        
+        String nextKey = null;
+        if (users.size() > pageSize) {
+            users.remove(pageSize);
+            nextKey = String.valueOf(users.get(pageSize - 1).getUserId());
+        }
+        return new Page<>(users, nextKey, pageSize);
+    }
+    
     /**
      * Updates the last login timestamp for a user.
      * Called automatically after successful authentication.
@@ -234,13 +340,13 @@ public class UserDAO {
         Connection conn = null;
         
         try {
-            conn = DBConnection.getConnection();
+            conn = DBConnection.getConnection("UserDAO.updateLastLogin");
             try (PreparedStatement ps = conn.prepareStatement(query)) {
                 ps.setInt(1, userId);
                 ps.executeUpdate();
             }
         } catch (SQLException e) {
-            System.err.println("Error updating last login timestamp: " + e.getMessage());
+            LOG.error("Error updating last login timestamp: {}", e.getMessage());
         } finally {
             DBConnection.closeConnection(conn);
         }
@@ -249,15 +355,16 @@ public class UserDAO {
     /**
      * Deactivates a user account, preventing them from logging in.
      * Used for administrative user management to disable accounts.
+     * Also bumps the token version so session tokens already issued to the user stop being accepted.
      * 
      * @param userId The user ID to deactivate
      * @return True if the user was successfully deactivated, false otherwise
      * @throws SQLException if database operation fails (caught internally)
      */
     public boolean deactivateUser(int userId) {
-        String query = "UPDATE users SET is_active = FALSE WHERE user_id = ?";
+        String query = "UPDATE users SET is_active = FALSE, token_version = token_version + 1 WHERE user_id = ?";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("UserDAO.deactivateUser");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setInt(1, userId);
@@ -265,7 +372,7 @@ public class UserDAO {
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error deactivating user account: " + e.getMessage());
+            LOG.error("Error deactivating user account: {}", e.getMessage());
             return false;
         }
     }
@@ -273,6 +380,7 @@ public class UserDAO {
     /**
      * Updates a user's role for administrative purposes.
      * Allows changing user privileges between "user" and "admin" roles.
+     * Also bumps the token version so session tokens carrying the old role stop being accepted.
      * 
      * @param userId The user ID to update
      * @param role The new role ("user" or "admin")
@@ -280,9 +388,9 @@ public class UserDAO {
      * @throws SQLException if database operation fails (caught internally)
      */
     public boolean updateUserRole(int userId, String role) {
-        String query = "UPDATE users SET role = ? WHERE user_id = ?";
+        String query = "UPDATE users SET role = ?, token_version = token_version + 1 WHERE user_id = ?";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("UserDAO.updateUserRole");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, role);
@@ -291,7 +399,7 @@ public class UserDAO {
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error updating user role: " + e.getMessage());
+            LOG.error("Error updating user role: {}", e.getMessage());
             return false;
         }
     }
@@ -299,24 +407,24 @@ public class UserDAO {
     /**
      * Gets the total count of registered users in the system.
      * 
-     * @return Total number of users
+     * @return Total number of users, or null if the database could not be read
      * @throws SQLException if database operation fails (caught internally)
      */
-    public long getTotalUsers() {
+    public Long getTotalUsers() {
         String query = "SELECT COUNT(*) as total FROM users";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("UserDAO.getTotalUsers");
              PreparedStatement ps = conn.prepareStatement(query);
              ResultSet rs = ps.executeQuery()) {
             
             if (rs.next()) {
                 return rs.getLong("total");
             }
-            return 0;
+            return 0L;
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving total user count: " + e.getMessage());
-            return 0;
+            LOG.error("Error retrieving total user count: {}", e.getMessage());
+            return null;
         }
     }
 }
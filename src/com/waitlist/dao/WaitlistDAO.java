@@ -1,13 +1,18 @@
 package com.waitlist.dao;
 
+import com.waitlist.model.Page;
 import com.waitlist.model.Train;
 import com.waitlist.model.BookingHistory;
+import com.waitlist.model.ConfirmationRates;
+import com.waitlist.util.ConfirmationRateCube;
 import com.waitlist.util.DBConnection;
+import com.waitlist.util.FactorModelFitter;
+import com.waitlist.util.Log;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Date;
 
 /**
  * WaitlistDAO - Data Access Object for Waitlist Operations
@@ -16,47 +21,18 @@ import java.util.Date;
  * as well as analyzing booking history and confirmation rates.
  */
 public class WaitlistDAO {
+
+    private static final Log LOG = Log.getLogger(WaitlistDAO.class);
     
     /**
      * Retrieves train information by train number.
+     * Served from the in-memory TrainCache; the database is only read when the cache loads.
      * 
      * @param trainNo The unique train number to search for
      * @return Train object containing train details, or null if not found
-     * @throws SQLException if database operation fails (caught internally)
      */
     public Train getTrainByNumber(String trainNo) {
-        Train train = null;
-        String query = "SELECT * FROM train_info WHERE train_no = ?";
-        Connection conn = null;
-        
-        try {
-            conn = DBConnection.getConnection();
-            if (conn == null) {
-                return null;
-            }
-            
-            try (PreparedStatement ps = conn.prepareStatement(query)) {
-                ps.setString(1, trainNo);
-                
-                ResultSet rs = ps.executeQuery();
-                
-                if (rs.next()) {
-                    train = new Train(
-                        rs.getString("train_no"),
-                        rs.getString("train_name"),
-                        rs.getString("source"),
-                        rs.getString("destination")
-                    );
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error retrieving train information: " + e.getMessage());
-        } finally {
-            DBConnection.closeConnection(conn);
-        }
-        
-        return train;
+        return TrainCache.getInstance().get(trainNo, this);
     }
     
     /**
@@ -69,15 +45,15 @@ public class WaitlistDAO {
      * @return List of BookingHistory records matching the criteria
      * @throws SQLException if database operation fails (caught internally)
      */
-    public List<BookingHistory> getBookingHistory(String trainNo, Date journeyDate, String classType) {
+    public List<BookingHistory> getBookingHistory(String trainNo, LocalDate journeyDate, String classType) {
         List<BookingHistory> historyList = new ArrayList<>();
         String query = "SELECT * FROM booking_history WHERE train_no = ? AND journey_date = ? AND class_type = ?";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.getBookingHistory");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, trainNo);
-            ps.setDate(2, new java.sql.Date(journeyDate.getTime()));
+            ps.setObject(2, journeyDate);
             ps.setString(3, classType);
             
             ResultSet rs = ps.executeQuery();
@@ -86,7 +62,7 @@ public class WaitlistDAO {
                 BookingHistory history = new BookingHistory(
                     rs.getInt("id"),
                     rs.getString("train_no"),
-                    rs.getDate("journey_date"),
+                    rs.getObject("journey_date", LocalDate.class),
                     rs.getString("class_type"),
                     rs.getInt("total_wl"),
                     rs.getInt("confirmed_tickets")
@@ -95,7 +71,7 @@ public class WaitlistDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving booking history: " + e.getMessage());
+            LOG.error("Error retrieving booking history: {}", e.getMessage());
         }
         
         return historyList;
@@ -112,17 +88,17 @@ public class WaitlistDAO {
      * @return Average confirmation rate between 0.0 and 1.0, or 0.0 if no data available
      * @throws SQLException if database operation fails (caught internally)
      */
-    public double getAverageConfirmationRate(String trainNo, Date journeyDate, String classType) {
+    public double getAverageConfirmationRate(String trainNo, LocalDate journeyDate, String classType) {
         String query = "SELECT AVG(confirmed_tickets * 1.0 / total_wl) as avg_rate " +
                       "FROM booking_history " +
-                      "WHERE train_no = ? AND DATE(journey_date) = DATE(?) AND class_type = ? " +
+                      "WHERE train_no = ? AND journey_date = ? AND class_type = ? " +
                       "AND total_wl > 0";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.getAverageConfirmationRate");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, trainNo);
-            ps.setDate(2, new java.sql.Date(journeyDate.getTime()));
+            ps.setObject(2, journeyDate);
             ps.setString(3, classType);
             
             ResultSet rs = ps.executeQuery();
@@ -133,7 +109,7 @@ public class WaitlistDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("Error calculating average confirmation rate: " + e.getMessage());
+            LOG.error("Error calculating average confirmation rate: {}", e.getMessage());
         }
         
         return 0.0;
@@ -143,6 +119,8 @@ public class WaitlistDAO {
      * Retrieves historical confirmation rate based on similar dates.
      * This is useful for dates with limited booking history by using patterns
      * from same day of week and month combinations.
+     * Filters on the stored journey_dow/journey_month columns, so the query is answered from the
+     * covering index idx_rate_pattern without reading table rows.
      * 
      * @param trainNo The train number
      * @param classType The class type
@@ -155,10 +133,10 @@ public class WaitlistDAO {
         String query = "SELECT AVG(confirmed_tickets * 1.0 / total_wl) as avg_rate " +
                       "FROM booking_history " +
                       "WHERE train_no = ? AND class_type = ? " +
-                      "AND DAYOFWEEK(journey_date) = ? AND MONTH(journey_date) = ? " +
+                      "AND journey_dow = ? AND journey_month = ? " +
                       "AND total_wl > 0";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.getHistoricalConfirmationRate");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, trainNo);
@@ -174,12 +152,71 @@ public class WaitlistDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving historical confirmation rate: " + e.getMessage());
+            LOG.error("Error retrieving historical confirmation rate: {}", e.getMessage());
         }
         
         return 0.0;
     }
     
+    /**
+     * Retrieves both confirmation rates used by the probability calculation, with their sample counts,
+     * in a single query on a single connection.
+     * Every row for the exact journey date also matches its day of week and month, so the historical
+     * filter selects a superset and the date-specific figures are computed over it with CASE.
+     * The filter uses the stored journey_dow/journey_month columns and every column read (including
+     * journey_date in the CASE) is part of idx_rate_pattern, so the query is answered from that
+     * covering index without reading table rows.
+     * 
+     * @param trainNo The train number
+     * @param journeyDate The journey date
+     * @param classType The class type
+     * @param dayOfWeek Day of week of the journey date (1=Sunday, 7=Saturday)
+     * @param month Month of the journey date (1-12)
+     * @return Date-specific and historical rates with counts (all zero if no data), or null if the
+     *         database could not be read
+     * @throws SQLException if database operation fails (caught internally)
+     */
+    public ConfirmationRates getConfirmationRates(String trainNo, LocalDate journeyDate, String classType,
+                                                  int dayOfWeek, int month) {
+        String query = "SELECT " +
+                      "AVG(CASE WHEN journey_date = ? THEN confirmed_tickets * 1.0 / total_wl END) as specific_rate, " +
+                      "SUM(CASE WHEN journey_date = ? THEN 1 ELSE 0 END) as specific_count, " +
+                      "AVG(confirmed_tickets * 1.0 / total_wl) as historical_rate, " +
+                      "COUNT(*) as historical_count " +
+                      "FROM booking_history " +
+                      "WHERE train_no = ? AND class_type = ? " +
+                      "AND journey_dow = ? AND journey_month = ? " +
+                      "AND total_wl > 0";
+        
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.getConfirmationRates");
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            
+            ps.setObject(1, journeyDate);
+            ps.setObject(2, journeyDate);
+            ps.setString(3, trainNo);
+            ps.setString(4, classType);
+            ps.setInt(5, dayOfWeek);
+            ps.setInt(6, month);
+            
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new ConfirmationRates(
+                        rs.getDouble("specific_rate"),
+                        rs.getLong("specific_count"),
+                        rs.getDouble("historical_rate"),
+                        rs.getLong("historical_count")
+                    );
+                }
+            }
+            
+        } catch (SQLException e) {
+            LOG.error("Error retrieving confirmation rates: {}", e.getMessage());
+            return null;
+        }
+        
+        return new ConfirmationRates(0.0, 0, 0.0, 0);
+    }
+    
     /**
      * Adds a new booking history record to the database.
      * 
@@ -191,79 +228,210 @@ public class WaitlistDAO {
         String query = "INSERT INTO booking_history (train_no, journey_date, class_type, total_wl, confirmed_tickets) " +
                       "VALUES (?, ?, ?, ?, ?)";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.addBookingHistory");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, history.getTrainNo());
-            ps.setDate(2, new java.sql.Date(history.getJourneyDate().getTime()));
+            ps.setObject(2, history.getJourneyDate());
             ps.setString(3, history.getClassType());
             ps.setInt(4, history.getTotalWl());
             ps.setInt(5, history.getConfirmedTickets());
             
             int rowsAffected = ps.executeUpdate();
+            if (rowsAffected > 0) {
+                // Keep the in-memory rate cube in step with the table
+                ConfirmationRateCube.getInstance().addBooking(history.getTrainNo(), history.getJourneyDate(),
+                        history.getClassType(), history.getTotalWl(), history.getConfirmedTickets());
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error adding booking history record: " + e.getMessage());
+            LOG.error("Error adding booking history record: {}", e.getMessage());
             return false;
         }
     }
     
     /**
-     * Retrieves all trains from the database.
+     * Adds a batch of booking history records in one JDBC batch and one transaction.
+     * Used by BookingHistoryImporter; with rewriteBatchedStatements enabled on the connection
+     * URL the driver sends the batch as multi-row INSERT statements. The rate cube is updated
+     * once for the whole batch after it commits.
      * 
-     * @return List of all Train objects ordered by train number
+     * @param records The booking history records to add
+     * @return Number of rows added (0 if the batch failed and was rolled back)
      * @throws SQLException if database operation fails (caught internally)
      */
-    public List<Train> getAllTrains() {
-        List<Train> trains = new ArrayList<>();
-        String query = "SELECT * FROM train_info ORDER BY train_no";
+    public int addBookingHistoryBatch(List<BookingHistory> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        String query = "INSERT INTO booking_history (train_no, journey_date, class_type, total_wl, confirmed_tickets) " +
+                      "VALUES (?, ?, ?, ?, ?)";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.addBookingHistoryBatch", true)) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(query)) {
+                for (BookingHistory history : records) {
+                    ps.setString(1, history.getTrainNo());
+                    ps.setObject(2, history.getJourneyDate());
+                    ps.setString(3, history.getClassType());
+                    ps.setInt(4, history.getTotalWl());
+                    ps.setInt(5, history.getConfirmedTickets());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            
+            ConfirmationRateCube.getInstance().addBookings(records);
+            return records.size();
+            
+        } catch (SQLException e) {
+            LOG.error("Error adding booking history batch of {}: {}", records.size(), e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Loads per-date confirmation rate sums and counts from booking_history into a rate cube.
+     * Rows are pre-aggregated by train, class and date in SQL so only one row per date is transferred.
+     * 
+     * @param cube The cube to populate
+     * @return True if the data was loaded successfully, false otherwise
+     * @throws SQLException if database operation fails (caught internally)
+     */
+    public boolean loadConfirmationRates(ConfirmationRateCube cube) {
+        String query = "SELECT train_no, class_type, journey_date, " +
+                      "SUM(confirmed_tickets * 1.0 / total_wl) as rate_sum, COUNT(*) as rate_count " +
+                      "FROM booking_history " +
+                      "WHERE total_wl > 0 " +
+                      "GROUP BY train_no, class_type, journey_date";
+        
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.loadConfirmationRates", true);
              PreparedStatement ps = conn.prepareStatement(query);
              ResultSet rs = ps.executeQuery()) {
             
             while (rs.next()) {
-                Train train = new Train(
+                cube.addAggregate(
                     rs.getString("train_no"),
-                    rs.getString("train_name"),
-                    rs.getString("source"),
-                    rs.getString("destination")
+                    rs.getString("class_type"),
+                    rs.getObject("journey_date", LocalDate.class),
+                    rs.getDouble("rate_sum"),
+                    rs.getLong("rate_count")
                 );
-                trains.add(train);
             }
+            return true;
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving all trains: " + e.getMessage());
+            LOG.error("Error loading confirmation rates: {}", e.getMessage());
+            return false;
         }
+    }
+    
+    /**
+     * Loads booking_history into a factor model fitter.
+     * Rows are grouped in SQL by train, class, month, waitlist length and confirmed count, so
+     * repeated combinations are transferred once with their row count.
+     * 
+     * @param fitter The fitter to populate
+     * @return True if the data was loaded successfully, false otherwise
+     * @throws SQLException if database operation fails (caught internally)
+     */
+    public boolean loadFactorObservations(FactorModelFitter fitter) {
+        String query = "SELECT train_no, class_type, journey_month, total_wl, confirmed_tickets, COUNT(*) as row_count " +
+                      "FROM booking_history " +
+                      "WHERE total_wl > 0 " +
+                      "GROUP BY train_no, class_type, journey_month, total_wl, confirmed_tickets";
         
-        return trains;
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.loadFactorObservations", true);
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet rs = ps.executeQuery()) {
+            
+            while (rs.next()) {
+                fitter.addObservation(
+                    rs.getString("train_no"),
+                    rs.getString("class_type"),
+                    rs.getInt("journey_month"),
+                    rs.getInt("total_wl"),
+                    rs.getInt("confirmed_tickets"),
+                    rs.getLong("row_count")
+                );
+            }
+            return true;
+            
+        } catch (SQLException e) {
+            LOG.error("Error loading factor observations: {}", e.getMessage());
+            return false;
+        }
     }
     
     /**
-     * Gets the total count of trains in the database.
+     * Retrieves all trains.
+     * Served from the in-memory TrainCache.
      * 
-     * @return Total number of trains
+     * @return Unmodifiable list of all Train objects ordered by train number
+     */
+    public List<Train> getAllTrains() {
+        return TrainCache.getInstance().getAll(this);
+    }
+    
+    /**
+     * Retrieves one page of trains ordered by train number (keyset pagination on train_no).
+     * Served from the in-memory TrainCache.
+     * 
+     * @param afterTrainNo Train number of the last train on the previous page, or null for the first page
+     * @param pageSize Maximum number of trains to return
+     * @return Page of trains with the key of the next page
+     */
+    public Page<Train> getTrainsPage(String afterTrainNo, int pageSize) {
+        return TrainCache.getInstance().getPage(afterTrainNo, pageSize, this);
+    }
+    
+    /**
+     * Loads the full train table from the database. Used by TrainCache to (re)build its snapshot.
+     * 
+     * @return List of all Train objects ordered by train number, or null if the query failed
      * @throws SQLException if database operation fails (caught internally)
      */
-    public long getTotalTrains() {
-        String query = "SELECT COUNT(*) as total FROM train_info";
+    List<Train> queryAllTrains() {
+        List<Train> trains = new ArrayList<>();
+        String query = "SELECT train_no, train_name, source, destination FROM train_info ORDER BY train_no";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.queryAllTrains");
              PreparedStatement ps = conn.prepareStatement(query);
              ResultSet rs = ps.executeQuery()) {
             
-            if (rs.next()) {
-                return rs.getLong("total");
+            while (rs.next()) {
+                Train train = new Train(
+                    rs.getString("train_no"),
+                    rs.getString("train_name"),
+                    rs.getString("source"),
+                    rs.getString("destination")
+                );
+                trains.add(train);
             }
-            return 0;
+            return trains;
             
         } catch (SQLException e) {
-            System.err.println("Error retrieving total train count: " + e.getMessage());
-            return 0;
+            LOG.error("Error retrieving all trains: {}", e.getMessage());
+            return null;
         }
     }
     
+    /**
+     * Gets the total count of trains.
+     * Served from the in-memory TrainCache.
+     * 
+     * @return Total number of trains, or null if the train table has never been loaded
+     */
+    public Long getTotalTrains() {
+        int size = TrainCache.getInstance().size(this);
+        return size >= 0 ? Long.valueOf(size) : null;
+    }
+    
     /**
      * Adds a new train to the database.
      * 
@@ -277,7 +445,7 @@ public class WaitlistDAO {
     public boolean addTrain(String trainNo, String trainName, String source, String destination) {
         String query = "INSERT INTO train_info (train_no, train_name, source, destination) VALUES (?, ?, ?, ?)";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.addTrain");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, trainNo);
@@ -286,10 +454,13 @@ public class WaitlistDAO {
             ps.setString(4, destination);
             
             int rowsAffected = ps.executeUpdate();
+            if (rowsAffected > 0) {
+                TrainCache.getInstance().put(new Train(trainNo, trainName, source, destination));
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error adding train: " + e.getMessage());
+            LOG.error("Error adding train: {}", e.getMessage());
             return false;
         }
     }
@@ -304,15 +475,22 @@ public class WaitlistDAO {
     public boolean deleteTrain(String trainNo) {
         String query = "DELETE FROM train_info WHERE train_no = ?";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.deleteTrain");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, trainNo);
             int rowsAffected = ps.executeUpdate();
+            if (rowsAffected > 0) {
+                TrainCache.getInstance().remove(trainNo);
+                // booking_history rows are removed by ON DELETE CASCADE
+                ConfirmationRateCube.getInstance().removeTrain(trainNo);
+                // So are its search_history and search_stats_train rows; bring the totals in line
+                new SearchHistoryDAO().refreshGlobalStatistics();
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error deleting train: " + e.getMessage());
+            LOG.error("Error deleting train: {}", e.getMessage());
             return false;
         }
     }
@@ -330,7 +508,7 @@ public class WaitlistDAO {
     public boolean updateTrain(String trainNo, String trainName, String source, String destination) {
         String query = "UPDATE train_info SET train_name = ?, source = ?, destination = ? WHERE train_no = ?";
         
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection("WaitlistDAO.updateTrain");
              PreparedStatement ps = conn.prepareStatement(query)) {
             
             ps.setString(1, trainName);
@@ -339,77 +517,27 @@ public class WaitlistDAO {
             ps.setString(4, trainNo);
             
             int rowsAffected = ps.executeUpdate();
+            if (rowsAffected > 0) {
+                TrainCache.getInstance().put(new Train(trainNo, trainName, source, destination));
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error updating train information: " + e.getMessage());
+            LOG.error("Error updating train information: {}", e.getMessage());
             return false;
         }
     }
     
     /**
      * Searches for trains by matching multiple fields.
-     * Searches across train number, train name, source, and destination fields.
+     * Searches across train number, train name, source, and destination fields
+     * (case-insensitive) using the in-memory trigram index kept by TrainCache.
      * 
      * @param searchQuery The search keyword/phrase
-     * @return List of Train objects matching the search criteria
-     * @throws SQLException if database operation fails (caught internally)
+     * @return List of Train objects matching the search criteria, best matches first
      */
     public List<Train> searchTrains(String searchQuery) {
-        List<Train> trains = new ArrayList<>();
-        String query = "SELECT * FROM train_info WHERE train_no LIKE ? OR train_name LIKE ? OR source LIKE ? OR destination LIKE ? ORDER BY train_no";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
-            
-            String likeQuery = "%" + searchQuery + "%";
-            ps.setString(1, likeQuery);
-            ps.setString(2, likeQuery);
-            ps.setString(3, likeQuery);
-            ps.setString(4, likeQuery);
-            
-            ResultSet rs = ps.executeQuery();
-            
-            while (rs.next()) {
-                Train train = new Train(
-                    rs.getString("train_no"),
-                    rs.getString("train_name"),
-                    rs.getString("source"),
-                    rs.getString("destination")
-                );
-                trains.add(train);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error searching trains: " + e.getMessage());
-        }
-        
-        return trains;
-    }
-    
-    /**
-     * Calculates the average probability from all search history records.
-     * This provides an overall average of the confirmation probabilities calculated.
-     * 
-     * @return Average probability value, or 0.0 if no data available
-     * @throws SQLException if database operation fails (caught internally)
-     */
-    public double getAverageProbability() {
-        String query = "SELECT AVG(probability) as avg_prob FROM search_history";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query);
-             ResultSet rs = ps.executeQuery()) {
-            
-            if (rs.next()) {
-                return rs.getDouble("avg_prob");
-            }
-            return 0.0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error calculating average probability: " + e.getMessage());
-            return 0.0;
-        }
+        return TrainCache.getInstance().search(searchQuery, this);
     }
 }
 
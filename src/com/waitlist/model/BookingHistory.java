@@ -1,6 +1,6 @@
 package com.waitlist.model;
 
-import java.util.Date;
+import java.time.LocalDate;
 
 /**
  * BookingHistory Model Class
@@ -10,7 +10,7 @@ import java.util.Date;
 public class BookingHistory {
     private int id;
     private String trainNo;
-    private Date journeyDate;
+    private LocalDate journeyDate;
     private String classType;
     private int totalWl;
     private int confirmedTickets;
@@ -30,7 +30,7 @@ public class BookingHistory {
      * @param totalWl Total number of waitlist entries
      * @param confirmedTickets Number of tickets confirmed from the waitlist
      */
-    public BookingHistory(int id, String trainNo, Date journeyDate, String classType, 
+    public BookingHistory(int id, String trainNo, LocalDate journeyDate, String classType, 
                          int totalWl, int confirmedTickets) {
         this.id = id;
         this.trainNo = trainNo;
@@ -81,7 +81,7 @@ public class BookingHistory {
      * 
      * @return Date of the journey
      */
-    public Date getJourneyDate() {
+    public LocalDate getJourneyDate() {
         return journeyDate;
     }
     
@@ -90,7 +90,7 @@ public class BookingHistory {
      * 
      * @param journeyDate Date of the journey
      */
-    public void setJourneyDate(Date journeyDate) {
+    public void setJourneyDate(LocalDate journeyDate) {
         this.journeyDate = journeyDate;
     }
     
@@ -0,0 +1,75 @@
+package com.waitlist.model;
+
+/**
+ * ConfirmationRates Model Class
+ * Holds the two confirmation rates behind a probability calculation together with the
+ * number of booking_history rows each one was averaged over, so the calculator can weight
+ * them by how much evidence supports them.
+ */
+public class ConfirmationRates {
+    private final double specificRate;
+    private final long specificCount;
+    private final double historicalRate;
+    private final long historicalCount;
+
+    /**
+     * Constructor with both rates and their sample counts.
+     *
+     * @param specificRate Average confirmation rate on the exact journey date (0.0 to 1.0)
+     * @param specificCount Number of rows behind the date-specific rate
+     * @param historicalRate Average confirmation rate on the same day of week and month (0.0 to 1.0)
+     * @param historicalCount Number of rows behind the historical rate
+     */
+    public ConfirmationRates(double specificRate, long specificCount, double historicalRate, long historicalCount) {
+        this.specificRate = specificRate;
+        this.specificCount = specificCount;
+        this.historicalRate = historicalRate;
+        this.historicalCount = historicalCount;
+    }
+
+    /**
+     * Gets the date-specific confirmation rate.
+     *
+     * @return Average rate on the journey date, or 0.0 if there is no data
+     */
+    public double getSpecificRate() {
+        return specificRate;
+    }
+
+    /**
+     * Gets the number of rows behind the date-specific rate.
+     *
+     * @return Sample count for the journey date
+     */
+    public long getSpecificCount() {
+        return specificCount;
+    }
+
+    /**
+     * Gets the day-of-week/month historical confirmation rate.
+     *
+     * @return Average rate over similar dates, or 0.0 if there is no data
+     */
+    public double getHistoricalRate() {
+        return historicalRate;
+    }
+
+    /**
+     * Gets the number of rows behind the historical rate.
+     *
+     * @return Sample count for similar dates
+     */
+    public long getHistoricalCount() {
+        return historicalCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfirmationRates{" +
+                "specificRate=" + specificRate +
+                ", specificCount=" + specificCount +
+                ", historicalRate=" + historicalRate +
+                ", historicalCount=" + historicalCount +
+                '}';
+    }
+}
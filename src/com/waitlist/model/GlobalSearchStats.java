@@ -0,0 +1,87 @@
+package com.waitlist.model;
+
+/**
+ * GlobalSearchStats Model Class
+ * System-wide search_history figures for the admin and statistics pages.
+ */
+public class GlobalSearchStats {
+    private final long totalUsers;
+    private final long totalSearches;
+    private final double avgProbability;
+    private final double maxProbability;
+    private final double minProbability;
+
+    /**
+     * Constructor with all statistics.
+     *
+     * @param totalUsers Number of distinct users who searched
+     * @param totalSearches Number of searches
+     * @param avgProbability Average calculated probability
+     * @param maxProbability Highest calculated probability
+     * @param minProbability Lowest calculated probability
+     */
+    public GlobalSearchStats(long totalUsers, long totalSearches, double avgProbability,
+                             double maxProbability, double minProbability) {
+        this.totalUsers = totalUsers;
+        this.totalSearches = totalSearches;
+        this.avgProbability = avgProbability;
+        this.maxProbability = maxProbability;
+        this.minProbability = minProbability;
+    }
+
+    /**
+     * Gets the number of distinct users who searched.
+     *
+     * @return Searching user count
+     */
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    /**
+     * Gets the number of searches.
+     *
+     * @return Search count
+     */
+    public long getTotalSearches() {
+        return totalSearches;
+    }
+
+    /**
+     * Gets the average calculated probability.
+     *
+     * @return Average probability percentage
+     */
+    public double getAvgProbability() {
+        return avgProbability;
+    }
+
+    /**
+     * Gets the highest calculated probability.
+     *
+     * @return Maximum probability percentage
+     */
+    public double getMaxProbability() {
+        return maxProbability;
+    }
+
+    /**
+     * Gets the lowest calculated probability.
+     *
+     * @return Minimum probability percentage
+     */
+    public double getMinProbability() {
+        return minProbability;
+    }
+
+    @Override
+    public String toString() {
+        return "GlobalSearchStats{" +
+                "totalUsers=" + totalUsers +
+                ", totalSearches=" + totalSearches +
+                ", avgProbability=" + avgProbability +
+                ", maxProbability=" + maxProbability +
+                ", minProbability=" + minProbability +
+                '}';
+    }
+}
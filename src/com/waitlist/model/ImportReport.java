@@ -0,0 +1,126 @@
+package com.waitlist.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ImportReport Model Class
+ * Outcome of one booking_history bulk import: how many rows were read, written, rejected
+ * by validation or lost to failed batches, how long it took, and the first few reject reasons.
+ */
+public class ImportReport {
+    private final long rowsRead;
+    private final long rowsImported;
+    private final long rowsRejected;
+    private final long rowsFailed;
+    private final long batches;
+    private final long elapsedMillis;
+    private final List<String> rejectSamples;
+
+    /**
+     * Constructor with all import results.
+     *
+     * @param rowsRead Data rows read from the input (header and blank lines excluded)
+     * @param rowsImported Rows written to booking_history
+     * @param rowsRejected Rows that failed validation
+     * @param rowsFailed Valid rows lost because their batch insert failed
+     * @param batches Number of batches written
+     * @param elapsedMillis Wall-clock duration of the import
+     * @param rejectSamples Reasons for the first rejected rows ("line N: reason")
+     */
+    public ImportReport(long rowsRead, long rowsImported, long rowsRejected, long rowsFailed,
+                        long batches, long elapsedMillis, List<String> rejectSamples) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.rowsFailed = rowsFailed;
+        this.batches = batches;
+        this.elapsedMillis = elapsedMillis;
+        this.rejectSamples = Collections.unmodifiableList(rejectSamples);
+    }
+
+    /**
+     * Gets the number of data rows read.
+     *
+     * @return Rows read from the input
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Gets the number of rows written.
+     *
+     * @return Rows written to booking_history
+     */
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    /**
+     * Gets the number of rows rejected by validation.
+     *
+     * @return Rejected row count
+     */
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    /**
+     * Gets the number of valid rows lost to failed batches.
+     *
+     * @return Failed row count
+     */
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    /**
+     * Gets the number of batches written.
+     *
+     * @return Batch count
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Gets the import duration.
+     *
+     * @return Elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the import throughput.
+     *
+     * @return Rows read per second
+     */
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rowsRead : rowsRead * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Gets the reasons for the first rejected rows.
+     *
+     * @return Unmodifiable list of "line N: reason" messages
+     */
+    public List<String> getRejectSamples() {
+        return rejectSamples;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "rowsRead=" + rowsRead +
+                ", rowsImported=" + rowsImported +
+                ", rowsRejected=" + rowsRejected +
+                ", rowsFailed=" + rowsFailed +
+                ", batches=" + batches +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + String.format("%.0f", getRowsPerSecond()) +
+                '}';
+    }
+}
@@ -0,0 +1,76 @@
+package com.waitlist.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page Model Class
+ * One page of a keyset-paginated listing: the items plus the key to continue after.
+ * The next page is requested with the key of the last item shown, so a page costs the
+ * same however deep into the listing it is and rows inserted meanwhile don't shift it.
+ *
+ * @param <T> Item type
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextKey;
+    private final int pageSize;
+
+    /**
+     * Constructor with the page contents.
+     *
+     * @param items Items on this page
+     * @param nextKey Key to pass to fetch the following page, or null if this is the last page
+     * @param pageSize Requested page size
+     */
+    public Page(List<T> items, String nextKey, int pageSize) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextKey = nextKey;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Gets the items on this page.
+     *
+     * @return Unmodifiable list of items
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the key of the following page.
+     *
+     * @return Key to continue after, or null on the last page
+     */
+    public String getNextKey() {
+        return nextKey;
+    }
+
+    /**
+     * Whether there is a following page.
+     *
+     * @return true if more items follow
+     */
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+
+    /**
+     * Gets the requested page size.
+     *
+     * @return Page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items.size() +
+                ", nextKey='" + nextKey + '\'' +
+                ", pageSize=" + pageSize +
+                '}';
+    }
+}
@@ -0,0 +1,129 @@
+package com.waitlist.model;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * SearchHistoryEntry Model Class
+ * One stored row of search_history, as read back for exports and history views.
+ */
+public class SearchHistoryEntry {
+    private final long searchId;
+    private final int userId;
+    private final String trainNo;
+    private final LocalDate journeyDate;
+    private final String classType;
+    private final int waitlistNumber;
+    private final double probability;
+    private final Date searchedAt;
+
+    /**
+     * Constructor with all stored columns.
+     *
+     * @param searchId Unique search identifier
+     * @param userId The user who searched
+     * @param trainNo The train number searched
+     * @param journeyDate The journey date searched
+     * @param classType The class type searched
+     * @param waitlistNumber The waitlist position used in calculation
+     * @param probability The calculated confirmation probability
+     * @param searchedAt When the search happened
+     */
+    public SearchHistoryEntry(long searchId, int userId, String trainNo, LocalDate journeyDate, String classType,
+                              int waitlistNumber, double probability, Date searchedAt) {
+        this.searchId = searchId;
+        this.userId = userId;
+        this.trainNo = trainNo;
+        this.journeyDate = journeyDate;
+        this.classType = classType;
+        this.waitlistNumber = waitlistNumber;
+        this.probability = probability;
+        this.searchedAt = searchedAt;
+    }
+
+    /**
+     * Gets the search ID.
+     *
+     * @return Unique search identifier
+     */
+    public long getSearchId() {
+        return searchId;
+    }
+
+    /**
+     * Gets the user ID.
+     *
+     * @return The user who searched
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the train number.
+     *
+     * @return The train number searched
+     */
+    public String getTrainNo() {
+        return trainNo;
+    }
+
+    /**
+     * Gets the journey date.
+     *
+     * @return The journey date searched
+     */
+    public LocalDate getJourneyDate() {
+        return journeyDate;
+    }
+
+    /**
+     * Gets the class type.
+     *
+     * @return The class type searched
+     */
+    public String getClassType() {
+        return classType;
+    }
+
+    /**
+     * Gets the waitlist number.
+     *
+     * @return The waitlist position used in calculation
+     */
+    public int getWaitlistNumber() {
+        return waitlistNumber;
+    }
+
+    /**
+     * Gets the calculated probability.
+     *
+     * @return The calculated confirmation probability
+     */
+    public double getProbability() {
+        return probability;
+    }
+
+    /**
+     * Gets the search time.
+     *
+     * @return When the search happened
+     */
+    public Date getSearchedAt() {
+        return searchedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchHistoryEntry{" +
+                "searchId=" + searchId +
+                ", userId=" + userId +
+                ", trainNo='" + trainNo + '\'' +
+                ", journeyDate=" + journeyDate +
+                ", classType='" + classType + '\'' +
+                ", waitlistNumber=" + waitlistNumber +
+                ", probability=" + probability +
+                ", searchedAt=" + searchedAt +
+                '}';
+    }
+}
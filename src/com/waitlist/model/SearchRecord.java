@@ -0,0 +1,103 @@
+package com.waitlist.model;
+
+import java.time.LocalDate;
+
+/**
+ * SearchRecord Model Class
+ * An immutable probability search event waiting to be written to search_history.
+ * Created on the request thread and handed to the background history writer.
+ */
+public class SearchRecord {
+    private final int userId;
+    private final String trainNo;
+    private final LocalDate journeyDate;
+    private final String classType;
+    private final int waitlistNumber;
+    private final double probability;
+
+    /**
+     * Constructor with all search details.
+     *
+     * @param userId The user ID performing the search
+     * @param trainNo The train number being searched
+     * @param journeyDate The journey date
+     * @param classType The class type (e.g., "1AC", "2AC", "3AC", "Sleeper")
+     * @param waitlistNumber The waitlist position used in calculation
+     * @param probability The calculated confirmation probability
+     */
+    public SearchRecord(int userId, String trainNo, LocalDate journeyDate, String classType,
+                        int waitlistNumber, double probability) {
+        this.userId = userId;
+        this.trainNo = trainNo;
+        this.journeyDate = journeyDate;
+        this.classType = classType;
+        this.waitlistNumber = waitlistNumber;
+        this.probability = probability;
+    }
+
+    /**
+     * Gets the user ID.
+     *
+     * @return The user ID performing the search
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the train number.
+     *
+     * @return The train number being searched
+     */
+    public String getTrainNo() {
+        return trainNo;
+    }
+
+    /**
+     * Gets the journey date.
+     *
+     * @return The journey date (format: dd-MM-yyyy)
+     */
+    public LocalDate getJourneyDate() {
+        return journeyDate;
+    }
+
+    /**
+     * Gets the class type.
+     *
+     * @return The class type
+     */
+    public String getClassType() {
+        return classType;
+    }
+
+    /**
+     * Gets the waitlist number.
+     *
+     * @return The waitlist position used in calculation
+     */
+    public int getWaitlistNumber() {
+        return waitlistNumber;
+    }
+
+    /**
+     * Gets the calculated probability.
+     *
+     * @return The calculated confirmation probability
+     */
+    public double getProbability() {
+        return probability;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchRecord{" +
+                "userId=" + userId +
+                ", trainNo='" + trainNo + '\'' +
+                ", journeyDate=" + journeyDate +
+                ", classType='" + classType + '\'' +
+                ", waitlistNumber=" + waitlistNumber +
+                ", probability=" + probability +
+                '}';
+    }
+}
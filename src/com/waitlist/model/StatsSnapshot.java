@@ -0,0 +1,105 @@
+package com.waitlist.model;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * StatsSnapshot Model Class
+ * Immutable set of admin statistics computed together at one point in time.
+ * Admin pages render from the latest snapshot instead of querying on every view.
+ */
+public class StatsSnapshot {
+    private final long totalUsers;
+    private final long totalTrains;
+    private final GlobalSearchStats searchStats;
+    private final List<TrainSearchStats> topTrains;
+    private final Date computedAt;
+    private final long computeMillis;
+
+    /**
+     * Constructor with all metrics.
+     *
+     * @param totalUsers Number of registered users
+     * @param totalTrains Number of trains
+     * @param searchStats System-wide search statistics
+     * @param topTrains Most searched trains, highest first
+     * @param computedAt When the snapshot was computed
+     * @param computeMillis How long computing it took
+     */
+    public StatsSnapshot(long totalUsers, long totalTrains, GlobalSearchStats searchStats,
+                         List<TrainSearchStats> topTrains, Date computedAt, long computeMillis) {
+        this.totalUsers = totalUsers;
+        this.totalTrains = totalTrains;
+        this.searchStats = searchStats;
+        this.topTrains = Collections.unmodifiableList(topTrains);
+        this.computedAt = new Date(computedAt.getTime());
+        this.computeMillis = computeMillis;
+    }
+
+    /**
+     * Gets the number of registered users.
+     *
+     * @return Total users
+     */
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    /**
+     * Gets the number of trains.
+     *
+     * @return Total trains
+     */
+    public long getTotalTrains() {
+        return totalTrains;
+    }
+
+    /**
+     * Gets the system-wide search statistics.
+     *
+     * @return Search statistics
+     */
+    public GlobalSearchStats getSearchStats() {
+        return searchStats;
+    }
+
+    /**
+     * Gets the most searched trains.
+     *
+     * @return Unmodifiable list, highest search count first
+     */
+    public List<TrainSearchStats> getTopTrains() {
+        return topTrains;
+    }
+
+    /**
+     * Gets when the snapshot was computed.
+     *
+     * @return Computation time
+     */
+    public Date getComputedAt() {
+        return new Date(computedAt.getTime());
+    }
+
+    /**
+     * Gets how long computing the snapshot took.
+     *
+     * @return Duration in milliseconds
+     */
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "StatsSnapshot{" +
+                "totalUsers=" + totalUsers +
+                ", totalTrains=" + totalTrains +
+                ", searchStats=" + searchStats +
+                ", topTrains=" + topTrains.size() +
+                ", computedAt=" + computedAt +
+                ", computeMillis=" + computeMillis +
+                '}';
+    }
+}
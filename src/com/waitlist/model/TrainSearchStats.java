@@ -0,0 +1,125 @@
+package com.waitlist.model;
+
+/**
+ * TrainSearchStats Model Class
+ * Search activity for one train: how often it was searched and the spread of the
+ * probabilities calculated for it. Immutable row of the train performance report.
+ */
+public class TrainSearchStats {
+    private final String trainNo;
+    private final String trainName;
+    private final String source;
+    private final String destination;
+    private final long searchCount;
+    private final double avgProbability;
+    private final double maxProbability;
+    private final double minProbability;
+
+    /**
+     * Constructor with all statistics.
+     *
+     * @param trainNo Train number
+     * @param trainName Train name
+     * @param source Source station
+     * @param destination Destination station
+     * @param searchCount Number of searches for the train
+     * @param avgProbability Average calculated probability (0 if never searched)
+     * @param maxProbability Highest calculated probability (0 if never searched)
+     * @param minProbability Lowest calculated probability (0 if never searched)
+     */
+    public TrainSearchStats(String trainNo, String trainName, String source, String destination,
+                            long searchCount, double avgProbability, double maxProbability, double minProbability) {
+        this.trainNo = trainNo;
+        this.trainName = trainName;
+        this.source = source;
+        this.destination = destination;
+        this.searchCount = searchCount;
+        this.avgProbability = avgProbability;
+        this.maxProbability = maxProbability;
+        this.minProbability = minProbability;
+    }
+
+    /**
+     * Gets the train number.
+     *
+     * @return Train number
+     */
+    public String getTrainNo() {
+        return trainNo;
+    }
+
+    /**
+     * Gets the train name.
+     *
+     * @return Train name
+     */
+    public String getTrainName() {
+        return trainName;
+    }
+
+    /**
+     * Gets the source station.
+     *
+     * @return Source station
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the destination station.
+     *
+     * @return Destination station
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Gets the number of searches.
+     *
+     * @return Search count
+     */
+    public long getSearchCount() {
+        return searchCount;
+    }
+
+    /**
+     * Gets the average calculated probability.
+     *
+     * @return Average probability percentage
+     */
+    public double getAvgProbability() {
+        return avgProbability;
+    }
+
+    /**
+     * Gets the highest calculated probability.
+     *
+     * @return Maximum probability percentage
+     */
+    public double getMaxProbability() {
+        return maxProbability;
+    }
+
+    /**
+     * Gets the lowest calculated probability.
+     *
+     * @return Minimum probability percentage
+     */
+    public double getMinProbability() {
+        return minProbability;
+    }
+
+    @Override
+    public String toString() {
+        return "TrainSearchStats{" +
+                "trainNo='" + trainNo + '\'' +
+                ", trainName='" + trainName + '\'' +
+                ", searchCount=" + searchCount +
+                ", avgProbability=" + avgProbability +
+                ", maxProbability=" + maxProbability +
+                ", minProbability=" + minProbability +
+                '}';
+    }
+}
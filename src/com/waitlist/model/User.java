@@ -16,6 +16,7 @@ public class User {
     private Date createdAt;
     private Date lastLogin;
     private boolean isActive;
+    private int tokenVersion; // bumped to revoke issued session tokens
     
     /**
      * Default constructor for creating User objects.
@@ -206,6 +207,25 @@ public class User {
         isActive = active;
     }
     
+    /**
+     * Gets the session token version.
+     * Session tokens carry the version they were issued with and are refused once it changes.
+     * 
+     * @return Current session token version
+     */
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+    
+    /**
+     * Sets the session token version.
+     * 
+     * @param tokenVersion Current session token version
+     */
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+    
     /**
      * Checks if the user has admin privileges.
      * 
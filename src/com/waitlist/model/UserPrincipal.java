@@ -0,0 +1,112 @@
+package com.waitlist.model;
+
+import java.io.Serializable;
+
+/**
+ * UserPrincipal Model Class
+ * The signed-in user as seen by request handling: identity, role and the token version it was
+ * issued with. Small and immutable so it can travel in a signed session token or be replicated
+ * with an HttpSession; account details a page needs come from the UserProfile.
+ */
+public class UserPrincipal implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int userId;
+    private final String username;
+    private final String role;
+    private final int tokenVersion;
+    private final long issuedAt;
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param userId Unique user identifier
+     * @param username The user's login name
+     * @param role User role ("user" or "admin")
+     * @param tokenVersion The user's token version when this principal was issued
+     * @param issuedAt When this principal was issued, in epoch seconds
+     */
+    public UserPrincipal(int userId, String username, String role, int tokenVersion, long issuedAt) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+        this.issuedAt = issuedAt;
+    }
+
+    /**
+     * Creates a principal for a freshly loaded user.
+     *
+     * @param user The authenticated user
+     * @param issuedAt Issue time in epoch seconds
+     * @return Principal carrying the user's identity, role and token version
+     */
+    public static UserPrincipal of(User user, long issuedAt) {
+        return new UserPrincipal(user.getUserId(), user.getUsername(), user.getRole(), user.getTokenVersion(), issuedAt);
+    }
+
+    /**
+     * Gets the user ID.
+     *
+     * @return Unique user identifier
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the username.
+     *
+     * @return The user's login name
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the role.
+     *
+     * @return User role ("user" or "admin")
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Gets the token version.
+     *
+     * @return The user's token version when this principal was issued
+     */
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    /**
+     * Gets the issue time.
+     *
+     * @return When this principal was issued, in epoch seconds
+     */
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * Checks if the user has admin privileges.
+     *
+     * @return True if the role is "admin", false otherwise
+     */
+    public boolean isAdmin() {
+        return "admin".equals(role);
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal{" +
+                "userId=" + userId +
+                ", username='" + username + '\'' +
+                ", role='" + role + '\'' +
+                ", tokenVersion=" + tokenVersion +
+                ", issuedAt=" + issuedAt +
+                '}';
+    }
+}
@@ -0,0 +1,90 @@
+package com.waitlist.model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * UserProfile Model Class
+ * The account details shown on the dashboard that are not part of the UserPrincipal.
+ * Immutable and free of credentials, so it can be kept in the HttpSession next to the
+ * principal and replicated with it.
+ */
+public class UserProfile implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String email;
+    private final boolean active;
+    private final Date createdAt;
+    private final Date lastLogin;
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param email The user's email address
+     * @param active Whether the account is active
+     * @param createdAt When the account was created, or null
+     * @param lastLogin When the user last logged in, or null
+     */
+    public UserProfile(String email, boolean active, Date createdAt, Date lastLogin) {
+        this.email = email;
+        this.active = active;
+        this.createdAt = createdAt != null ? new Date(createdAt.getTime()) : null;
+        this.lastLogin = lastLogin != null ? new Date(lastLogin.getTime()) : null;
+    }
+
+    /**
+     * Creates a profile from a loaded user.
+     *
+     * @param user The user as read from the database
+     * @return Profile carrying the user's display details
+     */
+    public static UserProfile of(User user) {
+        return new UserProfile(user.getEmail(), user.isActive(), user.getCreatedAt(), user.getLastLogin());
+    }
+
+    /**
+     * Gets the email address.
+     *
+     * @return The user's email address
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Checks if the account is active.
+     *
+     * @return True if the account is active
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Gets the creation time.
+     *
+     * @return When the account was created, or null
+     */
+    public Date getCreatedAt() {
+        return createdAt != null ? new Date(createdAt.getTime()) : null;
+    }
+
+    /**
+     * Gets the last login time.
+     *
+     * @return When the user last logged in, or null
+     */
+    public Date getLastLogin() {
+        return lastLogin != null ? new Date(lastLogin.getTime()) : null;
+    }
+
+    @Override
+    public String toString() {
+        return "UserProfile{" +
+                "email='" + email + '\'' +
+                ", active=" + active +
+                ", createdAt=" + createdAt +
+                ", lastLogin=" + lastLogin +
+                '}';
+    }
+}
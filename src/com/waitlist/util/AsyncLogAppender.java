@@ -0,0 +1,210 @@
+package com.waitlist.util;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous Log Appender
+ * Request threads publish log events into a fixed-size ring buffer and return; a single
+ * daemon thread formats them and writes them to the console in batches. Publishing is a
+ * compare-and-set on the claim counter plus an array store, so logging threads never wait
+ * on the console stream lock. When the buffer is full, events are dropped and counted
+ * instead of blocking the request, and the writer reports how many were lost.
+ *
+ * DEBUG and INFO lines go to System.out, WARN and ERROR to System.err, as before.
+ */
+public class AsyncLogAppender {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+
+    private final AtomicReferenceArray<Event> slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean idle;
+    private volatile boolean running = true;
+
+    /**
+     * Creates the appender and starts its writer thread.
+     *
+     * @param capacity Ring size, rounded up to a power of two
+     */
+    public AsyncLogAppender(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.writer = new Thread(this::drainLoop, "async-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Publishes an event without blocking.
+     *
+     * @param event Event to write
+     * @return true if queued, false if the buffer was full or the appender stopped
+     */
+    public boolean append(Event event) {
+        if (!running) {
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length()) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        slots.set((int) (sequence & mask), event);
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting events and waits for the writer to flush what is already queued.
+     *
+     * @param timeoutMillis Maximum time to wait for the writer
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of events dropped because the buffer was full.
+     *
+     * @return dropped event count
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Number of events waiting to be written.
+     *
+     * @return queued event count
+     */
+    public long getQueueDepth() {
+        return claimed.get() - consumed;
+    }
+
+    private void drainLoop() {
+        StringBuilder out = new StringBuilder(8192);
+        StringBuilder err = new StringBuilder(1024);
+        long reportedDrops = 0;
+        while (true) {
+            long sequence = consumed;
+            if (sequence == claimed.get()) {
+                long drops = dropped.sum();
+                if (drops > reportedDrops) {
+                    err.append(render(new Event(System.currentTimeMillis(), Log.Level.WARN, "async-log-writer",
+                            "AsyncLogAppender", (drops - reportedDrops) + " log events dropped, buffer full", null)));
+                    reportedDrops = drops;
+                }
+                flush(out, err);
+                if (!running) {
+                    return;
+                }
+                idle = true;
+                if (sequence == claimed.get() && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+
+            int index = (int) (sequence & mask);
+            Event event = slots.get(index);
+            if (event == null) {
+                // Slot claimed but not yet filled by its producer
+                Thread.onSpinWait();
+                continue;
+            }
+            slots.set(index, null);
+            consumed = sequence + 1;
+
+            (event.level.compareTo(Log.Level.WARN) >= 0 ? err : out).append(render(event));
+            if (out.length() > 65536 || err.length() > 65536) {
+                flush(out, err);
+            }
+        }
+    }
+
+    private static void flush(StringBuilder out, StringBuilder err) {
+        write(System.out, out);
+        write(System.err, err);
+    }
+
+    private static void write(PrintStream stream, StringBuilder buffer) {
+        if (buffer.length() > 0) {
+            stream.print(buffer);
+            stream.flush();
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Formats one event as a console line, followed by the stack trace if there is one.
+     *
+     * @param event Event to format
+     * @return formatted text including the line separator
+     */
+    static String render(Event event) {
+        StringBuilder line = new StringBuilder(96 + event.message.length());
+        line.append(TIMESTAMP.format(Instant.ofEpochMilli(event.timestamp)))
+            .append(' ').append(event.level.label)
+            .append(" [").append(event.thread).append("] ")
+            .append(event.logger).append(" - ").append(event.message)
+            .append(System.lineSeparator());
+        if (event.throwable != null) {
+            StringWriter trace = new StringWriter();
+            event.throwable.printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        }
+        return line.toString();
+    }
+
+    /**
+     * A log record with its message already formatted.
+     */
+    static final class Event {
+        final long timestamp;
+        final Log.Level level;
+        final String thread;
+        final String logger;
+        final String message;
+        final Throwable throwable;
+
+        Event(long timestamp, Log.Level level, String thread, String logger, String message, Throwable throwable) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.thread = thread;
+            this.logger = logger;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+}
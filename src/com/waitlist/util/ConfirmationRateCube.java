@@ -0,0 +1,389 @@
+package com.waitlist.util;
+
+import com.waitlist.dao.WaitlistDAO;
+import com.waitlist.model.BookingHistory;
+import com.waitlist.model.ConfirmationRates;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Confirmation Rate Cube
+ * In-memory aggregate of booking_history confirmation rates, so probability lookups need no
+ * database work. Holds the sum and count of confirmed_tickets / total_wl per
+ * (train_no, class_type, journey_date) and per (train_no, class_type, day-of-week, month),
+ * which is exactly what the AVG queries in WaitlistDAO compute. Because it stores sums and
+ * counts rather than averages, new booking rows merge in incrementally.
+ * Both maps are published together in one holder, so a lookup never pairs the date figures of
+ * one load with the pattern figures of another. Lookups take no lock; changes are serialized.
+ * Rows written outside this process (the command line importer, other nodes) only merge in
+ * incrementally here, so the cube is also reloaded on a schedule and on demand from the admin
+ * Statistics page.
+ * Every change to the rates also invalidates the affected trains and classes in the
+ * ProbabilityCache and ProbabilityTable, since both hold results derived from them; a reload
+ * clears both entirely.
+ */
+public class ConfirmationRateCube {
+
+    private static final Log LOG = Log.getLogger(ConfirmationRateCube.class);
+
+    public static final long DEFAULT_RELOAD_MILLIS = 10 * 60 * 1000L;
+
+    private static final ConfirmationRateCube INSTANCE = new ConfirmationRateCube();
+
+    private final Object reloadLock = new Object();
+    private final Object changeLock = new Object();
+    private volatile Maps maps = new Maps();
+    private volatile boolean loaded = false;
+    private volatile Date loadedAt;
+    private ScheduledExecutorService scheduler;
+    // Changes made while a reload runs, replayed onto the new maps; null otherwise. Guarded by changeLock
+    private List<Consumer<Maps>> changesDuringReload;
+
+    private ConfirmationRateCube() {}
+
+    /**
+     * Returns the application-wide cube.
+     *
+     * @return shared cube instance
+     */
+    public static ConfirmationRateCube getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts reloading the cube in the background; the first reload runs after one interval,
+     * since the application loads the cube at startup.
+     *
+     * @param reloadMillis Interval between reloads; 0 disables the scheduled reload
+     */
+    public synchronized void start(long reloadMillis) {
+        if (scheduler != null || reloadMillis <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-cube-reload");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(10_000, reloadMillis);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (!reload()) {
+                    LOG.warn("Confirmation rate cube reload failed - keeping the previous rates");
+                }
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the previous maps stay published
+                LOG.warn("Confirmation rate cube reload failed: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        LOG.info("Confirmation rate cube reloading every {}ms", interval);
+    }
+
+    /**
+     * Stops the background reloads.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * (Re)builds the cube from booking_history. Until the first successful load the cube
+     * reports itself as not loaded and callers should query the database instead.
+     * Bookings added while the load runs go into the current maps and are replayed onto the
+     * new ones before they are published, so none are lost. A row whose insert committed just
+     * before the load's query started can be counted twice until the next reload.
+     *
+     * @return true if the cube was loaded successfully
+     */
+    public boolean reload() {
+        synchronized (reloadLock) {
+            synchronized (changeLock) {
+                changesDuringReload = new ArrayList<>();
+            }
+            ConfirmationRateCube fresh = new ConfirmationRateCube();
+            boolean ok = false;
+            Maps published;
+            try {
+                ok = new WaitlistDAO().loadConfirmationRates(fresh);
+            } finally {
+                synchronized (changeLock) {
+                    List<Consumer<Maps>> changes = changesDuringReload;
+                    changesDuringReload = null;
+                    if (ok) {
+                        for (Consumer<Maps> change : changes) {
+                            change.accept(fresh.maps);
+                        }
+                        maps = fresh.maps;
+                        loaded = true;
+                        loadedAt = new Date();
+                    }
+                    published = maps;
+                }
+            }
+            if (!ok) {
+                return false;
+            }
+            ProbabilityCache.getInstance().clear();
+            ProbabilityTable.getInstance().invalidateAll();
+            LOG.info("Confirmation rate cube loaded: {} dates, {} day-of-week/month patterns",
+                published.byDate.size(), published.byPattern.size());
+            return true;
+        }
+    }
+
+    /**
+     * Whether the cube has been loaded and can answer rate lookups.
+     *
+     * @return true once reload() has succeeded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * When the cube was last loaded from booking_history.
+     *
+     * @return time of the last successful reload, or null if it never loaded
+     */
+    public Date getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Merges one booking_history row into the cube.
+     * Rows with no waitlist are ignored, matching the total_wl &gt; 0 filter of the rate queries.
+     *
+     * @param trainNo Train number
+     * @param journeyDate Journey date
+     * @param classType Class type
+     * @param totalWl Total waitlist entries
+     * @param confirmedTickets Tickets confirmed from the waitlist
+     */
+    public void addBooking(String trainNo, LocalDate journeyDate, String classType, int totalWl, int confirmedTickets) {
+        if (totalWl <= 0) {
+            return;
+        }
+        addAggregate(trainNo, classType, journeyDate, confirmedTickets * 1.0 / totalWl, 1);
+        ProbabilityCache.getInstance().invalidate(trainNo, classType);
+        ProbabilityTable.getInstance().invalidate(trainNo, classType);
+    }
+
+    /**
+     * Merges a batch of booking_history rows into the cube.
+     * The batch is first summed per train, class and date locally, so each distinct date
+     * touches the shared maps once no matter how many rows the batch holds.
+     *
+     * @param rows Rows that were just written to booking_history
+     */
+    public void addBookings(List<BookingHistory> rows) {
+        Map<DateKey, RateAggregate> batch = new HashMap<>();
+        for (BookingHistory row : rows) {
+            if (row.getTotalWl() <= 0) {
+                continue;
+            }
+            DateKey key = new DateKey(row.getTrainNo(), row.getClassType(), row.getJourneyDate().toEpochDay());
+            batch.merge(key, new RateAggregate(row.getConfirmedTickets() * 1.0 / row.getTotalWl(), 1), RateAggregate::plus);
+        }
+        Map<String, Set<String>> changed = new HashMap<>();
+        for (Map.Entry<DateKey, RateAggregate> entry : batch.entrySet()) {
+            merge(entry.getKey(), entry.getValue());
+            changed.computeIfAbsent(entry.getKey().trainNo, trainNo -> new HashSet<>()).add(entry.getKey().classType);
+        }
+        ProbabilityCache.getInstance().invalidate(changed);
+        for (Map.Entry<String, Set<String>> entry : changed.entrySet()) {
+            for (String classType : entry.getValue()) {
+                ProbabilityTable.getInstance().invalidate(entry.getKey(), classType);
+            }
+        }
+    }
+
+    /**
+     * Merges a pre-aggregated (sum of rates, row count) entry for one train, class and date.
+     *
+     * @param trainNo Train number
+     * @param classType Class type
+     * @param journeyDate Journey date
+     * @param rateSum Sum of confirmed_tickets / total_wl over the rows
+     * @param count Number of rows
+     */
+    public void addAggregate(String trainNo, String classType, LocalDate journeyDate, double rateSum, long count) {
+        merge(new DateKey(trainNo, classType, journeyDate.toEpochDay()), new RateAggregate(rateSum, count));
+    }
+
+    private void merge(DateKey key, RateAggregate aggregate) {
+        LocalDate journeyDate = LocalDate.ofEpochDay(key.epochDay);
+        PatternKey pattern = new PatternKey(key.trainNo, key.classType, DateUtil.mysqlDayOfWeek(journeyDate),
+                journeyDate.getMonthValue());
+        change(target -> {
+            target.byDate.merge(key, aggregate, RateAggregate::plus);
+            target.byPattern.merge(pattern, aggregate, RateAggregate::plus);
+        });
+    }
+
+    /**
+     * Applies a change to the published maps and, while a reload runs, records it for replay.
+     */
+    private void change(Consumer<Maps> change) {
+        synchronized (changeLock) {
+            change.accept(maps);
+            if (changesDuringReload != null) {
+                changesDuringReload.add(change);
+            }
+        }
+    }
+
+    /**
+     * Drops every aggregate for a train, e.g. after the train (and its history) was deleted.
+     *
+     * @param trainNo Train number
+     */
+    public void removeTrain(String trainNo) {
+        change(target -> {
+            target.byDate.keySet().removeIf(key -> key.trainNo.equals(trainNo));
+            target.byPattern.keySet().removeIf(key -> key.trainNo.equals(trainNo));
+        });
+        ProbabilityCache.getInstance().invalidateTrain(trainNo);
+        ProbabilityTable.getInstance().invalidateTrain(trainNo);
+    }
+
+    /**
+     * Class types that have booking history for any train.
+     *
+     * @return distinct class types, sorted
+     */
+    public Set<String> getClassTypes() {
+        Set<String> classTypes = new TreeSet<>();
+        for (PatternKey key : maps.byPattern.keySet()) {
+            classTypes.add(key.classType);
+        }
+        return classTypes;
+    }
+
+    /**
+     * Both rates behind a probability calculation, with the number of rows each one averages.
+     *
+     * @param trainNo Train number
+     * @param journeyDate Journey date
+     * @param classType Class type
+     * @param dayOfWeek Day of week of the journey date (1=Sunday, 7=Saturday)
+     * @param month Month of the journey date (1-12)
+     * @return Date-specific and historical rates with sample counts
+     */
+    public ConfirmationRates getConfirmationRates(String trainNo, LocalDate journeyDate, String classType,
+                                                  int dayOfWeek, int month) {
+        Maps current = maps;
+        RateAggregate specific = current.byDate.get(new DateKey(trainNo, classType, journeyDate.toEpochDay()));
+        RateAggregate historical = current.byPattern.get(new PatternKey(trainNo, classType, dayOfWeek, month));
+        return new ConfirmationRates(
+                specific == null ? 0.0 : specific.average(),
+                specific == null ? 0 : specific.count,
+                historical == null ? 0.0 : historical.average(),
+                historical == null ? 0 : historical.count);
+    }
+
+    /**
+     * The two aggregate maps of one load, published and replaced together.
+     */
+    private static final class Maps {
+        private final ConcurrentHashMap<DateKey, RateAggregate> byDate = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<PatternKey, RateAggregate> byPattern = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Immutable sum/count pair; merging two aggregates adds both.
+     */
+    private static final class RateAggregate {
+        private final double sum;
+        private final long count;
+
+        private RateAggregate(double sum, long count) {
+            this.sum = sum;
+            this.count = count;
+        }
+
+        private RateAggregate plus(RateAggregate other) {
+            return new RateAggregate(sum + other.sum, count + other.count);
+        }
+
+        private double average() {
+            return count == 0 ? 0.0 : sum / count;
+        }
+    }
+
+    private static final class DateKey {
+        private final String trainNo;
+        private final String classType;
+        private final long epochDay;
+
+        private DateKey(String trainNo, String classType, long epochDay) {
+            this.trainNo = trainNo;
+            this.classType = classType;
+            this.epochDay = epochDay;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DateKey)) {
+                return false;
+            }
+            DateKey other = (DateKey) o;
+            return epochDay == other.epochDay && trainNo.equals(other.trainNo) && classType.equals(other.classType);
+        }
+
+        @Override
+        public int hashCode() {
+            return (trainNo.hashCode() * 31 + classType.hashCode()) * 31 + Long.hashCode(epochDay);
+        }
+    }
+
+    private static final class PatternKey {
+        private final String trainNo;
+        private final String classType;
+        private final int dayOfWeek;
+        private final int month;
+
+        private PatternKey(String trainNo, String classType, int dayOfWeek, int month) {
+            this.trainNo = trainNo;
+            this.classType = classType;
+            this.dayOfWeek = dayOfWeek;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PatternKey)) {
+                return false;
+            }
+            PatternKey other = (PatternKey) o;
+            return dayOfWeek == other.dayOfWeek && month == other.month
+                    && trainNo.equals(other.trainNo) && classType.equals(other.classType);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((trainNo.hashCode() * 31 + classType.hashCode()) * 31 + dayOfWeek) * 31 + month;
+        }
+    }
+}
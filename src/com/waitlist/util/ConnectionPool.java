@@ -0,0 +1,527 @@
+package com.waitlist.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC Connection Pool
+ * Keeps a set of warm MySQL connections and hands them out as lightweight wrappers
+ * whose close() returns the physical connection to the pool instead of closing it.
+ * Idle connections are validated before reuse, borrowers block up to a configurable
+ * timeout when the pool is exhausted, and connections held longer than the leak
+ * threshold are reported with the DAO method that borrowed them (and, when
+ * db.pool.leakTrace is on, the stack trace of the borrow - captured on every borrow, so
+ * meant for debugging only). Borrows made as long-running (streaming exports, bulk loads)
+ * are expected to outlast the threshold and are not reported.
+ * Each borrow is attributed to the DAO method named by the caller, and the time the connection
+ * is held is recorded in that method's latency histogram in {@link Metrics}. Statements
+ * created on a borrowed connection are wrapped in timing proxies that feed
+ * {@link SqlStatistics} and its slow-query log.
+ */
+public class ConnectionPool {
+
+    private static final Log LOG = Log.getLogger(ConnectionPool.class);
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long maxWaitMillis;
+    private final long validationIntervalMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final boolean leakTrace;
+    private final long slowQueryNanos;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    /**
+     * Creates a pool from "db.*" configuration properties.
+     * Recognised keys: db.url, db.username, db.password, db.pool.maxSize, db.pool.minIdle,
+     * db.pool.maxWaitMillis, db.pool.validationIntervalMillis, db.pool.idleTimeoutMillis
+     * db.pool.leakThresholdMillis (0 disables leak reporting), db.pool.leakTrace (true to
+     * capture the borrowing stack trace for leak reports) and db.slowQueryMillis
+     * (0 disables the slow-query log).
+     *
+     * @param config pool configuration
+     */
+    public ConnectionPool(Properties config) {
+        this.url = config.getProperty("db.url");
+        this.username = config.getProperty("db.username");
+        this.password = config.getProperty("db.password");
+        this.maxSize = Math.max(1, intProperty(config, "db.pool.maxSize", 20));
+        this.minIdle = Math.min(maxSize, Math.max(0, intProperty(config, "db.pool.minIdle", 2)));
+        this.maxWaitMillis = longProperty(config, "db.pool.maxWaitMillis", 5000L);
+        this.validationIntervalMillis = longProperty(config, "db.pool.validationIntervalMillis", 30000L);
+        this.idleTimeoutMillis = longProperty(config, "db.pool.idleTimeoutMillis", 600000L);
+        this.leakThresholdMillis = longProperty(config, "db.pool.leakThresholdMillis", 60000L);
+        this.leakTrace = leakThresholdMillis > 0 && Boolean.parseBoolean(config.getProperty("db.pool.leakTrace", "false").trim());
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(longProperty(config, "db.slowQueryMillis", 200L));
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, 10, 10, TimeUnit.SECONDS);
+
+        fillIdle();
+    }
+
+    /**
+     * Borrows a connection on behalf of no particular DAO method; its hold time is recorded
+     * under {@link Metrics#OTHER}.
+     *
+     * @return pooled connection wrapper
+     * @throws SQLTimeoutException if no connection became available in time
+     * @throws SQLException if the pool is closed or a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        return getConnection(Metrics.OTHER);
+    }
+
+    /**
+     * Borrows a connection, blocking up to db.pool.maxWaitMillis when all connections are in use.
+     * Closing the returned connection gives it back to the pool.
+     *
+     * @param caller DAO method borrowing the connection, e.g. "UserDAO.getUserById"; names its
+     *               hold-time histogram, its statements in SqlStatistics and leak reports
+     * @return pooled connection wrapper
+     * @throws SQLTimeoutException if no connection became available in time
+     * @throws SQLException if the pool is closed or a new connection cannot be opened
+     */
+    public Connection getConnection(String caller) throws SQLException {
+        return getConnection(caller, false);
+    }
+
+    /**
+     * Borrows a connection like {@link #getConnection(String)}, optionally exempt from leak
+     * reporting.
+     *
+     * @param caller DAO method borrowing the connection
+     * @param longRunning true for borrows expected to outlast db.pool.leakThresholdMillis, such
+     *                    as streaming exports and bulk loads; they are never reported as leaks
+     * @return pooled connection wrapper
+     * @throws SQLTimeoutException if no connection became available in time
+     * @throws SQLException if the pool is closed or a new connection cannot be opened
+     */
+    public Connection getConnection(String caller, boolean longRunning) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLTimeoutException("Connection pool exhausted: no connection available within "
+                        + maxWaitMillis + " ms (active=" + borrowed.size() + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(openPhysical());
+            }
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowCaller = caller;
+            pooled.borrowSite = leakTrace && !longRunning ? new Throwable("Connection borrowed here") : null;
+            pooled.longRunning = longRunning;
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+
+            long waitNanos = System.nanoTime() - waitStart;
+            borrowCount.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            SqlStatistics.getInstance().getAcquireTimer().record(waitNanos);
+            return pooled.newHandle(caller);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops housekeeping.
+     * Borrowed connections are closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * Number of connections currently borrowed.
+     *
+     * @return active connection count
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Number of warm connections waiting in the pool.
+     *
+     * @return idle connection count
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Maximum number of physical connections.
+     *
+     * @return pool size limit
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Total physical connections opened since startup.
+     *
+     * @return opened connection count
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Total physical connections closed (idle eviction, validation failure or shutdown).
+     *
+     * @return closed connection count
+     */
+    public long getDestroyedCount() {
+        return destroyedCount.get();
+    }
+
+    /**
+     * Total successful borrows.
+     *
+     * @return borrow count
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * Number of borrows that gave up because the pool stayed exhausted.
+     *
+     * @return timeout count
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Number of borrows reported as possible leaks.
+     *
+     * @return leak count
+     */
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * Number of idle connections discarded because they failed validation.
+     *
+     * @return validation failure count
+     */
+    public long getValidationFailureCount() {
+        return validationFailureCount.get();
+    }
+
+    /**
+     * Average time callers waited for a connection, in milliseconds.
+     *
+     * @return average borrow wait
+     */
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "active=" + getActiveCount() +
+                ", idle=" + getIdleCount() +
+                ", max=" + maxSize +
+                ", created=" + getCreatedCount() +
+                ", borrows=" + getBorrowCount() +
+                ", timeouts=" + getTimeoutCount() +
+                ", leaks=" + getLeakCount() +
+                ", avgWaitMs=" + String.format("%.3f", getAverageWaitMillis()) +
+                '}';
+    }
+
+    /**
+     * Takes the most recently used idle connection, validating it if it has been idle
+     * longer than the validation interval. Broken connections are discarded.
+     */
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pooled.lastUsedAt < validationIntervalMillis) {
+                return pooled;
+            }
+            try {
+                if (pooled.physical.isValid(2)) {
+                    return pooled;
+                }
+            } catch (SQLException e) {
+                // fall through and discard
+            }
+            validationFailureCount.incrementAndGet();
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, username, password);
+        conn.setAutoCommit(true);
+        createdCount.incrementAndGet();
+        return conn;
+    }
+
+    /**
+     * Returns a connection to the pool after resetting the state a DAO may have changed.
+     */
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            if (!pooled.broken && !closed) {
+                Connection conn = pooled.physical;
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+                if (conn.isReadOnly()) {
+                    conn.setReadOnly(false);
+                }
+                conn.clearWarnings();
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                destroy(pooled);
+            }
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // already unusable
+        }
+        destroyedCount.incrementAndGet();
+    }
+
+    /**
+     * Opens connections until db.pool.minIdle are idle, as long as the pool stays within
+     * db.pool.maxSize. Each open holds a permit, so it never races a borrower past the bound.
+     */
+    private void fillIdle() {
+        while (!closed && idle.size() < minIdle && idle.size() + borrowed.size() < maxSize) {
+            if (!permits.tryAcquire()) {
+                return; // every permit is with a borrower
+            }
+            try {
+                PooledConnection pooled = new PooledConnection(openPhysical());
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.offerLast(pooled);
+                if (closed && idle.remove(pooled)) {
+                    destroy(pooled); // close() ran while this one was opening
+                }
+            } catch (SQLException e) {
+                LOG.warn("Connection pool fill failed: {}", e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Periodic maintenance: reports leaked connections (other than long-running borrows) and retires connections that have
+     * been idle longer than db.pool.idleTimeoutMillis, then tops idle connections back up to
+     * db.pool.minIdle (e.g. after validation discarded them or the database restarted).
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : borrowed) {
+                if (!pooled.longRunning && !pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leakCount.incrementAndGet();
+                    // borrowSite is null unless db.pool.leakTrace is on; the trace is then omitted
+                    LOG.warn("Possible connection leak: connection held for {} ms by {}", now - pooled.borrowedAt,
+                        pooled.borrowCaller, pooled.borrowSite);
+                }
+            }
+        }
+
+        while (idle.size() > minIdle) {
+            PooledConnection oldest = idle.peekLast();
+            if (oldest == null || now - oldest.lastUsedAt < idleTimeoutMillis) {
+                break;
+            }
+            if (idle.removeLastOccurrence(oldest)) {
+                destroy(oldest);
+            }
+        }
+
+        fillIdle();
+    }
+
+    private static int intProperty(Properties config, String key, int defaultValue) {
+        return (int) longProperty(config, key, defaultValue);
+    }
+
+    private static long longProperty(Properties config, String key, long defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.error("Invalid value for {}: {}, using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * A physical connection plus the bookkeeping needed for validation and leak reporting.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsedAt;
+        private volatile long borrowedAt;
+        private volatile String borrowCaller;
+        private volatile Throwable borrowSite;
+        private volatile boolean longRunning;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection newHandle(String caller) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handle(this, caller));
+        }
+    }
+
+    /**
+     * Proxy handler for one borrow. close() returns the connection to the pool exactly once;
+     * any other call after close() fails as it would on a closed physical connection.
+     * The time from borrow to close is recorded in the borrowing DAO method's histogram.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final String caller;
+        private final LatencyHistogram holdTimer;
+        private final long borrowedNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Handle(PooledConnection pooled, String caller) {
+            this.pooled = pooled;
+            this.caller = caller;
+            this.holdTimer = Metrics.getInstance().daoTimer(caller);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (released.compareAndSet(false, true)) {
+                        holdTimer.recordSince(borrowedNanos);
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released.get() || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+
+            if (released.get()) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                Object result = method.invoke(pooled.physical, args);
+                Class<? extends Statement> statementType = SqlTimingProxy.statementType(method.getName());
+                if (statementType != null) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    return SqlTimingProxy.wrap((Statement) result, statementType, (Connection) proxy, sql, caller, slowQueryNanos);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    if (state != null && state.startsWith("08")) {
+                        // Connection exception class: never hand this connection out again
+                        pooled.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
@@ -1,58 +1,139 @@
 package com.waitlist.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 /**
  * Database Connection Manager
  * Manages MySQL database connections for the Railway Waitlist application.
- * Uses connection pooling approach - creates new connections per request (not singleton).
- * This prevents connection blocking and thread contention issues.
+ * Connections are served from a bounded {@link ConnectionPool} so that DAO calls reuse
+ * warm connections instead of paying the TCP and authentication handshake every time.
+ * The pool is configured from the db.* context parameters in web.xml at startup and
+ * falls back to the built-in defaults if the application has not configured it.
  */
 public class DBConnection {
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/railwaydb?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&autoReconnect=true&maxReconnects=5";
+
+    private static final Log LOG = Log.getLogger(DBConnection.class);
+
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/railwaydb?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&autoReconnect=true&maxReconnects=5&rewriteBatchedStatements=true";
     private static final String DB_USERNAME = "root";
     private static final String DB_PASSWORD = "2507";
     private static final String DB_DRIVER = "com.mysql.cj.jdbc.Driver";
     private static boolean driverLoaded = false;
-    
+    private static volatile ConnectionPool pool;
+
     static {
         // Load driver once at startup
         try {
             Class.forName(DB_DRIVER);
             driverLoaded = true;
-            System.out.println("✓ MySQL JDBC Driver loaded successfully");
+            LOG.info("MySQL JDBC Driver loaded successfully");
         } catch (ClassNotFoundException e) {
-            System.err.println("✗ Failed to load MySQL JDBC Driver: " + e.getMessage());
+            LOG.error("Failed to load MySQL JDBC Driver: {}", e.getMessage());
             driverLoaded = false;
         }
     }
-    
+
     /**
-     * Retrieves a fresh database connection for each request.
-     * Creates a new connection instead of reusing a singleton connection.
-     * This prevents thread contention and blocking issues.
-     * 
-     * @return New MySQL database connection
-     * @throws SQLException if driver not loaded or connection fails
+     * Configures the connection pool from db.* settings, replacing any existing pool.
+     * Missing db.url, db.username and db.password entries fall back to the built-in defaults.
+     *
+     * @param config db.* configuration properties (typically the web.xml context parameters)
+     */
+    public static synchronized void configure(Properties config) {
+        Properties settings = defaultSettings();
+        for (String key : config.stringPropertyNames()) {
+            String value = config.getProperty(key);
+            if (value != null && !value.trim().isEmpty()) {
+                settings.setProperty(key, value.trim());
+            }
+        }
+
+        ConnectionPool previous = pool;
+        pool = new ConnectionPool(settings);
+        if (previous != null) {
+            previous.close();
+        }
+        LOG.info("Database connection pool configured for {}", settings.getProperty("db.url"));
+    }
+
+    /**
+     * Closes the connection pool. Called when the application is undeployed.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            LOG.info("Closing database connection pool: {}", pool);
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * Returns the active connection pool, creating it with default settings on first use.
+     *
+     * @return the application connection pool
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DBConnection.class) {
+                if (pool == null) {
+                    pool = new ConnectionPool(defaultSettings());
+                }
+                current = pool;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Borrows a database connection from the pool for code outside the DAOs.
+     * Its hold time is recorded under {@link Metrics#OTHER}.
+     *
+     * @return Pooled MySQL database connection
+     * @throws SQLException if driver not loaded, the pool is exhausted or connection fails
      */
     public static Connection getConnection() throws SQLException {
+        return getConnection(Metrics.OTHER);
+    }
+
+    /**
+     * Borrows a database connection from the pool.
+     * Closing the connection (try-with-resources or closeConnection) returns it to the pool.
+     * Blocks for up to db.pool.maxWaitMillis when every pooled connection is in use.
+     *
+     * @param caller The borrowing DAO method, e.g. "UserDAO.getUserById", used to attribute
+     *               the connection's hold time and statements in the metrics
+     * @return Pooled MySQL database connection
+     * @throws SQLException if driver not loaded, the pool is exhausted or connection fails
+     */
+    public static Connection getConnection(String caller) throws SQLException {
+        return getConnection(caller, false);
+    }
+
+    /**
+     * Borrows a database connection from the pool, optionally exempt from leak reporting.
+     *
+     * @param caller The borrowing DAO method
+     * @param longRunning True for borrows expected to outlast db.pool.leakThresholdMillis,
+     *                    e.g. streaming exports and bulk loads, so they are not reported as leaks
+     * @return Pooled MySQL database connection
+     * @throws SQLException if driver not loaded, the pool is exhausted or connection fails
+     */
+    public static Connection getConnection(String caller, boolean longRunning) throws SQLException {
         if (!driverLoaded) {
             throw new SQLException("MySQL JDBC Driver not loaded");
         }
-        
+
         try {
-            // Create new connection for each request (not singleton)
-            Connection conn = DriverManager.getConnection(DB_URL, DB_USERNAME, DB_PASSWORD);
-            conn.setAutoCommit(true);
-            return conn;
+            return getPool().getConnection(caller, longRunning);
         } catch (SQLException e) {
-            System.err.println("✗ Failed to connect to database: " + e.getMessage());
-            throw new SQLException("Failed to connect to database at " + DB_URL, e);
+            LOG.error("Failed to obtain database connection: {}", e.getMessage());
+            throw e;
         }
     }
-    
+
     /**
      * Close database connection
      * Should be called in try-with-resources or finally blocks
@@ -64,11 +145,11 @@ public class DBConnection {
                     conn.close();
                 }
             } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
+                LOG.error("Error closing database connection: {}", e.getMessage());
             }
         }
     }
-    
+
     /**
      * Test database connection
      * @return true if connection is successful, false otherwise
@@ -78,15 +159,23 @@ public class DBConnection {
         try {
             testConn = getConnection();
             if (testConn != null && !testConn.isClosed()) {
-                System.out.println("✓ Database connection test passed");
+                LOG.info("Database connection test passed");
                 return true;
             }
         } catch (SQLException e) {
-            System.err.println("✗ Database connection test failed: " + e.getMessage());
+            LOG.error("Database connection test failed: {}", e.getMessage());
         } finally {
             closeConnection(testConn);
         }
         return false;
     }
+
+    private static Properties defaultSettings() {
+        Properties settings = new Properties();
+        settings.setProperty("db.url", DB_URL);
+        settings.setProperty("db.username", DB_USERNAME);
+        settings.setProperty("db.password", DB_PASSWORD);
+        return settings;
+    }
 }
 
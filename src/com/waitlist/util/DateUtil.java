@@ -0,0 +1,54 @@
+package com.waitlist.util;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+/**
+ * Date Utility
+ * Shared java.time helpers for journey dates. The formatter is immutable and thread-safe,
+ * so requests share one instance instead of building a SimpleDateFormat each time.
+ */
+public final class DateUtil {
+
+    /**
+     * Journey date format used by the forms and JSON endpoints (DD-MM-YYYY).
+     * Strict: impossible dates such as 31-02-2024 are rejected rather than rolled over.
+     */
+    public static final DateTimeFormatter JOURNEY_DATE =
+            DateTimeFormatter.ofPattern("dd-MM-uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    private DateUtil() {}
+
+    /**
+     * Parses a journey date in DD-MM-YYYY format.
+     *
+     * @param text Date text (surrounding whitespace is ignored)
+     * @return The parsed date
+     * @throws DateTimeParseException if the text is not a valid DD-MM-YYYY date
+     */
+    public static LocalDate parseJourneyDate(String text) {
+        return LocalDate.parse(text.trim(), JOURNEY_DATE);
+    }
+
+    /**
+     * Formats a date as DD-MM-YYYY.
+     *
+     * @param date The date
+     * @return Formatted date
+     */
+    public static String formatJourneyDate(LocalDate date) {
+        return JOURNEY_DATE.format(date);
+    }
+
+    /**
+     * Day of week numbered like MySQL DAYOFWEEK() (1=Sunday ... 7=Saturday).
+     *
+     * @param date The date
+     * @return day of week (1-7)
+     */
+    public static int mysqlDayOfWeek(LocalDate date) {
+        return date.getDayOfWeek().getValue() % 7 + 1;
+    }
+}
@@ -0,0 +1,170 @@
+package com.waitlist.util;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Factor Model
+ * Waitlist and seasonal factor curves used by ProbabilityCalculator, compiled into flat arrays.
+ *
+ * - Every (train, class) fitted from booking_history by FactorModelFitter has its own curves;
+ *   all others use the default curves, which reproduce the original fixed factor bands.
+ * - A waitlist factor is one array load indexed by the waitlist number (clamped to
+ *   0..MAX_WAITLIST), a seasonal factor one load indexed by month - no branches per query.
+ * - A model is immutable. A refit builds a new one and {@link #publish} swaps it in with a single
+ *   volatile write, so concurrent requests keep evaluating whichever model they already read.
+ */
+public final class FactorModel {
+
+    private static final Log LOG = Log.getLogger(FactorModel.class);
+
+    /**
+     * Highest waitlist number with its own factor; larger numbers share the last entry.
+     */
+    public static final int MAX_WAITLIST = 100;
+
+    /**
+     * Upper bound of each default waitlist band and the factor for the band; numbers above the
+     * last bound get the final factor.
+     */
+    private static final int[] DEFAULT_WAITLIST_BOUNDS = {0, 5, 10, 20, 50};
+    private static final double[] DEFAULT_WAITLIST_FACTORS = {1.0, 0.9, 0.7, 0.5, 0.3, 0.1};
+
+    /**
+     * Default seasonal factor by month (index 0 unused): holidays in December and January,
+     * peak seasons in April-May and October-November, summer in June-August.
+     */
+    private static final double[] DEFAULT_SEASONAL_FACTORS = {
+        1.0, 0.7, 1.0, 1.0, 0.8, 0.8, 0.9, 0.9, 0.9, 1.0, 0.8, 0.8, 0.7
+    };
+
+    public static final Curves DEFAULT_CURVES = new Curves(compileDefaultWaitlist(), DEFAULT_SEASONAL_FACTORS.clone());
+
+    private static volatile FactorModel current =
+        new FactorModel(Collections.<String, Map<String, Curves>>emptyMap(), 0, null);
+
+    private final Map<String, Map<String, Curves>> byTrain;
+    private final int fittedCount;
+    private final Date fittedAt;
+
+    /**
+     * Creates a model from fitted curves.
+     *
+     * @param byTrain Curves by train number and class type; must not be modified afterwards
+     * @param fittedCount Number of (train, class) curves in the map
+     * @param fittedAt When the curves were fitted, or null for the default model
+     */
+    public FactorModel(Map<String, Map<String, Curves>> byTrain, int fittedCount, Date fittedAt) {
+        this.byTrain = byTrain;
+        this.fittedCount = fittedCount;
+        this.fittedAt = fittedAt;
+    }
+
+    /**
+     * Returns the published model.
+     *
+     * @return current model
+     */
+    public static FactorModel getCurrent() {
+        return current;
+    }
+
+    /**
+     * Publishes a new model. Probabilities derived from the previous one are dropped from the
+     * probability cache and table.
+     *
+     * @param model The model to publish
+     */
+    public static void publish(FactorModel model) {
+        current = model;
+        ProbabilityCache.getInstance().clear();
+        ProbabilityTable.getInstance().invalidateAll();
+        LOG.info("Factor model published: {} fitted train/class curves", model.fittedCount);
+    }
+
+    /**
+     * Curves for one train and class, or the default curves if none were fitted for it.
+     *
+     * @param trainNo Train number
+     * @param classType Class type
+     * @return factor curves
+     */
+    public Curves curvesFor(String trainNo, String classType) {
+        Map<String, Curves> classes = byTrain.get(trainNo);
+        Curves curves = classes != null ? classes.get(classType) : null;
+        return curves != null ? curves : DEFAULT_CURVES;
+    }
+
+    /**
+     * Gets the number of fitted curves.
+     *
+     * @return (train, class) pairs with their own curves
+     */
+    public int getFittedCount() {
+        return fittedCount;
+    }
+
+    /**
+     * Gets the fit time.
+     *
+     * @return when the curves were fitted, or null for the default model
+     */
+    public Date getFittedAt() {
+        return fittedAt;
+    }
+
+    private static double[] compileDefaultWaitlist() {
+        double[] factors = new double[MAX_WAITLIST + 1];
+        int band = 0;
+        for (int number = 0; number <= MAX_WAITLIST; number++) {
+            while (band < DEFAULT_WAITLIST_BOUNDS.length && number > DEFAULT_WAITLIST_BOUNDS[band]) {
+                band++;
+            }
+            factors[number] = DEFAULT_WAITLIST_FACTORS[band];
+        }
+        return factors;
+    }
+
+    /**
+     * Waitlist factors indexed by waitlist number and seasonal factors indexed by month.
+     */
+    public static final class Curves {
+        private final double[] waitlist;
+        private final double[] seasonal;
+
+        /**
+         * Creates curves from compiled arrays, which must not be modified afterwards.
+         *
+         * @param waitlist Factor per waitlist number 0..MAX_WAITLIST
+         * @param seasonal Factor per month 1..12 (index 0 unused)
+         */
+        public Curves(double[] waitlist, double[] seasonal) {
+            if (waitlist.length != MAX_WAITLIST + 1 || seasonal.length != 13) {
+                throw new IllegalArgumentException("Expected " + (MAX_WAITLIST + 1) + " waitlist and 13 seasonal factors");
+            }
+            this.waitlist = waitlist;
+            this.seasonal = seasonal;
+        }
+
+        /**
+         * Waitlist factor for a waitlist number.
+         *
+         * @param waitlistNumber Waitlist number; negative counts as 0, above MAX_WAITLIST as MAX_WAITLIST
+         * @return factor
+         */
+        public double waitlistFactor(int waitlistNumber) {
+            return waitlist[Math.min(Math.max(waitlistNumber, 0), MAX_WAITLIST)];
+        }
+
+        /**
+         * Seasonal factor for a month.
+         *
+         * @param month Month (1-12)
+         * @return factor
+         */
+        public double seasonalFactor(int month) {
+            return seasonal[month];
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.waitlist.util;
+
+import com.waitlist.dao.WaitlistDAO;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factor Model Fitter
+ * Fits per-(train, class) waitlist and seasonal factor curves from booking_history and
+ * publishes them as a new FactorModel. Runs on its own background thread, never on a request.
+ *
+ * - Waitlist factor for number n: the share of booking_history rows that had at least n on the
+ *   waitlist and confirmed at least n tickets, relative to the train and class's mean
+ *   confirmation rate. Forced non-increasing from n = 1 on, since a later position never
+ *   clears more often than an earlier one.
+ * - Seasonal factor for a month: the residual of the observed rates against the base rate the
+ *   calculator multiplies it with. That base is the same-weekday-and-month rate from
+ *   booking_history, which already carries the month's effect, so the residual is 1 for every
+ *   month with rows; scaling by the month's mean over the overall mean again would count the
+ *   month twice. Months without rows have no pattern rate, the base falls back to the
+ *   month-independent default, and the default seasonal factor applies.
+ * - Each point is blended with the default curve using {@link #PRIOR_ROWS} pseudo-rows, so thinly
+ *   observed numbers and months stay close to the defaults. Pairs with fewer than
+ *   {@link #MIN_ROWS} rows keep the default curves altogether.
+ */
+public class FactorModelFitter {
+
+    private static final Log LOG = Log.getLogger(FactorModelFitter.class);
+
+    public static final long DEFAULT_REFIT_MILLIS = 6 * 60 * 60 * 1000L;
+    public static final int MIN_ROWS = 30;
+    public static final double PRIOR_ROWS = 20.0;
+
+    private static ScheduledExecutorService scheduler;
+
+    private final Map<String, Map<String, Observations>> byTrain = new HashMap<>();
+
+    /**
+     * Starts refitting in the background, the first time immediately.
+     *
+     * @param refitMillis Interval between refits; 0 fits once at startup only
+     */
+    public static synchronized void start(long refitMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "factor-model-fit");
+            t.setDaemon(true);
+            return t;
+        });
+        Runnable fit = () -> {
+            try {
+                refit();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the previous model stays published
+                LOG.warn("Factor model refit failed: {}", e.getMessage());
+            }
+        };
+        if (refitMillis > 0) {
+            scheduler.scheduleWithFixedDelay(fit, 0, Math.max(60_000, refitMillis), TimeUnit.MILLISECONDS);
+            LOG.info("Factor model refitting every {}ms", Math.max(60_000, refitMillis));
+        } else {
+            scheduler.execute(fit);
+        }
+    }
+
+    /**
+     * Stops the background refits.
+     */
+    public static synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Fits a new model from booking_history and publishes it.
+     *
+     * @return true if a model was published, false if booking_history could not be read
+     */
+    public static synchronized boolean refit() {
+        long start = System.currentTimeMillis();
+        FactorModelFitter fitter = new FactorModelFitter();
+        if (!new WaitlistDAO().loadFactorObservations(fitter)) {
+            return false;
+        }
+        FactorModel model = fitter.fit();
+        FactorModel.publish(model);
+        LOG.info("Factor model fitted in {}ms", System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * Adds booking_history rows sharing one train, class, month, waitlist length and
+     * confirmed count.
+     *
+     * @param trainNo Train number
+     * @param classType Class type
+     * @param month Month of the journey date (1-12)
+     * @param totalWl Total waitlist entries (greater than 0)
+     * @param confirmedTickets Tickets confirmed from the waitlist
+     * @param rows Number of rows with these values
+     */
+    public void addObservation(String trainNo, String classType, int month, int totalWl, int confirmedTickets, long rows) {
+        if (totalWl <= 0 || rows <= 0 || month < 1 || month > 12) {
+            return;
+        }
+        int confirmed = Math.max(0, Math.min(confirmedTickets, totalWl));
+        Observations observations = byTrain.computeIfAbsent(trainNo, t -> new HashMap<>())
+            .computeIfAbsent(classType, c -> new Observations());
+        double rate = confirmed * 1.0 / totalWl;
+        observations.rows += rows;
+        observations.rateSum += rate * rows;
+        observations.monthRows[month] += rows;
+        observations.reached[Math.min(totalWl, FactorModel.MAX_WAITLIST)] += rows;
+        observations.cleared[Math.min(confirmed, FactorModel.MAX_WAITLIST)] += rows;
+    }
+
+    /**
+     * Fits curves for every train and class with enough rows.
+     *
+     * @return new model; pairs without enough data fall back to the default curves
+     */
+    public FactorModel fit() {
+        Map<String, Map<String, FactorModel.Curves>> curves = new HashMap<>();
+        int fitted = 0;
+        for (Map.Entry<String, Map<String, Observations>> train : byTrain.entrySet()) {
+            for (Map.Entry<String, Observations> entry : train.getValue().entrySet()) {
+                Observations observations = entry.getValue();
+                double meanRate = observations.rows > 0 ? observations.rateSum / observations.rows : 0.0;
+                if (observations.rows < MIN_ROWS || meanRate <= 0.0) {
+                    continue;
+                }
+                curves.computeIfAbsent(train.getKey(), t -> new HashMap<>())
+                    .put(entry.getKey(), new FactorModel.Curves(fitWaitlist(observations, meanRate),
+                                                                fitSeasonal(observations)));
+                fitted++;
+            }
+        }
+        return new FactorModel(curves, fitted, new Date());
+    }
+
+    private static double[] fitWaitlist(Observations observations, double meanRate) {
+        FactorModel.Curves defaults = FactorModel.DEFAULT_CURVES;
+        double[] factors = new double[FactorModel.MAX_WAITLIST + 1];
+        factors[0] = defaults.waitlistFactor(0);
+        // Rows that reached / cleared number n are those whose value is n or more
+        long reachedAtLeast = 0;
+        long clearedAtLeast = 0;
+        double[] raw = new double[FactorModel.MAX_WAITLIST + 1];
+        long[] weight = new long[FactorModel.MAX_WAITLIST + 1];
+        for (int number = FactorModel.MAX_WAITLIST; number >= 1; number--) {
+            reachedAtLeast += observations.reached[number];
+            clearedAtLeast += observations.cleared[number];
+            weight[number] = reachedAtLeast;
+            raw[number] = reachedAtLeast > 0 ? (clearedAtLeast * 1.0 / reachedAtLeast) / meanRate : 0.0;
+        }
+        for (int number = 1; number <= FactorModel.MAX_WAITLIST; number++) {
+            double blended = blend(raw[number], weight[number], defaults.waitlistFactor(number));
+            factors[number] = number > 1 ? Math.min(blended, factors[number - 1]) : blended;
+        }
+        return factors;
+    }
+
+    private static double[] fitSeasonal(Observations observations) {
+        FactorModel.Curves defaults = FactorModel.DEFAULT_CURVES;
+        double[] factors = new double[13];
+        factors[0] = 1.0;
+        for (int month = 1; month <= 12; month++) {
+            // The base rate is already the month's own rate, leaving no residual to apply
+            factors[month] = blend(1.0, observations.monthRows[month], defaults.seasonalFactor(month));
+        }
+        return factors;
+    }
+
+    private static double blend(double observed, long rows, double prior) {
+        return (observed * rows + prior * PRIOR_ROWS) / (rows + PRIOR_ROWS);
+    }
+
+    /**
+     * Row counts and rate sums for one train and class. reached[n] and cleared[n] count rows
+     * whose waitlist length / confirmed count was exactly n (MAX_WAITLIST meaning n or more).
+     */
+    private static final class Observations {
+        private long rows;
+        private double rateSum;
+        private final long[] monthRows = new long[13];
+        private final long[] reached = new long[FactorModel.MAX_WAITLIST + 1];
+        private final long[] cleared = new long[FactorModel.MAX_WAITLIST + 1];
+    }
+}
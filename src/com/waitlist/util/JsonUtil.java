@@ -0,0 +1,291 @@
+package com.waitlist.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON Utility
+ * Minimal JSON reader and writer for the JSON endpoints, so the application needs no
+ * library beyond the servlet API and the JDBC driver.
+ * Parsed values map to LinkedHashMap (objects), ArrayList (arrays), String, Double,
+ * Boolean and null.
+ */
+public final class JsonUtil {
+
+    private static final int MAX_DEPTH = 32;
+
+    private JsonUtil() {}
+
+    /**
+     * Parses a JSON document.
+     *
+     * @param json JSON text
+     * @return The parsed value
+     * @throws IllegalArgumentException if the text is not valid JSON
+     */
+    public static Object parse(String json) {
+        Parser parser = new Parser(json);
+        parser.skipWhitespace();
+        Object value = parser.readValue(0);
+        parser.skipWhitespace();
+        if (parser.pos != json.length()) {
+            throw parser.error("Unexpected trailing content");
+        }
+        return value;
+    }
+
+    /**
+     * Appends a string as a quoted, escaped JSON string.
+     *
+     * @param out Output buffer
+     * @param value String to write (null writes null)
+     * @return the output buffer
+     */
+    public static StringBuilder appendString(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == '<' || c == '>' || c == '&') {
+                        // Control characters, and HTML-significant ones so output is safe to embed
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Appends a number, writing non-finite values as null.
+     *
+     * @param out Output buffer
+     * @param value Number to write
+     * @return the output buffer
+     */
+    public static StringBuilder appendNumber(StringBuilder out, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return out.append("null");
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return out.append((long) value);
+        }
+        return out.append(value);
+    }
+
+    private static final class Parser {
+        private final String json;
+        private int pos = 0;
+
+        private Parser(String json) {
+            this.json = json;
+        }
+
+        private Object readValue(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw error("Nesting too deep");
+            }
+            if (pos >= json.length()) {
+                throw error("Unexpected end of input");
+            }
+            char c = json.charAt(pos);
+            switch (c) {
+                case '{':
+                    return readObject(depth);
+                case '[':
+                    return readArray(depth);
+                case '"':
+                    return readString();
+                case 't':
+                    expectWord("true");
+                    return Boolean.TRUE;
+                case 'f':
+                    expectWord("false");
+                    return Boolean.FALSE;
+                case 'n':
+                    expectWord("null");
+                    return null;
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        return readNumber();
+                    }
+                    throw error("Unexpected character '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> readObject(int depth) {
+            Map<String, Object> object = new LinkedHashMap<>();
+            pos++; // {
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw error("Expected object key");
+                }
+                String key = readString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                object.put(key, readValue(depth + 1));
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return object;
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or '}'");
+                }
+            }
+        }
+
+        private List<Object> readArray(int depth) {
+            List<Object> array = new ArrayList<>();
+            pos++; // [
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return array;
+            }
+            while (true) {
+                skipWhitespace();
+                array.add(readValue(depth + 1));
+                skipWhitespace();
+                char c = next();
+                if (c == ']') {
+                    return array;
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or ']'");
+                }
+            }
+        }
+
+        private String readString() {
+            pos++; // opening quote
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    char escape = next();
+                    switch (escape) {
+                        case '"':
+                        case '\\':
+                        case '/':
+                            sb.append(escape);
+                            break;
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'u':
+                            if (pos + 4 > json.length()) {
+                                throw error("Truncated unicode escape");
+                            }
+                            try {
+                                sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                            } catch (NumberFormatException e) {
+                                throw error("Invalid unicode escape");
+                            }
+                            pos += 4;
+                            break;
+                        default:
+                            throw error("Invalid escape '\\" + escape + "'");
+                    }
+                } else if (c < 0x20) {
+                    throw error("Control character in string");
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+
+        private Double readNumber() {
+            int start = pos;
+            while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.valueOf(json.substring(start, pos));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("Invalid number");
+            }
+        }
+
+        private void expectWord(String word) {
+            if (!json.startsWith(word, pos)) {
+                throw error("Expected '" + word + "'");
+            }
+            pos += word.length();
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private char peek() {
+            if (pos >= json.length()) {
+                throw error("Unexpected end of input");
+            }
+            return json.charAt(pos);
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.waitlist.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency Histogram
+ * Fixed-bucket latency histogram that request threads update without locking: recording
+ * a sample is a bucket search plus two atomic adds. Buckets use the Prometheus convention
+ * (cumulative counts of samples at or below each upper bound, plus +Inf), and percentiles
+ * are estimated by interpolating inside the bucket that holds the requested rank.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Default bucket upper bounds in milliseconds, from sub-millisecond cache hits up to
+     * requests that hit the pool wait or hashing timeouts.
+     */
+    public static final double[] DEFAULT_BOUNDS_MILLIS = {
+        0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000
+    };
+
+    private final long[] boundsNanos;
+    private final AtomicLongArray counts;
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Creates a histogram with the default bucket bounds.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_BOUNDS_MILLIS);
+    }
+
+    /**
+     * Creates a histogram with the given bucket upper bounds.
+     *
+     * @param boundsMillis Ascending bucket upper bounds in milliseconds
+     */
+    public LatencyHistogram(double[] boundsMillis) {
+        this.boundsNanos = new long[boundsMillis.length];
+        for (int i = 0; i < boundsMillis.length; i++) {
+            boundsNanos[i] = (long) (boundsMillis[i] * 1_000_000);
+            if (i > 0 && boundsNanos[i] <= boundsNanos[i - 1]) {
+                throw new IllegalArgumentException("Bucket bounds must be ascending");
+            }
+        }
+        // One extra slot for samples above the last bound (+Inf)
+        this.counts = new AtomicLongArray(boundsNanos.length + 1);
+    }
+
+    /**
+     * Records one sample.
+     *
+     * @param nanos Elapsed time in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketFor(nanos));
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading.
+     *
+     * @param startNanos Value of System.nanoTime() when the operation started
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Total number of samples recorded.
+     *
+     * @return sample count
+     */
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Sum of all recorded samples, in seconds.
+     *
+     * @return total recorded time
+     */
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * Number of bucket upper bounds (excluding +Inf).
+     *
+     * @return bucket bound count
+     */
+    public int getBucketCount() {
+        return boundsNanos.length;
+    }
+
+    /**
+     * Upper bound of a bucket, in seconds.
+     *
+     * @param index Bucket index, 0 to getBucketCount() - 1
+     * @return bucket upper bound
+     */
+    public double getBoundSeconds(int index) {
+        return boundsNanos[index] / 1e9;
+    }
+
+    /**
+     * Copies the current per-bucket counts (not cumulative); the last element holds
+     * samples above the highest bound. Concurrent updates may land on either side of
+     * the copy, which is fine for monitoring.
+     *
+     * @return bucket counts, getBucketCount() + 1 elements
+     */
+    public long[] snapshotCounts() {
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Estimates a percentile from the bucket counts.
+     * Samples above the highest bound are reported as that bound.
+     *
+     * @param percent Percentile between 0 and 100
+     * @return estimated latency in milliseconds, or 0 if nothing was recorded
+     */
+    public double getPercentileMillis(double percent) {
+        long[] snapshot = snapshotCounts();
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0.0;
+        }
+
+        double rank = Math.max(1.0, Math.ceil(percent / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] == 0) {
+                continue;
+            }
+            if (seen + snapshot[i] >= rank) {
+                if (i == boundsNanos.length) {
+                    return toMillis(boundsNanos[boundsNanos.length - 1]);
+                }
+                long lower = i == 0 ? 0 : boundsNanos[i - 1];
+                double fraction = (rank - seen) / snapshot[i];
+                return toMillis(lower + (long) ((boundsNanos[i] - lower) * fraction));
+            }
+            seen += snapshot[i];
+        }
+        return toMillis(boundsNanos[boundsNanos.length - 1]);
+    }
+
+    private int bucketFor(long nanos) {
+        int low = 0;
+        int high = boundsNanos.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (boundsNanos[mid] < nanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyHistogram{count=%d, p50=%.2fms, p95=%.2fms, p99=%.2fms}",
+                getCount(), getPercentileMillis(50), getPercentileMillis(95), getPercentileMillis(99));
+    }
+}
@@ -0,0 +1,380 @@
+package com.waitlist.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Logging Facade
+ * Leveled logger with SLF4J-style "{}" placeholders. A disabled call costs one level
+ * comparison: the message is only formatted when its level is enabled, so request paths
+ * can keep their DEBUG lines while production runs at INFO. Enabled events are handed to
+ * an {@link AsyncLogAppender} and written by a background thread.
+ *
+ * A Throwable passed as the last argument, beyond the placeholders, is logged with its
+ * stack trace. The level comes from the log.level context parameter (default INFO).
+ */
+public final class Log {
+
+    /**
+     * Log levels, lowest first.
+     */
+    public enum Level {
+        DEBUG("DEBUG"), INFO("INFO "), WARN("WARN "), ERROR("ERROR"), OFF("OFF  ");
+
+        final String label;
+
+        Level(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Parses a level name, ignoring case.
+         *
+         * @param name Level name, e.g. "debug"
+         * @param defaultLevel Level used when the name is missing or unknown
+         * @return parsed level
+         */
+        public static Level parse(String name, Level defaultLevel) {
+            if (name == null || name.trim().isEmpty()) {
+                return defaultLevel;
+            }
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return defaultLevel;
+            }
+        }
+    }
+
+    private static final ConcurrentMap<String, Log> LOGGERS = new ConcurrentHashMap<>();
+    private static volatile Level threshold = Level.INFO;
+    private static volatile AsyncLogAppender appender;
+
+    private final String name;
+
+    private Log(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the logger for a class, named after its simple name.
+     *
+     * @param type Class that logs
+     * @return shared logger
+     */
+    public static Log getLogger(Class<?> type) {
+        return getLogger(type.getSimpleName());
+    }
+
+    /**
+     * Returns the logger with the given name, e.g. a JSP page.
+     *
+     * @param name Logger name
+     * @return shared logger
+     */
+    public static Log getLogger(String name) {
+        return LOGGERS.computeIfAbsent(name, Log::new);
+    }
+
+    /**
+     * Sets the level and restarts the appender with the given buffer size.
+     * Called at application startup; until then events go to a default-sized buffer.
+     *
+     * @param level Lowest level that is written
+     * @param bufferSize Ring buffer capacity in events
+     */
+    public static synchronized void configure(Level level, int bufferSize) {
+        threshold = level;
+        AsyncLogAppender previous = appender;
+        appender = new AsyncLogAppender(bufferSize);
+        if (previous != null) {
+            previous.shutdown(1000);
+        }
+    }
+
+    /**
+     * Flushes queued events and stops the writer thread. Later events are written synchronously.
+     */
+    public static synchronized void shutdown() {
+        if (appender != null) {
+            appender.shutdown(5000);
+        }
+    }
+
+    /**
+     * The current level.
+     *
+     * @return lowest level that is written
+     */
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    /**
+     * Number of events dropped because the buffer was full.
+     *
+     * @return dropped event count
+     */
+    public static long getDroppedCount() {
+        AsyncLogAppender current = appender;
+        return current == null ? 0 : current.getDroppedCount();
+    }
+
+    /**
+     * Whether DEBUG events are written; guards DEBUG arguments that are costly to compute.
+     *
+     * @return true if the level is DEBUG
+     */
+    public boolean isDebugEnabled() {
+        return Level.DEBUG.compareTo(threshold) >= 0;
+    }
+
+    /**
+     * Whether events at a level are written.
+     *
+     * @param level Level to check
+     * @return true if enabled
+     */
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    /**
+     * Logs a DEBUG message.
+     *
+     * @param message Message text
+     */
+    public void debug(String message) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message, null);
+        }
+    }
+
+    /**
+     * Logs a DEBUG message with one argument.
+     *
+     * @param format Message with a {} placeholder
+     * @param arg Placeholder value, or a Throwable to log with its stack trace
+     */
+    public void debug(String format, Object arg) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, format, new Object[] { arg });
+        }
+    }
+
+    /**
+     * Logs a DEBUG message with two arguments.
+     *
+     * @param format Message with {} placeholders
+     * @param arg1 First placeholder value
+     * @param arg2 Second placeholder value, or a Throwable
+     */
+    public void debug(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, format, new Object[] { arg1, arg2 });
+        }
+    }
+
+    /**
+     * Logs a DEBUG message with any number of arguments.
+     *
+     * @param format Message with {} placeholders
+     * @param args Placeholder values, optionally followed by a Throwable
+     */
+    public void debug(String format, Object... args) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, format, args);
+        }
+    }
+
+    /**
+     * Logs a INFO message.
+     *
+     * @param message Message text
+     */
+    public void info(String message) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, message, null);
+        }
+    }
+
+    /**
+     * Logs a INFO message with one argument.
+     *
+     * @param format Message with a {} placeholder
+     * @param arg Placeholder value, or a Throwable to log with its stack trace
+     */
+    public void info(String format, Object arg) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, format, new Object[] { arg });
+        }
+    }
+
+    /**
+     * Logs a INFO message with two arguments.
+     *
+     * @param format Message with {} placeholders
+     * @param arg1 First placeholder value
+     * @param arg2 Second placeholder value, or a Throwable
+     */
+    public void info(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, format, new Object[] { arg1, arg2 });
+        }
+    }
+
+    /**
+     * Logs a INFO message with any number of arguments.
+     *
+     * @param format Message with {} placeholders
+     * @param args Placeholder values, optionally followed by a Throwable
+     */
+    public void info(String format, Object... args) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, format, args);
+        }
+    }
+
+    /**
+     * Logs a WARN message.
+     *
+     * @param message Message text
+     */
+    public void warn(String message) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, message, null);
+        }
+    }
+
+    /**
+     * Logs a WARN message with one argument.
+     *
+     * @param format Message with a {} placeholder
+     * @param arg Placeholder value, or a Throwable to log with its stack trace
+     */
+    public void warn(String format, Object arg) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, format, new Object[] { arg });
+        }
+    }
+
+    /**
+     * Logs a WARN message with two arguments.
+     *
+     * @param format Message with {} placeholders
+     * @param arg1 First placeholder value
+     * @param arg2 Second placeholder value, or a Throwable
+     */
+    public void warn(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, format, new Object[] { arg1, arg2 });
+        }
+    }
+
+    /**
+     * Logs a WARN message with any number of arguments.
+     *
+     * @param format Message with {} placeholders
+     * @param args Placeholder values, optionally followed by a Throwable
+     */
+    public void warn(String format, Object... args) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, format, args);
+        }
+    }
+
+    /**
+     * Logs a ERROR message.
+     *
+     * @param message Message text
+     */
+    public void error(String message) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, message, null);
+        }
+    }
+
+    /**
+     * Logs a ERROR message with one argument.
+     *
+     * @param format Message with a {} placeholder
+     * @param arg Placeholder value, or a Throwable to log with its stack trace
+     */
+    public void error(String format, Object arg) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, format, new Object[] { arg });
+        }
+    }
+
+    /**
+     * Logs a ERROR message with two arguments.
+     *
+     * @param format Message with {} placeholders
+     * @param arg1 First placeholder value
+     * @param arg2 Second placeholder value, or a Throwable
+     */
+    public void error(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, format, new Object[] { arg1, arg2 });
+        }
+    }
+
+    /**
+     * Logs a ERROR message with any number of arguments.
+     *
+     * @param format Message with {} placeholders
+     * @param args Placeholder values, optionally followed by a Throwable
+     */
+    public void error(String format, Object... args) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, format, args);
+        }
+    }
+
+    private void log(Level level, String format, Object[] args) {
+        Throwable throwable = null;
+        String message = format;
+        if (args != null && args.length > 0) {
+            int placeholders = countPlaceholders(format);
+            if (args.length > placeholders && args[args.length - 1] instanceof Throwable) {
+                throwable = (Throwable) args[args.length - 1];
+            }
+            message = substitute(format, args, Math.min(placeholders, args.length));
+        }
+
+        AsyncLogAppender.Event event = new AsyncLogAppender.Event(System.currentTimeMillis(), level,
+                Thread.currentThread().getName(), name, message, throwable);
+        AsyncLogAppender current = appender;
+        if (current == null) {
+            synchronized (Log.class) {
+                if (appender == null) {
+                    appender = new AsyncLogAppender(AsyncLogAppender.DEFAULT_CAPACITY);
+                }
+                current = appender;
+            }
+        }
+        if (!current.append(event) && current.getQueueDepth() == 0) {
+            // Appender stopped (application shutting down): write directly
+            (level.compareTo(Level.WARN) >= 0 ? System.err : System.out).print(AsyncLogAppender.render(event));
+        }
+    }
+
+    private static int countPlaceholders(String format) {
+        int count = 0;
+        for (int i = format.indexOf("{}"); i >= 0; i = format.indexOf("{}", i + 2)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static String substitute(String format, Object[] args, int count) {
+        StringBuilder out = new StringBuilder(format.length() + 16 * count);
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int at = format.indexOf("{}", from);
+            out.append(format, from, at).append(args[i]);
+            from = at + 2;
+        }
+        return out.append(format, from, format.length()).toString();
+    }
+}
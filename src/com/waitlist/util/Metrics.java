@@ -0,0 +1,280 @@
+package com.waitlist.util;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Application Metrics
+ * Registry of latency histograms and error counters, written out in the Prometheus text
+ * exposition format by the /metrics endpoint.
+ *
+ * - HTTP request latency and server errors per endpoint (recorded by MetricsFilter).
+ * - JSP render latency per page, including pages reached by forward.
+ * - DAO latency per method: how long each DAO method held a pooled connection.
+ * - Connection acquisition latency, from {@link SqlStatistics}.
+ * - Gauges and counters read from the connection pool, probability cache, probability
+ *   table, password hashing service and session token service at scrape time.
+ *
+ * Series are created on first use. Each family holds at most {@link #MAX_SERIES} label
+ * values so a scan of unknown URLs cannot grow the registry without bound; anything
+ * beyond that is folded into the "other" series.
+ */
+public class Metrics {
+
+    public static final int MAX_SERIES = 200;
+    public static final String OTHER = "other";
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final HistogramFamily httpRequests = new HistogramFamily(
+            "waitlist_http_request_duration_seconds", "HTTP request latency by endpoint", "endpoint");
+    private final HistogramFamily jspRenders = new HistogramFamily(
+            "waitlist_jsp_render_duration_seconds", "JSP render latency by page", "page");
+    private final HistogramFamily daoCalls = new HistogramFamily(
+            "waitlist_dao_duration_seconds", "Time DAO methods held a database connection", "method");
+    private final CounterFamily httpErrors = new CounterFamily(
+            "waitlist_http_errors_total", "Requests that failed with a 5xx status or an exception", "endpoint");
+
+    private Metrics() {}
+
+    /**
+     * Returns the application-wide metrics registry.
+     *
+     * @return shared registry
+     */
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Histogram for one HTTP endpoint.
+     *
+     * @param endpoint Servlet path, e.g. /WaitlistServlet
+     * @return endpoint latency histogram
+     */
+    public LatencyHistogram httpTimer(String endpoint) {
+        return httpRequests.get(endpoint);
+    }
+
+    /**
+     * Histogram for one JSP page.
+     *
+     * @param page JSP path, e.g. /dashboard.jsp
+     * @return render latency histogram
+     */
+    public LatencyHistogram jspTimer(String page) {
+        return jspRenders.get(page);
+    }
+
+    /**
+     * Histogram for one DAO method.
+     *
+     * @param method Class and method name, e.g. WaitlistDAO.getTrainByNumber
+     * @return DAO latency histogram
+     */
+    public LatencyHistogram daoTimer(String method) {
+        return daoCalls.get(method);
+    }
+
+    /**
+     * Counts a failed request.
+     *
+     * @param endpoint Servlet path of the failed request
+     */
+    public void incrementHttpErrors(String endpoint) {
+        httpErrors.get(endpoint).increment();
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format (version 0.0.4).
+     *
+     * @param out Destination buffer
+     */
+    public void writePrometheus(StringBuilder out) {
+        httpRequests.write(out);
+        jspRenders.write(out);
+        daoCalls.write(out);
+        httpErrors.write(out);
+
+        header(out, "waitlist_db_acquire_duration_seconds", "Time spent waiting for a pooled connection", "histogram");
+        writeHistogram(out, "waitlist_db_acquire_duration_seconds", null, null, SqlStatistics.getInstance().getAcquireTimer());
+
+        ConnectionPool pool = DBConnection.getPool();
+        gauge(out, "waitlist_db_connections_active", "Connections currently borrowed from the pool", pool.getActiveCount());
+        gauge(out, "waitlist_db_connections_idle", "Warm connections waiting in the pool", pool.getIdleCount());
+        gauge(out, "waitlist_db_connections_max", "Maximum pool size", pool.getMaxSize());
+        counter(out, "waitlist_db_borrows_total", "Successful connection borrows", pool.getBorrowCount());
+        counter(out, "waitlist_db_borrow_timeouts_total", "Borrows that gave up because the pool stayed exhausted", pool.getTimeoutCount());
+        counter(out, "waitlist_db_leaks_total", "Borrows reported as possible connection leaks", pool.getLeakCount());
+        counter(out, "waitlist_db_validation_failures_total", "Idle connections discarded after failing validation", pool.getValidationFailureCount());
+
+        ProbabilityCache cache = ProbabilityCache.getInstance();
+        gauge(out, "waitlist_probability_cache_entries", "Cached probabilities", cache.size());
+        counter(out, "waitlist_probability_cache_hits_total", "Probability cache hits", cache.getHitCount());
+        counter(out, "waitlist_probability_cache_misses_total", "Probability cache misses", cache.getMissCount());
+
+        gauge(out, "waitlist_factor_model_fitted_curves", "Train/class pairs with fitted factor curves",
+            FactorModel.getCurrent().getFittedCount());
+
+        ProbabilityTable table = ProbabilityTable.getInstance();
+        gauge(out, "waitlist_probability_table_series", "Precomputed (train, class) probability series", table.getSeriesCount());
+        gauge(out, "waitlist_probability_table_build_seconds", "Duration of the last probability table rebuild",
+            table.getLastBuildMillis() / 1000.0);
+        counter(out, "waitlist_probability_table_hits_total", "Probabilities served from the precomputed table", table.getHitCount());
+        counter(out, "waitlist_probability_table_misses_total", "Probabilities calculated live (outside the table or stale)",
+            table.getMissCount());
+
+        PasswordHashingService hashing = PasswordHashingService.getInstance();
+        counter(out, "waitlist_password_hash_rejected_total", "Hashing requests rejected because the pool was full", hashing.getRejectedCount());
+        counter(out, "waitlist_password_hash_timeouts_total", "Hashing requests that timed out", hashing.getTimeoutCount());
+        counter(out, "waitlist_session_token_rejected_total", "Session tokens refused as malformed, forged or expired",
+            SessionTokenService.getInstance().getRejectedCount());
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        header(out, name, help, "gauge");
+        out.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "counter");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Writes the bucket, sum and count lines of one histogram series; label may be null.
+     */
+    private static void writeHistogram(StringBuilder out, String name, String label, String value,
+                                       LatencyHistogram histogram) {
+        long[] counts = histogram.snapshotCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            out.append(name).append("_bucket{");
+            if (label != null) {
+                appendLabel(out, label, value);
+                out.append(',');
+            }
+            appendLabel(out, "le", i < histogram.getBucketCount() ? format(histogram.getBoundSeconds(i)) : "+Inf");
+            out.append("} ").append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum");
+        appendLabels(out, label, value);
+        out.append(' ').append(format(histogram.getSumSeconds())).append('\n');
+        out.append(name).append("_count");
+        appendLabels(out, label, value);
+        out.append(' ').append(cumulative).append('\n');
+    }
+
+    private static void appendLabels(StringBuilder out, String label, String value) {
+        if (label != null) {
+            out.append('{');
+            appendLabel(out, label, value);
+            out.append('}');
+        }
+    }
+
+    private static void appendLabel(StringBuilder out, String label, String value) {
+        out.append(label).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Series of one metric keyed by a single label value, capped at MAX_SERIES.
+     */
+    private abstract static class Family<T> {
+        final String name;
+        final String help;
+        final String label;
+        final ConcurrentMap<String, T> series = new ConcurrentHashMap<>();
+
+        Family(String name, String help, String label) {
+            this.name = name;
+            this.help = help;
+            this.label = label;
+        }
+
+        T get(String labelValue) {
+            String key = labelValue == null || labelValue.isEmpty() ? OTHER : labelValue;
+            T existing = series.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (series.size() >= MAX_SERIES) {
+                key = OTHER;
+            }
+            return series.computeIfAbsent(key, k -> create());
+        }
+
+        abstract T create();
+
+        /** Series sorted by label so scrapes are stable and diffable. */
+        Map<String, T> sorted() {
+            return new TreeMap<>(series);
+        }
+    }
+
+    private static final class HistogramFamily extends Family<LatencyHistogram> {
+        HistogramFamily(String name, String help, String label) {
+            super(name, help, label);
+        }
+
+        @Override
+        LatencyHistogram create() {
+            return new LatencyHistogram();
+        }
+
+        void write(StringBuilder out) {
+            header(out, name, help, "histogram");
+            for (Map.Entry<String, LatencyHistogram> entry : sorted().entrySet()) {
+                writeHistogram(out, name, label, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static final class CounterFamily extends Family<LongAdder> {
+        CounterFamily(String name, String help, String label) {
+            super(name, help, label);
+        }
+
+        @Override
+        LongAdder create() {
+            return new LongAdder();
+        }
+
+        void write(StringBuilder out) {
+            header(out, name, help, "counter");
+            for (Map.Entry<String, LongAdder> entry : sorted().entrySet()) {
+                out.append(name).append('{');
+                appendLabel(out, label, entry.getKey());
+                out.append("} ").append(entry.getValue().sum()).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.waitlist.util;
+
+/**
+ * Password Hasher
+ * Turns passwords into stored hashes and checks passwords against them.
+ * Implementations encode everything needed for verification (algorithm, cost, salt) in the
+ * stored string, so the cost can be raised later and older hashes upgraded on the next login.
+ */
+public interface PasswordHasher {
+
+    /**
+     * Hashes a password for storage, with a fresh random salt.
+     *
+     * @param password The plain text password
+     * @return Encoded hash to store in users.password_hash
+     */
+    String hash(String password);
+
+    /**
+     * Checks a password against a stored hash.
+     *
+     * @param password The plain text password
+     * @param storedHash The stored hash
+     * @return true if the password matches
+     */
+    boolean verify(String password, String storedHash);
+
+    /**
+     * Whether a stored hash uses an older algorithm or a lower cost than this hasher and
+     * should be replaced the next time the password is known.
+     *
+     * @param storedHash The stored hash
+     * @return true if the hash should be upgraded
+     */
+    boolean needsRehash(String storedHash);
+}
@@ -0,0 +1,223 @@
+package com.waitlist.util;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Password Hashing Service
+ * Runs password hashing and verification on a dedicated, bounded thread pool.
+ *
+ * A deliberately slow hash makes each login cost real CPU. Running it on the request thread
+ * would let a burst of login attempts occupy every container thread and stall probability
+ * lookups. Here at most {@code threads} hashes run at once, at most {@code maxQueue} wait, and
+ * anything beyond that is rejected immediately with RejectedExecutionException, which the
+ * login and registration servlets turn into a fast 503.
+ */
+public class PasswordHashingService {
+
+    private static final Log LOG = Log.getLogger(PasswordHashingService.class);
+
+    public static final int DEFAULT_QUEUE = 32;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
+    private static final PasswordHashingService INSTANCE = new PasswordHashingService();
+
+    private volatile PasswordHasher hasher = new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.DEFAULT_ITERATIONS);
+    // Hash of a random password at the current cost, verified against when no account matches
+    private volatile String dummyHash = hasher.hash(UUID.randomUUID().toString());
+    private volatile ThreadPoolExecutor executor;
+    private volatile long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    private PasswordHashingService() {
+        executor = createExecutor(defaultThreads(), DEFAULT_QUEUE);
+    }
+
+    /**
+     * Returns the application-wide hashing service.
+     *
+     * @return shared service instance
+     */
+    public static PasswordHashingService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Default pool size: half the processors, so hashing can never take all the CPU.
+     *
+     * @return default thread count
+     */
+    public static int defaultThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    /**
+     * Replaces the hasher and the pool limits.
+     *
+     * @param hasher Hasher for new hashes and verification
+     * @param threads Maximum concurrent hashes
+     * @param maxQueue Maximum hashes waiting for a thread
+     * @param timeoutMillis Maximum time a caller waits for its result
+     */
+    public synchronized void configure(PasswordHasher hasher, int threads, int maxQueue, long timeoutMillis) {
+        ThreadPoolExecutor previous = executor;
+        this.hasher = hasher;
+        this.dummyHash = hasher.hash(UUID.randomUUID().toString());
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+        this.executor = createExecutor(Math.max(1, threads), Math.max(1, maxQueue));
+        previous.shutdown();
+        LOG.info("Password hashing: {}, threads={}, queue={}", hasher, Math.max(1, threads), Math.max(1, maxQueue));
+    }
+
+    /**
+     * Gets the configured hasher.
+     *
+     * @return current hasher
+     */
+    public PasswordHasher getHasher() {
+        return hasher;
+    }
+
+    /**
+     * Hashes a password for storage on the hashing pool.
+     *
+     * @param password The plain text password
+     * @return Encoded hash
+     * @throws RejectedExecutionException if the pool is saturated or the result did not arrive in time
+     */
+    public String hash(String password) {
+        PasswordHasher current = hasher;
+        return run(() -> current.hash(password));
+    }
+
+    /**
+     * Verifies a password against a stored hash on the hashing pool.
+     *
+     * @param password The plain text password
+     * @param storedHash The stored hash
+     * @return true if the password matches
+     * @throws RejectedExecutionException if the pool is saturated or the result did not arrive in time
+     */
+    public boolean verify(String password, String storedHash) {
+        PasswordHasher current = hasher;
+        return run(() -> current.verify(password, storedHash));
+    }
+
+    /**
+     * Verifies a password against a hash that matches no account, on the hashing pool.
+     * Lets a login for an unknown username cost the same as one with a wrong password, so
+     * response times do not reveal which usernames exist.
+     *
+     * @param password The plain text password
+     * @throws RejectedExecutionException if the pool is saturated or the result did not arrive in time
+     */
+    public void verifyDummy(String password) {
+        PasswordHasher current = hasher;
+        String dummy = dummyHash;
+        run(() -> current.verify(password, dummy));
+    }
+
+    /**
+     * Whether a stored hash should be replaced with one from the current hasher.
+     *
+     * @param storedHash The stored hash
+     * @return true if the hash is outdated
+     */
+    public boolean needsRehash(String storedHash) {
+        return hasher.needsRehash(storedHash);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCount.incrementAndGet();
+            throw new RejectedExecutionException("Password hashing timed out after " + timeoutMillis + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RejectedExecutionException("Interrupted waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Stops the hashing pool.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Number of hashes currently waiting for a thread.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Requests turned away because the pool and its queue were full.
+     *
+     * @return rejected count
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Requests that gave up waiting for their hash.
+     *
+     * @return timeout count
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threads, int maxQueue) {
+        AtomicInteger threadCount = new AtomicInteger();
+        // AbortPolicy: a full queue rejects at once rather than running on the caller's thread
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueue), r -> {
+                    Thread t = new Thread(r, "password-hash-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String toString() {
+        return "PasswordHashingService{" +
+                "hasher=" + hasher +
+                ", active=" + executor.getActiveCount() +
+                ", queued=" + getQueueDepth() +
+                ", rejected=" + getRejectedCount() +
+                ", timeouts=" + getTimeoutCount() +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package com.waitlist.util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2 Password Hasher
+ * Salted PBKDF2-HMAC-SHA256 with a configurable iteration count, stored as
+ * {@code pbkdf2-sha256$<iterations>$<salt>$<hash>} (Base64 salt and hash).
+ * Also verifies the legacy unsalted SHA-256 hex hashes from SecurityUtil.hashPassword,
+ * reporting them as needing a rehash so they are upgraded on the user's next login.
+ */
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    public static final int DEFAULT_ITERATIONS = 210000;
+
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Creates a hasher with the given cost.
+     *
+     * @param iterations PBKDF2 iteration count (at least 1000)
+     */
+    public Pbkdf2PasswordHasher(int iterations) {
+        this.iterations = Math.max(1000, iterations);
+    }
+
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] key = derive(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(key);
+    }
+
+    @Override
+    public boolean verify(String password, String storedHash) {
+        if (storedHash == null) {
+            return false;
+        }
+        if (!storedHash.startsWith(PREFIX + "$")) {
+            // Legacy SHA-256 hex hash
+            byte[] legacy = SecurityUtil.hashPassword(password).getBytes(StandardCharsets.US_ASCII);
+            return MessageDigest.isEqual(legacy, storedHash.getBytes(StandardCharsets.US_ASCII));
+        }
+        String[] parts = storedHash.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            byte[] actual = derive(password, salt, storedIterations);
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false; // Malformed stored hash
+        }
+    }
+
+    @Override
+    public boolean needsRehash(String storedHash) {
+        if (storedHash == null || !storedHash.startsWith(PREFIX + "$")) {
+            return true;
+        }
+        String[] parts = storedHash.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Gets the iteration count used for new hashes.
+     *
+     * @return iteration count
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("PBKDF2WithHmacSHA256 not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Pbkdf2PasswordHasher{iterations=" + iterations + '}';
+    }
+}
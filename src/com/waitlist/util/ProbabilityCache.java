@@ -0,0 +1,408 @@
+package com.waitlist.util;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Probability Cache
+ * Bounded cache of calculated confirmation probabilities keyed by
+ * (train, class, journey date, waitlist number).
+ *
+ * - Lookups never lock: entries live in a ConcurrentHashMap and a hit only sets the entry's
+ *   referenced flag.
+ * - Size-bounded with CLOCK (second-chance) eviction, an approximation of least-recently-used:
+ *   once the bound is exceeded, a hand sweeps the map clearing referenced flags and removes the
+ *   first entry found without one. Only inserts past the bound take the eviction lock.
+ * - Entry lifetime depends on how close the journey is: bookings for imminent journeys keep
+ *   arriving, so their probabilities go stale quickly, while far-off or past dates barely move.
+ * - Concurrent misses for the same key are coalesced: the first caller computes and every
+ *   other caller waits for that result instead of repeating the database work.
+ * - Invalidated whenever booking data changes, so a new row is reflected on the next lookup:
+ *   a booking drops only its train and class's entries, while a full rate reload or a new
+ *   factor model clears everything.
+ */
+public class ProbabilityCache {
+
+    /**
+     * Computes a probability on a cache miss. Exceptions are passed to every waiting caller
+     * and the result is not cached.
+     */
+    public interface Loader {
+        double load() throws Exception;
+    }
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private static final ProbabilityCache INSTANCE = new ProbabilityCache();
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>(256);
+    private final ConcurrentHashMap<Key, CompletableFuture<Double>> inFlight = new ConcurrentHashMap<>();
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+    private volatile long generation = 0; // bumped by clear()
+    // Bumped by invalidate() for one train and class; never removed, one per series ever queried
+    private final ConcurrentHashMap<Series, AtomicLong> seriesGenerations = new ConcurrentHashMap<>();
+
+    private final Object evictionLock = new Object();
+    // CLOCK hand; ConcurrentHashMap iterators are weakly consistent, so it survives concurrent updates
+    private Iterator<Map.Entry<Key, Entry>> hand; // guarded by evictionLock
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+
+    private ProbabilityCache() {}
+
+    /**
+     * Returns the application-wide probability cache.
+     *
+     * @return shared cache instance
+     */
+    public static ProbabilityCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the maximum number of cached probabilities.
+     *
+     * @param maxEntries Maximum entry count (at least 1)
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Returns the cached probability for the query, computing it with the loader on a miss.
+     *
+     * @param trainNo Train number
+     * @param journeyDate Journey date
+     * @param classType Class type
+     * @param waitlistNumber Waitlist position
+     * @param loader Computes the probability on a miss
+     * @return Probability as percentage (0-100)
+     * @throws Exception whatever the loader threw (for this caller or the one it waited on)
+     */
+    public double get(String trainNo, LocalDate journeyDate, String classType, int waitlistNumber,
+                      Loader loader) throws Exception {
+        Key key = new Key(trainNo, classType, journeyDate.toEpochDay(), waitlistNumber);
+        long now = System.nanoTime();
+
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (now - entry.expiresAt < 0) {
+                if (!entry.referenced) {
+                    entry.referenced = true; // skip the write when already set, keeping the line shared
+                }
+                hitCount.increment();
+                return entry.probability;
+            }
+            if (entries.remove(key, entry)) {
+                expiredCount.increment();
+            }
+        }
+
+        CompletableFuture<Double> mine = new CompletableFuture<>();
+        CompletableFuture<Double> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalescedCount.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        missCount.increment();
+        long startGeneration = generation;
+        AtomicLong series = seriesGenerations.computeIfAbsent(new Series(trainNo, classType), s -> new AtomicLong());
+        long startSeries = series.get();
+        try {
+            double probability = loader.load();
+            // Don't cache a result computed from data that changed while it ran. An invalidation
+            // may also run between the check and the put, so check again afterwards and undo the put
+            if (generation == startGeneration && series.get() == startSeries) {
+                Entry fresh = new Entry(probability, System.nanoTime() + ttlNanos(journeyDate));
+                entries.put(key, fresh);
+                if (generation != startGeneration || series.get() != startSeries) {
+                    entries.remove(key, fresh);
+                } else if (entries.size() > maxEntries) {
+                    evict();
+                }
+            }
+            mine.complete(probability);
+            return probability;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Drops every cached probability, e.g. after booking history changed.
+     * Computations already running still answer their callers but are not cached.
+     */
+    public void clear() {
+        synchronized (evictionLock) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    /**
+     * Drops the cached probabilities of one train and class after its booking data changed.
+     * Computations already running for it still answer their callers but are not cached.
+     *
+     * @param trainNo Train number
+     * @param classType Class type
+     */
+    public void invalidate(String trainNo, String classType) {
+        invalidate(Collections.singletonMap(trainNo, Collections.singleton(classType)));
+    }
+
+    /**
+     * Drops the cached probabilities of several trains and classes in one pass over the cache,
+     * e.g. after a batch of booking rows was written.
+     *
+     * @param classTypesByTrain Changed class types keyed by train number
+     */
+    public void invalidate(Map<String, ? extends Set<String>> classTypesByTrain) {
+        synchronized (evictionLock) {
+            for (Map.Entry<String, ? extends Set<String>> train : classTypesByTrain.entrySet()) {
+                for (String classType : train.getValue()) {
+                    seriesGenerations.computeIfAbsent(new Series(train.getKey(), classType), s -> new AtomicLong())
+                        .incrementAndGet();
+                }
+            }
+            entries.keySet().removeIf(key -> {
+                Set<String> classTypes = classTypesByTrain.get(key.trainNo);
+                return classTypes != null && classTypes.contains(key.classType);
+            });
+        }
+    }
+
+    /**
+     * Drops the cached probabilities of every class of a train, e.g. after the train was deleted.
+     *
+     * @param trainNo Train number
+     */
+    public void invalidateTrain(String trainNo) {
+        synchronized (evictionLock) {
+            seriesGenerations.forEach((series, seriesGeneration) -> {
+                if (series.trainNo.equals(trainNo)) {
+                    seriesGeneration.incrementAndGet();
+                }
+            });
+            entries.keySet().removeIf(key -> key.trainNo.equals(trainNo));
+        }
+    }
+
+    /**
+     * Removes entries until the cache is back within its bound. Advances the CLOCK hand, giving
+     * each referenced entry a second chance by clearing its flag; expired entries go first.
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            long now = System.nanoTime();
+            // Two full sweeps clear every flag, so this always terminates
+            int budget = 2 * (entries.size() + 1);
+            while (entries.size() > maxEntries && budget-- > 0) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<Key, Entry> candidate = hand.next();
+                Entry entry = candidate.getValue();
+                if (now - entry.expiresAt >= 0) {
+                    if (entries.remove(candidate.getKey(), entry)) {
+                        expiredCount.increment();
+                    }
+                } else if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (entries.remove(candidate.getKey(), entry)) {
+                    evictionCount.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * How long a probability for the given journey date stays cached.
+     */
+    private static long ttlNanos(LocalDate journeyDate) {
+        long daysAway = ChronoUnit.DAYS.between(LocalDate.now(), journeyDate);
+        if (daysAway < 0) {
+            return TimeUnit.HOURS.toNanos(1); // Past journey - history is settled
+        } else if (daysAway <= 2) {
+            return TimeUnit.MINUTES.toNanos(1); // Imminent - bookings change by the minute
+        } else if (daysAway <= 7) {
+            return TimeUnit.MINUTES.toNanos(5);
+        } else if (daysAway <= 30) {
+            return TimeUnit.MINUTES.toNanos(15);
+        } else {
+            return TimeUnit.HOURS.toNanos(1);
+        }
+    }
+
+    /**
+     * Number of cached probabilities.
+     *
+     * @return entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Lookups answered from the cache.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Lookups that computed the probability.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Lookups that waited for another caller's computation of the same key.
+     *
+     * @return coalesced count
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Entries dropped to stay within the size bound.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Entries found expired on lookup.
+     *
+     * @return expired count
+     */
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * Share of lookups served without computing (hits and coalesced waits).
+     *
+     * @return hit ratio between 0.0 and 1.0
+     */
+    public double getHitRatio() {
+        long hits = getHitCount() + getCoalescedCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0.0 : hits * 1.0 / total;
+    }
+
+    @Override
+    public String toString() {
+        return "ProbabilityCache{" +
+                "size=" + size() +
+                ", maxEntries=" + maxEntries +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", coalesced=" + getCoalescedCount() +
+                ", evictions=" + getEvictionCount() +
+                ", expired=" + getExpiredCount() +
+                '}';
+    }
+
+    private static final class Entry {
+        private final double probability;
+        private final long expiresAt;
+        private volatile boolean referenced; // set by hits, cleared by the CLOCK hand
+
+        private Entry(double probability, long expiresAt) {
+            this.probability = probability;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Key {
+        private final String trainNo;
+        private final String classType;
+        private final long epochDay;
+        private final int waitlistNumber;
+
+        private Key(String trainNo, String classType, long epochDay, int waitlistNumber) {
+            this.trainNo = trainNo;
+            this.classType = classType;
+            this.epochDay = epochDay;
+            this.waitlistNumber = waitlistNumber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return epochDay == other.epochDay && waitlistNumber == other.waitlistNumber
+                    && trainNo.equals(other.trainNo) && classType.equals(other.classType);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((trainNo.hashCode() * 31 + classType.hashCode()) * 31 + Long.hashCode(epochDay)) * 31 + waitlistNumber;
+        }
+    }
+
+    private static final class Series {
+        private final String trainNo;
+        private final String classType;
+
+        private Series(String trainNo, String classType) {
+            this.trainNo = trainNo;
+            this.classType = classType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Series)) {
+                return false;
+            }
+            Series other = (Series) o;
+            return trainNo.equals(other.trainNo) && classType.equals(other.classType);
+        }
+
+        @Override
+        public int hashCode() {
+            return trainNo.hashCode() * 31 + classType.hashCode();
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.waitlist.util;
 
 import com.waitlist.dao.WaitlistDAO;
-import java.util.Calendar;
-import java.util.Date;
+import com.waitlist.model.ConfirmationRates;
+import java.sql.SQLException;
+import java.time.LocalDate;
 
 /**
  * Probability Calculation Engine
  * Calculates the confirmation probability for railway tickets based on
  * historical booking data, current waitlist position, and seasonal factors.
  * Uses weighted algorithms to provide accurate probability predictions.
+ * Waitlist and seasonal factors come from the published FactorModel.
  */
 public class ProbabilityCalculator {
+
+    private static final Log LOG = Log.getLogger(ProbabilityCalculator.class);
+    
+    /**
+     * Pseudo-sample count given to the historical rate when blending it with the date-specific rate.
+     * A single date-specific sample gets 1 / (1 + 3/7) = 70% weight, matching the original 70/30 split;
+     * more samples on the exact date push its weight towards 100%.
+     */
+    private static final double SPECIFIC_PRIOR_SAMPLES = 3.0 / 7.0;
     
     private WaitlistDAO waitlistDAO;
     
@@ -31,95 +42,133 @@ public class ProbabilityCalculator {
      * @param waitlistNumber Current position in waitlist
      * @return Probability as percentage (0-100)
      */
-    public double calculateConfirmationProbability(String trainNo, Date journeyDate, 
+    public double calculateConfirmationProbability(String trainNo, LocalDate journeyDate, 
                                                  String classType, int waitlistNumber) {
         try {
-            // Get specific date confirmation rate
-            double specificDateRate = waitlistDAO.getAverageConfirmationRate(trainNo, journeyDate, classType);
-            
-            // Get historical data for similar dates
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(journeyDate);
-            int dayOfWeek = cal.get(Calendar.DAY_OF_WEEK);
-            int month = cal.get(Calendar.MONTH) + 1; // Calendar months are 0-based
-            
-            double historicalRate = waitlistDAO.getHistoricalConfirmationRate(trainNo, classType, dayOfWeek, month);
-            
-            // Calculate base probability using weighted average
-            double baseProbability = calculateWeightedAverage(specificDateRate, historicalRate);
+            // Journeys inside the precomputed horizon are a single array read
+            double precomputed = ProbabilityTable.getInstance().lookup(trainNo, journeyDate, classType, waitlistNumber);
+            if (!Double.isNaN(precomputed)) {
+                return precomputed;
+            }
             
-            // Apply waitlist number factor
-            double waitlistFactor = calculateWaitlistFactor(waitlistNumber);
-            
-            // Apply seasonal factors
-            double seasonalFactor = calculateSeasonalFactor(month);
-            
-            // Calculate final probability
-            double finalProbability = baseProbability * waitlistFactor * seasonalFactor;
-            
-            // Ensure probability is between 0 and 1
-            finalProbability = Math.max(0.0, Math.min(1.0, finalProbability));
-            
-            return finalProbability * 100; // Convert to percentage
+            // Identical queries within the cache TTL share one computation
+            return ProbabilityCache.getInstance().get(trainNo, journeyDate, classType, waitlistNumber, () -> {
+                ConfirmationRates rates = getConfirmationRates(trainNo, journeyDate, classType);
+                if (rates == null) {
+                    // Thrown rather than falling back to the no-data default, which would then be cached
+                    throw new SQLException("Confirmation rates unavailable for train " + trainNo);
+                }
+                return calculateFromRates(rates, getCurves(trainNo, classType), getMonth(journeyDate), waitlistNumber);
+            });
             
         } catch (Exception e) {
-            System.err.println("Error calculating probability: " + e.getMessage());
+            LOG.error("Error calculating probability: {}", e.getMessage());
             return 0.0;
         }
     }
     
     /**
-     * Calculate weighted average between specific and historical data
-     * @param specificRate specific date rate
-     * @param historicalRate historical rate
-     * @return weighted average
+     * Fetches the confirmation rates behind a probability calculation.
+     * Callers evaluating several waitlist numbers for the same train, date and class can fetch
+     * the rates once and pass them to {@link #calculateFromRates} for each number.
+     * 
+     * @param trainNo The train number
+     * @param journeyDate The journey date
+     * @param classType The travel class (e.g., "1AC", "2AC")
+     * @return Date-specific and historical rates with sample counts, or null if the database could not be read
      */
-    private double calculateWeightedAverage(double specificRate, double historicalRate) {
-        // If we have specific data, weight it more heavily
-        if (specificRate > 0) {
-            return (specificRate * 0.7) + (historicalRate * 0.3);
-        } else {
-            // If no specific data, use historical data
-            return historicalRate > 0 ? historicalRate : 0.3; // Default 30% if no data
+    public ConfirmationRates getConfirmationRates(String trainNo, LocalDate journeyDate, String classType) {
+        // Get historical data for similar dates (same weekday and month)
+        int dayOfWeek = DateUtil.mysqlDayOfWeek(journeyDate);
+        int month = journeyDate.getMonthValue();
+        
+        // Answer from the in-memory rate cube when loaded, otherwise one combined database query
+        ConfirmationRateCube cube = ConfirmationRateCube.getInstance();
+        if (cube.isLoaded()) {
+            return cube.getConfirmationRates(trainNo, journeyDate, classType, dayOfWeek, month);
         }
+        return waitlistDAO.getConfirmationRates(trainNo, journeyDate, classType, dayOfWeek, month);
     }
     
     /**
-     * Calculate waitlist number factor
-     * @param waitlistNumber current waitlist number
-     * @return factor (0.0 to 1.0)
+     * Factor curves for a train and class from the published factor model.
+     * 
+     * @param trainNo The train number
+     * @param classType The travel class
+     * @return fitted curves, or the default curves if none were fitted
      */
-    private double calculateWaitlistFactor(int waitlistNumber) {
-        if (waitlistNumber <= 0) {
-            return 1.0; // No waitlist
-        } else if (waitlistNumber <= 5) {
-            return 0.9; // High probability
-        } else if (waitlistNumber <= 10) {
-            return 0.7; // Good probability
-        } else if (waitlistNumber <= 20) {
-            return 0.5; // Moderate probability
-        } else if (waitlistNumber <= 50) {
-            return 0.3; // Low probability
-        } else {
-            return 0.1; // Very low probability
-        }
+    public FactorModel.Curves getCurves(String trainNo, String classType) {
+        return FactorModel.getCurrent().curvesFor(trainNo, classType);
     }
     
     /**
-     * Calculate seasonal factor based on month
-     * @param month month (1-12)
-     * @return seasonal factor
+     * Calculates the confirmation probability from already fetched rates.
+     * 
+     * @param rates Rates from {@link #getConfirmationRates}
+     * @param curves Factor curves from {@link #getCurves}
+     * @param month Month of the journey date (1-12)
+     * @param waitlistNumber Current position in waitlist
+     * @return Probability as percentage (0-100)
      */
-    private double calculateSeasonalFactor(int month) {
-        // Peak travel seasons
-        if (month == 4 || month == 5 || month == 10 || month == 11) {
-            return 0.8; // Peak season - lower probability
-        } else if (month == 6 || month == 7 || month == 8) {
-            return 0.9; // Summer - moderate probability
-        } else if (month == 12 || month == 1) {
-            return 0.7; // Holiday season - lower probability
+    public double calculateFromRates(ConfirmationRates rates, FactorModel.Curves curves, int month, int waitlistNumber) {
+        return applyWaitlistFactor(calculateSeasonalBase(rates, curves, month), curves, waitlistNumber);
+    }
+    
+    /**
+     * Everything in a probability that does not depend on the waitlist number: the
+     * confidence-weighted base rate times the seasonal factor.
+     * 
+     * @param rates Rates from {@link #getConfirmationRates}
+     * @param curves Factor curves from {@link #getCurves}
+     * @param month Month of the journey date (1-12)
+     * @return seasonally adjusted base rate (0-1 before the waitlist factor)
+     */
+    public double calculateSeasonalBase(ConfirmationRates rates, FactorModel.Curves curves, int month) {
+        return calculateWeightedAverage(rates) * curves.seasonalFactor(month);
+    }
+    
+    /**
+     * Applies the waitlist factor to a seasonally adjusted base rate.
+     * 
+     * @param seasonalBase Result of {@link #calculateSeasonalBase}
+     * @param curves The same curves the base was calculated with
+     * @param waitlistNumber Current position in waitlist
+     * @return Probability as percentage (0-100)
+     */
+    public static double applyWaitlistFactor(double seasonalBase, FactorModel.Curves curves, int waitlistNumber) {
+        // Ensure probability is between 0 and 1, then convert to percentage
+        return Math.max(0.0, Math.min(1.0, seasonalBase * curves.waitlistFactor(waitlistNumber))) * 100;
+    }
+    
+    /**
+     * Month of a date as used by the seasonal factor.
+     * 
+     * @param journeyDate The journey date
+     * @return month (1-12)
+     */
+    public int getMonth(LocalDate journeyDate) {
+        return journeyDate.getMonthValue();
+    }
+    
+    /**
+     * Calculate weighted average between specific and historical data.
+     * The specific rate's weight grows with the number of rows behind it.
+     * @param rates specific and historical rates with sample counts
+     * @return weighted average
+     */
+    private double calculateWeightedAverage(ConfirmationRates rates) {
+        long specificCount = rates.getSpecificCount();
+        long historicalCount = rates.getHistoricalCount();
+        
+        if (specificCount > 0 && historicalCount > 0) {
+            // Weight specific data more heavily the more samples support it
+            double specificWeight = specificCount / (specificCount + SPECIFIC_PRIOR_SAMPLES);
+            return (rates.getSpecificRate() * specificWeight) + (rates.getHistoricalRate() * (1 - specificWeight));
+        } else if (specificCount > 0) {
+            return rates.getSpecificRate();
         } else {
-            return 1.0; // Normal season
+            // If no specific data, use historical data
+            return historicalCount > 0 ? rates.getHistoricalRate() : 0.3; // Default 30% if no data
         }
     }
     
@@ -0,0 +1,372 @@
+package com.waitlist.util;
+
+import com.waitlist.dao.WaitlistDAO;
+import com.waitlist.model.Train;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Probability Table
+ * Precomputed confirmation probabilities for every train and class over the next
+ * {@code horizonDays} journey dates, so most lookups are a single array read.
+ *
+ * - Each (train, class) holds one flat float array with the seasonally adjusted base rate per
+ *   day offset, plus the factor curves it was computed with. A lookup multiplies the day's value
+ *   by the waitlist factor - two array loads, whatever the waitlist number.
+ * - A background job rebuilds the table from the ConfirmationRateCube and FactorModel whenever
+ *   booking data or the model changed, or the date rolled over; the series are computed in parallel and
+ *   published as one immutable snapshot, so lookups never wait for a rebuild.
+ * - When the cube changes, the affected series are marked stale at once and their lookups fall
+ *   back to the live calculation until the next rebuild - a stale value is never served.
+ * - Dates outside the horizon and trains or classes unknown at build time also fall back.
+ */
+public class ProbabilityTable {
+
+    private static final Log LOG = Log.getLogger(ProbabilityTable.class);
+
+    public static final int DEFAULT_HORIZON_DAYS = 120;
+    public static final long DEFAULT_REFRESH_MILLIS = 10_000;
+
+    private static final ProbabilityTable INSTANCE = new ProbabilityTable();
+
+    private final Object buildLock = new Object();
+    private final Object invalidationLock = new Object();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile int horizonDays = DEFAULT_HORIZON_DAYS;
+
+    // Guarded by invalidationLock
+    private boolean dirty = false;
+    private boolean building = false;
+    private final List<String[]> changedDuringBuild = new ArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+    private ForkJoinPool computePool;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private volatile long lastBuildMillis = 0;
+
+    private ProbabilityTable() {}
+
+    /**
+     * Returns the application-wide probability table.
+     *
+     * @return shared table instance
+     */
+    public static ProbabilityTable getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the background job, which builds the table immediately and then rebuilds it
+     * whenever booking data changed or the date rolled over.
+     *
+     * @param horizonDays Number of journey dates to precompute, starting today; 0 disables the table
+     * @param refreshMillis How often the job checks whether a rebuild is needed
+     * @param threads Parallelism of a rebuild
+     */
+    public synchronized void start(int horizonDays, long refreshMillis, int threads) {
+        if (scheduler != null || horizonDays <= 0) {
+            return;
+        }
+        this.horizonDays = horizonDays;
+        computePool = new ForkJoinPool(Math.max(1, threads), pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("probability-table-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "probability-table");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (needsRebuild()) {
+                    rebuild();
+                }
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; stale series keep falling back to live calculation
+                LOG.warn("Probability table rebuild failed: {}", e.getMessage());
+            }
+        }, 0, Math.max(1000, refreshMillis), TimeUnit.MILLISECONDS);
+        LOG.info("Probability table: {} days, {} threads, checked every {}ms", horizonDays, Math.max(1, threads),
+            Math.max(1000, refreshMillis));
+    }
+
+    /**
+     * Stops the background job and drops the table.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            computePool.shutdownNow();
+            scheduler = null;
+            computePool = null;
+        }
+        snapshot = Snapshot.EMPTY;
+    }
+
+    /**
+     * Looks up a precomputed probability.
+     *
+     * @param trainNo The train number
+     * @param journeyDate The journey date
+     * @param classType The travel class
+     * @param waitlistNumber Current position in waitlist
+     * @return Probability as percentage (0-100), or NaN if it must be calculated live
+     */
+    public double lookup(String trainNo, LocalDate journeyDate, String classType, int waitlistNumber) {
+        Snapshot current = snapshot;
+        long day = journeyDate.toEpochDay() - current.startEpochDay;
+        if (day >= 0 && day < current.days) {
+            Map<String, Series> classes = current.byTrain.get(trainNo);
+            Series series = classes != null ? classes.get(classType) : null;
+            if (series != null && !series.stale) {
+                hitCount.increment();
+                return ProbabilityCalculator.applyWaitlistFactor(series.seasonalBase[(int) day], series.curves, waitlistNumber);
+            }
+        }
+        missCount.increment();
+        return Double.NaN;
+    }
+
+    /**
+     * Marks one train and class stale after its booking data changed.
+     *
+     * @param trainNo Train number
+     * @param classType Class type
+     */
+    public void invalidate(String trainNo, String classType) {
+        markChanged(trainNo, classType);
+    }
+
+    /**
+     * Marks every class of a train stale, e.g. after the train was deleted.
+     *
+     * @param trainNo Train number
+     */
+    public void invalidateTrain(String trainNo) {
+        markChanged(trainNo, null);
+    }
+
+    /**
+     * Marks the whole table stale, e.g. after the rate cube was reloaded or a factor model published.
+     */
+    public void invalidateAll() {
+        markChanged(null, null);
+    }
+
+    /**
+     * Rebuilds the table from the rate cube and publishes it.
+     *
+     * @return true if a new table was published, false if the cube is not loaded yet
+     * @throws IllegalStateException if the build fails; the previous table stays published
+     */
+    public boolean rebuild() {
+        ConfirmationRateCube cube = ConfirmationRateCube.getInstance();
+        if (!cube.isLoaded()) {
+            return false;
+        }
+        synchronized (buildLock) {
+            synchronized (invalidationLock) {
+                dirty = false;
+                building = true;
+                changedDuringBuild.clear();
+            }
+            long start = System.currentTimeMillis();
+            Snapshot fresh = null;
+            try {
+                fresh = build(cube, LocalDate.now(), horizonDays);
+            } finally {
+                synchronized (invalidationLock) {
+                    building = false;
+                    if (fresh != null) {
+                        // Changes that landed mid-build may not be reflected in the new values
+                        for (String[] change : changedDuringBuild) {
+                            markStale(fresh, change[0], change[1]);
+                        }
+                        snapshot = fresh;
+                    } else {
+                        dirty = true;
+                    }
+                    changedDuringBuild.clear();
+                }
+            }
+            lastBuildMillis = System.currentTimeMillis() - start;
+            LOG.info("Probability table built: {} series x {} days in {}ms", fresh.seriesCount, fresh.days, lastBuildMillis);
+            return true;
+        }
+    }
+
+    /**
+     * Number of (train, class) series in the published table.
+     *
+     * @return series count
+     */
+    public int getSeriesCount() {
+        return snapshot.seriesCount;
+    }
+
+    /**
+     * Lookups answered from the table.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Lookups that fell back to live calculation.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Duration of the most recent rebuild.
+     *
+     * @return milliseconds
+     */
+    public long getLastBuildMillis() {
+        return lastBuildMillis;
+    }
+
+    private boolean needsRebuild() {
+        synchronized (invalidationLock) {
+            if (dirty) {
+                return true;
+            }
+        }
+        return snapshot.startEpochDay != LocalDate.now().toEpochDay();
+    }
+
+    private void markChanged(String trainNo, String classType) {
+        synchronized (invalidationLock) {
+            markStale(snapshot, trainNo, classType);
+            if (building) {
+                changedDuringBuild.add(new String[] {trainNo, classType});
+            }
+            dirty = true;
+        }
+    }
+
+    private static void markStale(Snapshot target, String trainNo, String classType) {
+        Iterable<Map<String, Series>> trains = trainNo == null
+            ? target.byTrain.values()
+            : Collections.singletonList(target.byTrain.getOrDefault(trainNo, Collections.emptyMap()));
+        for (Map<String, Series> classes : trains) {
+            if (classType == null) {
+                classes.values().forEach(series -> series.stale = true);
+            } else if (classes.containsKey(classType)) {
+                classes.get(classType).stale = true;
+            }
+        }
+    }
+
+    private Snapshot build(ConfirmationRateCube cube, LocalDate today, int days) {
+        List<Train> trains = new WaitlistDAO().getAllTrains();
+        Set<String> classTypes = cube.getClassTypes();
+        List<String[]> pairs = new ArrayList<>(trains.size() * classTypes.size());
+        for (Train train : trains) {
+            for (String classType : classTypes) {
+                pairs.add(new String[] {train.getTrainNo(), classType});
+            }
+        }
+
+        ProbabilityCalculator calculator = new ProbabilityCalculator();
+        FactorModel model = FactorModel.getCurrent();
+        List<Series> computed;
+        ForkJoinPool pool = computePool;
+        if (pool != null) {
+            try {
+                computed = pool.submit(() -> pairs.parallelStream()
+                    .map(pair -> computeSeries(calculator, cube, model, pair[0], pair[1], today, days))
+                    .collect(Collectors.toList())).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Probability table build interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Probability table build failed", e.getCause());
+            }
+        } else {
+            // Not started (e.g. benchmarks); build on the calling thread
+            computed = new ArrayList<>(pairs.size());
+            for (String[] pair : pairs) {
+                computed.add(computeSeries(calculator, cube, model, pair[0], pair[1], today, days));
+            }
+        }
+
+        Map<String, Map<String, Series>> byTrain = new HashMap<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            byTrain.computeIfAbsent(pairs.get(i)[0], trainNo -> new HashMap<>()).put(pairs.get(i)[1], computed.get(i));
+        }
+        return new Snapshot(today.toEpochDay(), days, byTrain, pairs.size());
+    }
+
+    private static Series computeSeries(ProbabilityCalculator calculator, ConfirmationRateCube cube, FactorModel model,
+                                        String trainNo, String classType, LocalDate start, int days) {
+        FactorModel.Curves curves = model.curvesFor(trainNo, classType);
+        float[] seasonalBase = new float[days];
+        for (int day = 0; day < days; day++) {
+            LocalDate journeyDate = start.plusDays(day);
+            int month = calculator.getMonth(journeyDate);
+            seasonalBase[day] = (float) calculator.calculateSeasonalBase(
+                cube.getConfirmationRates(trainNo, journeyDate, classType, DateUtil.mysqlDayOfWeek(journeyDate), month),
+                curves, month);
+        }
+        return new Series(seasonalBase, curves);
+    }
+
+    /**
+     * One train and class: seasonally adjusted base rate by day offset, and the curves it was
+     * computed with. Float precision is far finer than the two decimals results are shown with.
+     */
+    private static final class Series {
+        private final float[] seasonalBase;
+        private final FactorModel.Curves curves;
+        private volatile boolean stale;
+
+        private Series(float[] seasonalBase, FactorModel.Curves curves) {
+            this.seasonalBase = seasonalBase;
+            this.curves = curves;
+        }
+    }
+
+    /**
+     * Published table; only the stale flags of its series ever change.
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(0, 0, Collections.emptyMap(), 0);
+
+        private final long startEpochDay;
+        private final int days;
+        private final Map<String, Map<String, Series>> byTrain;
+        private final int seriesCount;
+
+        private Snapshot(long startEpochDay, int days, Map<String, Map<String, Series>> byTrain, int seriesCount) {
+            this.startEpochDay = startEpochDay;
+            this.days = days;
+            this.byTrain = byTrain;
+            this.seriesCount = seriesCount;
+        }
+    }
+}
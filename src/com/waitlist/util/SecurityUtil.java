@@ -6,7 +6,8 @@ import java.security.NoSuchAlgorithmException;
 /**
  * Security Utility Class
  * Provides password hashing, validation, and security functions.
- * Uses SHA-256 encryption for secure password storage.
+ * Password storage now goes through PasswordHashingService (salted PBKDF2); the unsalted
+ * SHA-256 hash here is kept so existing accounts can still log in and be upgraded.
  */
 public class SecurityUtil {
     
@@ -83,4 +84,28 @@ public class SecurityUtil {
     public static boolean isValidPassword(String password) {
         return password.length() >= 6;
     }
+    
+    /**
+     * Escape text for inclusion in HTML element content or attribute values
+     * @param text text to escape (null becomes an empty string)
+     * @return HTML-safe text
+     */
+    public static String escapeHtml(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': out.append("&lt;"); break;
+                case '>': out.append("&gt;"); break;
+                case '&': out.append("&amp;"); break;
+                case '"': out.append("&quot;"); break;
+                case '\'': out.append("&#39;"); break;
+                default: out.append(c);
+            }
+        }
+        return out.toString();
+    }
 }
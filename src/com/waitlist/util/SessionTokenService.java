@@ -0,0 +1,212 @@
+package com.waitlist.util;
+
+import com.waitlist.model.UserPrincipal;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session Token Service
+ * Issues and verifies the signed tokens used by the stateless session mode.
+ *
+ * A token is {@code base64url(payload) "." base64url(HMAC-SHA256(payload))}, where the payload
+ * is {@code userId:tokenVersion:role:issuedAt:username}. Verification is a MAC check and an
+ * expiry check only - no database access and no server-side state - so any node holding the
+ * shared secret accepts a token issued by any other. Revocation is handled by the caller
+ * re-reading the user's token version once a token is older than the refresh interval.
+ */
+public class SessionTokenService {
+
+    private static final Log LOG = Log.getLogger(SessionTokenService.class);
+
+    public static final int DEFAULT_TTL_SECONDS = 30 * 60;
+    public static final int DEFAULT_REFRESH_SECONDS = 5 * 60;
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final long CLOCK_SKEW_SECONDS = 60;
+
+    private static final SessionTokenService INSTANCE = new SessionTokenService();
+
+    private volatile boolean stateless;
+    private volatile Signer signer = new Signer(randomKey());
+    private volatile int ttlSeconds = DEFAULT_TTL_SECONDS;
+    private volatile int refreshSeconds = DEFAULT_REFRESH_SECONDS;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private SessionTokenService() {
+    }
+
+    /**
+     * Returns the application-wide token service.
+     *
+     * @return shared service instance
+     */
+    public static SessionTokenService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the session mode and token parameters.
+     * Without a secret a random per-process key is used, which only works on a single node and
+     * signs everyone out on restart.
+     *
+     * @param stateless True to keep login state in signed tokens instead of the HttpSession
+     * @param secret Shared signing secret, identical on every node; null or empty for a random key
+     * @param ttlSeconds Lifetime of a token since it was issued
+     * @param refreshSeconds Age after which a token is re-validated and re-issued
+     */
+    public synchronized void configure(boolean stateless, String secret, int ttlSeconds, int refreshSeconds) {
+        this.stateless = stateless;
+        this.ttlSeconds = Math.max(60, ttlSeconds);
+        this.refreshSeconds = Math.max(0, Math.min(refreshSeconds, this.ttlSeconds));
+        if (secret == null || secret.trim().isEmpty()) {
+            signer = new Signer(randomKey());
+            if (stateless) {
+                LOG.warn("auth.tokenSecret is not set - using a random key; tokens will not survive a restart or work across nodes");
+            }
+        } else {
+            if (secret.trim().length() < MIN_SECRET_LENGTH) {
+                LOG.warn("auth.tokenSecret is shorter than {} characters", MIN_SECRET_LENGTH);
+            }
+            signer = new Signer(secret.trim().getBytes(StandardCharsets.UTF_8));
+        }
+        LOG.info("Session mode: {}, token ttl={}s, refresh={}s", stateless ? "token" : "session",
+            this.ttlSeconds, this.refreshSeconds);
+    }
+
+    /**
+     * Whether login state is kept in signed tokens rather than the HttpSession.
+     *
+     * @return true in stateless (token) mode
+     */
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    /**
+     * Gets the token lifetime.
+     *
+     * @return seconds a token stays valid after it was issued
+     */
+    public int getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * Signs a principal into a token.
+     *
+     * @param principal The principal; its issue time starts the token lifetime
+     * @return compact URL- and cookie-safe token
+     */
+    public String issue(UserPrincipal principal) {
+        String payload = principal.getUserId() + ":" + principal.getTokenVersion() + ":" + principal.getRole() + ":"
+            + principal.getIssuedAt() + ":" + principal.getUsername();
+        String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign(encoded));
+    }
+
+    /**
+     * Verifies a token's signature and lifetime.
+     *
+     * @param token Token as sent by the client
+     * @param now Current time in epoch seconds
+     * @return the principal the token was issued for, or null if it is malformed, forged or expired
+     */
+    public UserPrincipal verify(String token, long now) {
+        UserPrincipal principal = parse(token, now);
+        if (principal == null) {
+            rejectedCount.incrementAndGet();
+        }
+        return principal;
+    }
+
+    /**
+     * Whether a verified token is old enough to be re-validated against the database and re-issued.
+     *
+     * @param principal Principal from {@link #verify}
+     * @param now Current time in epoch seconds
+     * @return true once the refresh interval has passed since issue
+     */
+    public boolean needsRefresh(UserPrincipal principal, long now) {
+        return now - principal.getIssuedAt() >= refreshSeconds;
+    }
+
+    /**
+     * Tokens refused as malformed, forged or expired.
+     *
+     * @return rejected count
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private UserPrincipal parse(String token, long now) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return null;
+        }
+        String encoded = token.substring(0, dot);
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signer.sign(encoded), signature)) {
+                return null;
+            }
+            String[] fields = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split(":", 5);
+            if (fields.length != 5) {
+                return null;
+            }
+            long issuedAt = Long.parseLong(fields[3]);
+            if (issuedAt > now + CLOCK_SKEW_SECONDS || now - issuedAt >= ttlSeconds) {
+                return null;
+            }
+            return new UserPrincipal(Integer.parseInt(fields[0]), fields[4], fields[2], Integer.parseInt(fields[1]), issuedAt);
+        } catch (IllegalArgumentException e) {
+            // Bad Base64 or number
+            return null;
+        }
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    /**
+     * HMAC for one key; Mac instances are not thread-safe, so each thread keeps its own.
+     */
+    private static final class Signer {
+        private final SecretKeySpec key;
+        private final ThreadLocal<Mac> macs;
+
+        Signer(byte[] secret) {
+            this.key = new SecretKeySpec(secret, ALGORITHM);
+            this.macs = ThreadLocal.withInitial(this::newMac);
+        }
+
+        byte[] sign(String data) {
+            return macs.get().doFinal(data.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        private Mac newMac() {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(ALGORITHM + " not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.waitlist.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * SQL Statistics
+ * Per-statement aggregates collected by the JDBC timing proxies that wrap every pooled
+ * connection's statements. Statements are grouped by shape: the SQL text with whitespace
+ * collapsed and, for plain (unprepared) statements, literals replaced by "?".
+ *
+ * For each shape it keeps call and error counts, execute time (until the driver returns),
+ * fetch time (spent in ResultSet.next()), rows returned or affected, the DAO method that
+ * issued it and the latest bind shape. Executions slower than db.slowQueryMillis also go to
+ * a slow-query log, of which the most recent {@link #SLOW_LOG_SIZE} entries are kept.
+ */
+public class SqlStatistics {
+
+    private static final Log LOG = Log.getLogger(SqlStatistics.class);
+
+    public static final int MAX_SHAPES = 500;
+    public static final int SLOW_LOG_SIZE = 50;
+    public static final String OTHER = "(other statements)";
+
+    private static final SqlStatistics INSTANCE = new SqlStatistics();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+
+    private final ConcurrentMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final ArrayDeque<SlowQuery> slowLog = new ArrayDeque<>();
+    private final LatencyHistogram acquireTimer = new LatencyHistogram();
+    private volatile Date resetAt = new Date();
+
+    private SqlStatistics() {}
+
+    /**
+     * Returns the application-wide SQL statistics.
+     *
+     * @return shared instance
+     */
+    public static SqlStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Aggregate for a statement, created on first use.
+     *
+     * @param sql SQL text as passed to the driver
+     * @param prepared true for prepared statements, whose literals are part of the shape
+     * @return aggregate for the statement's shape
+     */
+    StatementStats statsFor(String sql, boolean prepared) {
+        String shape = prepared ? collapseWhitespace(sql) : normalize(sql);
+        StatementStats existing = statements.get(shape);
+        if (existing != null) {
+            return existing;
+        }
+        if (statements.size() >= MAX_SHAPES) {
+            shape = OTHER;
+        }
+        return statements.computeIfAbsent(shape, StatementStats::new);
+    }
+
+    /**
+     * Adds an execution to the slow-query log and prints it.
+     */
+    void logSlowQuery(SlowQuery query) {
+        LOG.warn("Slow query: {}", query);
+        synchronized (slowLog) {
+            if (slowLog.size() == SLOW_LOG_SIZE) {
+                slowLog.pollLast();
+            }
+            slowLog.offerFirst(query);
+        }
+    }
+
+    /**
+     * Histogram of time spent waiting for a pooled connection.
+     *
+     * @return connection acquisition latency
+     */
+    public LatencyHistogram getAcquireTimer() {
+        return acquireTimer;
+    }
+
+    /**
+     * Statements ordered by total time (execute plus fetch), highest first.
+     *
+     * @param limit Maximum number of statements
+     * @return top statements
+     */
+    public List<StatementStats> getTopStatements(int limit) {
+        List<StatementStats> all = new ArrayList<>(statements.values());
+        all.sort(Comparator.comparingLong(StatementStats::getTotalNanos).reversed());
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    /**
+     * Number of distinct statement shapes seen.
+     *
+     * @return shape count
+     */
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    /**
+     * Recent slow executions, newest first.
+     *
+     * @return slow-query log entries
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowLog) {
+            return new ArrayList<>(slowLog);
+        }
+    }
+
+    /**
+     * Discards all statement aggregates and the slow-query log.
+     */
+    public void reset() {
+        statements.clear();
+        synchronized (slowLog) {
+            slowLog.clear();
+        }
+        resetAt = new Date();
+    }
+
+    /**
+     * When collection started or was last reset.
+     *
+     * @return start of the current collection window
+     */
+    public Date getResetAt() {
+        return resetAt;
+    }
+
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return collapseWhitespace(shape);
+    }
+
+    static String collapseWhitespace(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        boolean space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = out.length() > 0;
+            } else {
+                if (space) {
+                    out.append(' ');
+                    space = false;
+                }
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Running totals for one statement shape. Updated without locking.
+     */
+    public static final class StatementStats {
+        private final String sql;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder executeNanos = new LongAdder();
+        private final LongAdder fetchNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private volatile String source;
+        private volatile String bindShape;
+
+        private StatementStats(String sql) {
+            this.sql = sql;
+        }
+
+        void record(String caller, String binds, long execute, long fetch, long rowCount, boolean failed) {
+            long total = execute + fetch;
+            calls.increment();
+            if (failed) {
+                errors.increment();
+            }
+            executeNanos.add(execute);
+            fetchNanos.add(fetch);
+            rows.add(rowCount);
+            maxNanos.accumulate(total);
+            latency.record(total);
+            if (source == null) {
+                source = caller;
+            }
+            bindShape = binds;
+        }
+
+        /**
+         * Statement shape.
+         *
+         * @return normalized SQL
+         */
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * DAO method that first issued the statement.
+         *
+         * @return class and method name
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Parameter types bound on the latest execution.
+         *
+         * @return bind shape, e.g. [String, Int]
+         */
+        public String getBindShape() {
+            return bindShape;
+        }
+
+        /**
+         * Number of executions.
+         *
+         * @return execution count
+         */
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        /**
+         * Number of executions that threw.
+         *
+         * @return error count
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * Rows returned by queries or affected by updates.
+         *
+         * @return row count
+         */
+        public long getRows() {
+            return rows.sum();
+        }
+
+        /**
+         * Execute plus fetch time.
+         *
+         * @return total time in nanoseconds
+         */
+        public long getTotalNanos() {
+            return executeNanos.sum() + fetchNanos.sum();
+        }
+
+        /**
+         * Execute plus fetch time.
+         *
+         * @return total time in milliseconds
+         */
+        public double getTotalMillis() {
+            return getTotalNanos() / 1e6;
+        }
+
+        /**
+         * Time until the driver returned from execute.
+         *
+         * @return execute time in milliseconds
+         */
+        public double getExecuteMillis() {
+            return executeNanos.sum() / 1e6;
+        }
+
+        /**
+         * Time spent in ResultSet.next().
+         *
+         * @return fetch time in milliseconds
+         */
+        public double getFetchMillis() {
+            return fetchNanos.sum() / 1e6;
+        }
+
+        /**
+         * Average execute plus fetch time per call.
+         *
+         * @return average time in milliseconds
+         */
+        public double getAverageMillis() {
+            long count = calls.sum();
+            return count == 0 ? 0.0 : getTotalMillis() / count;
+        }
+
+        /**
+         * Slowest single execution.
+         *
+         * @return maximum time in milliseconds
+         */
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        /**
+         * Estimated latency percentile.
+         *
+         * @param percent Percentile between 0 and 100
+         * @return percentile in milliseconds
+         */
+        public double getPercentileMillis(double percent) {
+            return latency.getPercentileMillis(percent);
+        }
+    }
+
+    /**
+     * One execution that exceeded the slow-query threshold.
+     */
+    public static final class SlowQuery {
+        private final String sql;
+        private final String source;
+        private final String bindShape;
+        private final long executeNanos;
+        private final long fetchNanos;
+        private final long rows;
+        private final Date at = new Date();
+
+        SlowQuery(String sql, String source, String bindShape, long executeNanos, long fetchNanos, long rows) {
+            this.sql = sql;
+            this.source = source;
+            this.bindShape = bindShape;
+            this.executeNanos = executeNanos;
+            this.fetchNanos = fetchNanos;
+            this.rows = rows;
+        }
+
+        /**
+         * Statement shape.
+         *
+         * @return normalized SQL
+         */
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * DAO method that issued the statement.
+         *
+         * @return class and method name
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Parameter types bound for this execution.
+         *
+         * @return bind shape
+         */
+        public String getBindShape() {
+            return bindShape;
+        }
+
+        /**
+         * Execute plus fetch time.
+         *
+         * @return total time in milliseconds
+         */
+        public double getTotalMillis() {
+            return (executeNanos + fetchNanos) / 1e6;
+        }
+
+        /**
+         * Time until the driver returned from execute.
+         *
+         * @return execute time in milliseconds
+         */
+        public double getExecuteMillis() {
+            return executeNanos / 1e6;
+        }
+
+        /**
+         * Time spent in ResultSet.next().
+         *
+         * @return fetch time in milliseconds
+         */
+        public double getFetchMillis() {
+            return fetchNanos / 1e6;
+        }
+
+        /**
+         * Rows returned or affected.
+         *
+         * @return row count
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * When the execution finished.
+         *
+         * @return completion time
+         */
+        public Date getAt() {
+            return at;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f ms (execute %.1f, fetch %.1f, %d rows) in %s: %s binds %s",
+                    getTotalMillis(), getExecuteMillis(), getFetchMillis(), rows, source, sql, bindShape);
+        }
+    }
+}
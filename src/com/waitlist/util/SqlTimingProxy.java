@@ -0,0 +1,279 @@
+package com.waitlist.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC Statement Timing Proxy
+ * Wraps a statement handed out by a pooled connection and records every execution in
+ * {@link SqlStatistics}: execute time, fetch time (spent in ResultSet.next()), rows and
+ * the types of the bound parameters. An execution ends when its result set is exhausted
+ * or closed, the statement is executed again, or the statement is closed.
+ */
+final class SqlTimingProxy implements InvocationHandler {
+
+    private final Statement target;
+    private final Connection connection;
+    private final String sql;
+    private final String caller;
+    private final long slowNanos;
+    private final List<String> binds = new ArrayList<>();
+    private int batchSize;
+    private Execution current;
+
+    private SqlTimingProxy(Statement target, Connection connection, String sql, String caller, long slowNanos) {
+        this.target = target;
+        this.connection = connection;
+        this.sql = sql;
+        this.caller = caller;
+        this.slowNanos = slowNanos;
+    }
+
+    /**
+     * Wraps a statement created by a pooled connection.
+     *
+     * @param target Statement from the physical connection
+     * @param type Statement, PreparedStatement or CallableStatement
+     * @param connection Pooled connection handle, returned by getConnection()
+     * @param sql SQL text for prepared statements, null for plain statements
+     * @param caller DAO method that borrowed the connection
+     * @param slowNanos Slow-query threshold in nanoseconds (0 disables the slow-query log)
+     * @return timing proxy implementing the same statement interface
+     */
+    static Statement wrap(Statement target, Class<? extends Statement> type, Connection connection,
+                          String sql, String caller, long slowNanos) {
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[] { type },
+                new SqlTimingProxy(target, connection, sql, caller, slowNanos));
+    }
+
+    /**
+     * Statement interface produced by a Connection factory method, or null if the method
+     * does not create a statement.
+     */
+    static Class<? extends Statement> statementType(String methodName) {
+        switch (methodName) {
+            case "createStatement":
+                return Statement.class;
+            case "prepareStatement":
+                return PreparedStatement.class;
+            case "prepareCall":
+                return CallableStatement.class;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "execute":
+            case "executeQuery":
+            case "executeUpdate":
+            case "executeLargeUpdate":
+            case "executeBatch":
+            case "executeLargeBatch":
+                return execute(proxy, method, args);
+            case "getResultSet":
+                ResultSet resultSet = (ResultSet) call(method, args);
+                return current != null && resultSet != null ? current.wrap(resultSet, proxy) : resultSet;
+            case "addBatch":
+                batchSize++;
+                return call(method, args);
+            case "clearBatch":
+                batchSize = 0;
+                return call(method, args);
+            case "clearParameters":
+                binds.clear();
+                return call(method, args);
+            case "close":
+                finish();
+                return call(method, args);
+            case "getConnection":
+                return connection;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        if (args != null && args.length >= 2 && args[0] instanceof Integer && name.startsWith("set")) {
+            recordBind((Integer) args[0], name, args[1]);
+        }
+        return call(method, args);
+    }
+
+    private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+        finish();
+        boolean prepared = sql != null && (args == null || args.length == 0);
+        String text = prepared ? sql : (args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql);
+        Execution execution = new Execution(text == null ? "(batch)" : text, prepared, describeBinds());
+        batchSize = 0;
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = call(method, args);
+        } catch (Throwable t) {
+            execution.executeNanos = System.nanoTime() - start;
+            execution.failed = true;
+            execution.finish();
+            throw t;
+        }
+        execution.executeNanos = System.nanoTime() - start;
+
+        if (result instanceof ResultSet) {
+            current = execution;
+            return execution.wrap((ResultSet) result, proxy);
+        }
+        if (result instanceof Boolean) {
+            if ((Boolean) result) {
+                current = execution; // rows are counted when the caller fetches getResultSet()
+                return result;
+            }
+            execution.rows = Math.max(0, target.getUpdateCount());
+        } else if (result instanceof Number) {
+            execution.rows = ((Number) result).longValue();
+        } else if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                execution.rows += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                execution.rows += Math.max(0, count);
+            }
+        }
+        execution.finish();
+        return result;
+    }
+
+    private void finish() {
+        if (current != null) {
+            current.finish();
+            current = null;
+        }
+    }
+
+    private void recordBind(int index, String setter, Object value) {
+        String type;
+        if ("setNull".equals(setter) || value == null) {
+            type = "NULL";
+        } else if ("setObject".equals(setter)) {
+            type = value.getClass().getSimpleName();
+        } else {
+            type = setter.substring(3);
+        }
+        while (binds.size() < index) {
+            binds.add("?");
+        }
+        binds.set(index - 1, type);
+    }
+
+    private String describeBinds() {
+        if (binds.isEmpty() && batchSize == 0) {
+            return "[]";
+        }
+        String shape = binds.toString();
+        return batchSize > 0 ? shape + " x " + batchSize : shape;
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * One execution: timed until its result set is consumed or abandoned.
+     */
+    private final class Execution {
+        private final String text;
+        private final boolean prepared;
+        private final String bindShape;
+        private long executeNanos;
+        private long fetchNanos;
+        private long rows;
+        private boolean failed;
+        private boolean finished;
+
+        private Execution(String text, boolean prepared, String bindShape) {
+            this.text = text;
+            this.prepared = prepared;
+            this.bindShape = bindShape;
+        }
+
+        private ResultSet wrap(ResultSet resultSet, Object statementProxy) {
+            return (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class },
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                long start = System.nanoTime();
+                                boolean more;
+                                try {
+                                    more = (Boolean) call(resultSet, method, args);
+                                } catch (Throwable t) {
+                                    failed = true;
+                                    throw t;
+                                } finally {
+                                    fetchNanos += System.nanoTime() - start;
+                                }
+                                if (more) {
+                                    rows++;
+                                } else {
+                                    finish();
+                                }
+                                return more;
+                            case "close":
+                                finish();
+                                return call(resultSet, method, args);
+                            case "getStatement":
+                                return statementProxy;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return call(resultSet, method, args);
+                        }
+                    });
+        }
+
+        private Object call(ResultSet resultSet, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            SqlStatistics statistics = SqlStatistics.getInstance();
+            SqlStatistics.StatementStats stats = statistics.statsFor(text, prepared);
+            stats.record(caller, bindShape, executeNanos, fetchNanos, rows, failed);
+            if (slowNanos > 0 && executeNanos + fetchNanos >= slowNanos) {
+                statistics.logSlowQuery(new SqlStatistics.SlowQuery(
+                        stats.getSql(), caller, bindShape, executeNanos, fetchNanos, rows));
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.waitlist.util;
+
+import com.waitlist.dao.SearchHistoryDAO;
+import com.waitlist.dao.UserDAO;
+import com.waitlist.dao.WaitlistDAO;
+import com.waitlist.model.GlobalSearchStats;
+import com.waitlist.model.StatsSnapshot;
+import com.waitlist.model.TrainSearchStats;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Stats Service
+ * Computes the admin statistics on a schedule and publishes them as an immutable snapshot.
+ *
+ * - Admin pages read the latest snapshot, so any number of admins viewing dashboards costs the
+ *   database one set of queries per refresh interval rather than one per page view.
+ * - The queries of one refresh run in parallel on a small pool, so a refresh takes as long as
+ *   its slowest query.
+ * - A refresh in which any query failed publishes nothing: the previous snapshot stays in place
+ *   and its timestamp shows how old it is, rather than a fresh-looking snapshot of zeros.
+ */
+public class StatsService {
+
+    private static final Log LOG = Log.getLogger(StatsService.class);
+
+    public static final long DEFAULT_REFRESH_MILLIS = 60_000;
+    public static final int TOP_TRAINS = 5;
+
+    private static final StatsService INSTANCE = new StatsService();
+
+    private final Object refreshLock = new Object();
+    private volatile StatsSnapshot snapshot;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService queryPool;
+
+    private StatsService() {}
+
+    /**
+     * Returns the application-wide stats service.
+     *
+     * @return shared service instance
+     */
+    public static StatsService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts refreshing the snapshot in the background, the first time immediately.
+     *
+     * @param refreshMillis Interval between refreshes
+     */
+    public synchronized void start(long refreshMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        queryPool = Executors.newFixedThreadPool(3, r -> {
+            Thread t = new Thread(r, "stats-query-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stats-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the previous snapshot stays published
+                LOG.warn("Admin statistics refresh failed: {}", e.getMessage());
+            }
+        }, 0, Math.max(1000, refreshMillis), TimeUnit.MILLISECONDS);
+        LOG.info("Admin statistics refreshing every {}ms", Math.max(1000, refreshMillis));
+    }
+
+    /**
+     * Stops the background refresh.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            queryPool.shutdownNow();
+            scheduler = null;
+            queryPool = null;
+        }
+    }
+
+    /**
+     * Returns the latest snapshot, computing one first if none has been published yet.
+     *
+     * @return latest statistics snapshot, or null if none could be computed yet
+     */
+    public StatsSnapshot getSnapshot() {
+        StatsSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (refreshLock) {
+            // Whoever got here first computed it; the rest reuse that result
+            return snapshot != null ? snapshot : refresh();
+        }
+    }
+
+    /**
+     * Computes and publishes a new snapshot. If any of its queries fails nothing is published.
+     *
+     * @return the new snapshot, or the previous one (null if there is none) if a query failed
+     */
+    public StatsSnapshot refresh() {
+        synchronized (refreshLock) {
+            long start = System.currentTimeMillis();
+            ExecutorService pool = queryPool;
+
+            // Each DAO returns null if its query failed
+            CompletableFuture<Long> users = supply(() -> new UserDAO().getTotalUsers(), pool);
+            CompletableFuture<Long> trains = supply(() -> new WaitlistDAO().getTotalTrains(), pool);
+            CompletableFuture<GlobalSearchStats> searches = supply(() -> new SearchHistoryDAO().getGlobalStatistics(), pool);
+            CompletableFuture<List<TrainSearchStats>> topTrains = supply(() -> new SearchHistoryDAO().getTrainPerformanceStats(TOP_TRAINS), pool);
+
+            Long totalUsers = users.join();
+            Long totalTrains = trains.join();
+            GlobalSearchStats searchStats = searches.join();
+            List<TrainSearchStats> trainStats = topTrains.join();
+            if (totalUsers == null || totalTrains == null || searchStats == null || trainStats == null) {
+                // The failing DAO has logged its error
+                LOG.warn("Admin statistics refresh failed - keeping the snapshot from {}",
+                    snapshot != null ? snapshot.getComputedAt() : "(none yet)");
+                return snapshot;
+            }
+
+            StatsSnapshot next = new StatsSnapshot(totalUsers, totalTrains, searchStats, trainStats,
+                                                   new Date(), System.currentTimeMillis() - start);
+            snapshot = next;
+            return next;
+        }
+    }
+
+    private static <T> CompletableFuture<T> supply(Supplier<T> query, ExecutorService pool) {
+        // Before start() (or after shutdown) there is no pool; run on the calling thread
+        return pool != null ? CompletableFuture.supplyAsync(query, pool) : CompletableFuture.completedFuture(query.get());
+    }
+}